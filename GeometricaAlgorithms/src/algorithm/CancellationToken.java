@@ -0,0 +1,24 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// a flag through which a caller asks running solutions to stop
+// solvers check it between iterations and keep the best result found so far;
+// one token may be shared by any number of solvers and threads
+public class CancellationToken {
+	private volatile boolean cancelled;
+	
+	public CancellationToken ( )
+	{
+		cancelled = false;
+	}
+	
+	public void cancel ( )
+	{
+		cancelled = true;
+	}
+	
+	public boolean isCancelled ( )
+	{
+		return cancelled;
+	}
+}
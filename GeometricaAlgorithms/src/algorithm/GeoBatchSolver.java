@@ -0,0 +1,416 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+// solves many constructs at once: each one is interpreted, drawn and has
+// its queries solved as a single task on a pool of a fixed number of threads
+//
+// the tasks are independent, so each one runs on one thread and the
+// parallelism comes from solving several of them at the same time; the results
+// are returned in the order they complete, and a failure of one of them is
+// reported in its own result without affecting the others
+public class GeoBatchSolver {
+	// the outcome of an item:
+	public static final int RESULT_SOLVED = 0;
+	// the script has errors, nothing was drawn
+	public static final int RESULT_SCRIPT_ERRORS = 1;
+	// the drawing does not meet its constraints, queries were not solved
+	public static final int RESULT_NOT_DRAWN = 2;
+	// an exception was thrown while solving
+	public static final int RESULT_FAILED = 3;
+
+	// the threads solving the items
+	private ForkJoinPool pool;
+
+	// passed on to the drawing optimizer of every item
+	private int solverMode;
+	private long timeBudget;
+	private CancellationToken token;
+	private GeoSolutionCache cache;
+
+	// whether the queries of the items are solved after drawing
+	private boolean solveQueries;
+
+	// uses a thread for each processor
+	public GeoBatchSolver ( )
+	{
+		this( Runtime.getRuntime().availableProcessors());
+	}
+
+	// uses at most the given number of threads
+	public GeoBatchSolver ( int threads)
+	{
+		pool = new ForkJoinPool( Math.max( 1, threads));
+
+		solverMode = GeoNumericSolver.SOLVER_AUTOMATIC;
+		timeBudget = 0;
+		token = null;
+		cache = null;
+		solveQueries = true;
+	}
+
+	// getters/setters:
+
+	public int getThreads ( )
+	{
+		return pool.getParallelism();
+	}
+
+	// see GeoDrawingOptimizer.setSolverMode()
+	public void setSolverMode ( int mode)
+	{
+		this.solverMode = mode;
+	}
+
+	public int getSolverMode ( )
+	{
+		return solverMode;
+	}
+
+	// limits the drawing time of each item, see GeoDrawingOptimizer.setTimeBudget()
+	public void setTimeBudget ( long milliseconds)
+	{
+		this.timeBudget = Math.max( 0, milliseconds);
+	}
+
+	public long getTimeBudget ( )
+	{
+		return timeBudget;
+	}
+
+	// stops the drawing of all items when cancelled, or null
+	public void setCancellationToken ( CancellationToken token)
+	{
+		this.token = token;
+	}
+
+	public CancellationToken getCancellationToken ( )
+	{
+		return token;
+	}
+
+	// shared by the items, so repeated constructs are drawn once; or null
+	public void setSolutionCache ( GeoSolutionCache cache)
+	{
+		this.cache = cache;
+	}
+
+	public GeoSolutionCache getSolutionCache ( )
+	{
+		return cache;
+	}
+
+	public void setSolveQueries ( boolean solveQueries)
+	{
+		this.solveQueries = solveQueries;
+	}
+
+	public boolean isSolveQueries ( )
+	{
+		return solveQueries;
+	}
+
+	// starts solving the given scripts, the results are read from the returned batch
+	public Batch solveScripts ( Collection<String> scripts)
+	{
+		Batch batch = new Batch( pool);
+
+		for ( final String script : scripts)
+		{
+			final int index = batch.size;
+
+			batch.submit( new Callable<Result>() {
+				@Override
+				public Result call ( )
+				{
+					Result result = new Result( index, script);
+
+					try {
+						GeoInterpreter interpreter = new GeoInterpreter( script);
+
+						interpreter.interpretString();
+						result.errors = interpreter.getErrors();
+						result.construct = interpreter.getConstruct();
+
+						if ( !result.errors.getErrors().isEmpty())
+							result.status = RESULT_SCRIPT_ERRORS;
+						else
+							solve( result, interpreter.getConstraintLines());
+					}
+					catch ( Throwable t)
+					{
+						result.fail( t);
+					}
+
+					return result;
+				}
+			});
+		}
+
+		return batch;
+	}
+
+	// starts solving the given constructs, the results are read from the returned batch
+	// the points of the constructs are moved
+	public Batch solveConstructs ( Collection<GeoConstruct> constructs)
+	{
+		Batch batch = new Batch( pool);
+
+		for ( final GeoConstruct construct : constructs)
+		{
+			final int index = batch.size;
+
+			batch.submit( new Callable<Result>() {
+				@Override
+				public Result call ( )
+				{
+					Result result = new Result( index, construct.getScript());
+
+					result.construct = construct;
+					try {
+						solve( result, null);
+					}
+					catch ( Throwable t)
+					{
+						result.fail( t);
+					}
+
+					return result;
+				}
+			});
+		}
+
+		return batch;
+	}
+
+	// stops the threads once the submitted items are solved
+	public void shutdown ( )
+	{
+		pool.shutdown();
+	}
+
+	// draws the construct of an item, then solves its queries
+	// lines maps the constraints to the lines of the script, or is null
+	private void solve ( Result result, HashMap<GeoConstraint,Integer> lines)
+	{
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( result.construct);
+
+		// the item already has a thread of its own
+		optimizer.setParallel( false);
+		optimizer.setSolverMode( solverMode);
+		optimizer.setTimeBudget( timeBudget);
+		optimizer.setCancellationToken( token);
+		optimizer.setSolutionCache( cache);
+
+		result.stats = optimizer.optimize( true);
+
+		if ( !result.stats.isSolved())
+		{
+			// name the constraints which cannot be met
+			if ( result.stats.getStatus() == SolverStats.STATUS_INCONSISTENT)
+				result.errors = optimizer.getAnalyzer().getErrors( lines);
+			
+			result.status = RESULT_NOT_DRAWN;
+			return;
+		}
+
+		if ( solveQueries)
+		{
+			GeoProblemSolver problemSolver = new GeoProblemSolver( result.construct);
+
+			problemSolver.constructProblem();
+			result.queryStatus = problemSolver.solve();
+			result.solutions = problemSolver.getSolutions();
+		}
+
+		result.status = RESULT_SOLVED;
+	}
+
+	// the results of a set of items, in the order they complete
+	public static class Batch {
+		private ExecutorCompletionService<Result> completion;
+
+		// the number of items submitted and the number returned so far
+		private int size;
+		private int taken;
+
+		private Batch ( ForkJoinPool pool)
+		{
+			completion = new ExecutorCompletionService<Result>( pool);
+			size = 0;
+			taken = 0;
+		}
+
+		private void submit ( Callable<Result> task)
+		{
+			completion.submit( task);
+			size++;
+		}
+
+		public int size ( )
+		{
+			return size;
+		}
+
+		// whether there are results not returned yet
+		public boolean hasNext ( )
+		{
+			return taken < size;
+		}
+
+		// waits for the next item to complete and returns its result
+		public Result next ( ) throws InterruptedException
+		{
+			Result result;
+
+			if ( !hasNext())
+				return null;
+
+			try {
+				result = completion.take().get();
+			}
+			catch ( ExecutionException e)
+			{
+				// the tasks catch their own failures, so this is not expected
+				throw new IllegalStateException( e.getCause());
+			}
+
+			taken++;
+			return result;
+		}
+
+		// waits for all remaining items, returns their results ordered by index
+		public ArrayList<Result> all ( ) throws InterruptedException
+		{
+			ArrayList<Result> results = new ArrayList<Result>();
+
+			for ( int i = taken; i < size; i++)
+			{
+				results.add( null);
+			}
+
+			int offset = taken;
+			while ( hasNext())
+			{
+				Result result = next();
+				results.set( result.index - offset, result);
+			}
+
+			return results;
+		}
+	}
+
+	// the outcome of solving one item
+	public static class Result {
+		// the position of the item in the submitted collection
+		private int index;
+
+		private String script;
+		private GeoConstruct construct;
+		private int status;
+
+		// the errors of the script, or the constraints that cannot be met;
+		// null for constructs given directly
+		private ScriptErrorList errors;
+		// the statistics of the drawing, null if it was not drawn
+		private SolverStats stats;
+		// the result of GeoProblemSolver.solve() and the solutions, if the queries were solved
+		private int queryStatus;
+		private ArrayList<SolutionNode> solutions;
+		// the exception which stopped the item, if any
+		private Throwable failure;
+
+		private Result ( int index, String script)
+		{
+			this.index = index;
+			this.script = script;
+			status = RESULT_FAILED;
+			queryStatus = 0;
+			solutions = new ArrayList<SolutionNode>();
+		}
+
+		private void fail ( Throwable t)
+		{
+			status = RESULT_FAILED;
+			failure = t;
+		}
+
+		// getters:
+
+		public int getIndex ( )
+		{
+			return index;
+		}
+
+		public String getScript ( )
+		{
+			return script;
+		}
+
+		public GeoConstruct getConstruct ( )
+		{
+			return construct;
+		}
+
+		public int getStatus ( )
+		{
+			return status;
+		}
+
+		public boolean isSolved ( )
+		{
+			return status == RESULT_SOLVED;
+		}
+
+		public ScriptErrorList getErrors ( )
+		{
+			return errors;
+		}
+
+		public SolverStats getStats ( )
+		{
+			return stats;
+		}
+
+		public int getQueryStatus ( )
+		{
+			return queryStatus;
+		}
+
+		public ArrayList<SolutionNode> getSolutions ( )
+		{
+			return solutions;
+		}
+
+		public Throwable getFailure ( )
+		{
+			return failure;
+		}
+
+		@Override
+		public String toString ( )
+		{
+			String res = "item " + index + ": ";
+
+			switch ( status)
+			{
+			case RESULT_SOLVED: res += "solved"; break;
+			case RESULT_SCRIPT_ERRORS: res += "script errors"; break;
+			case RESULT_NOT_DRAWN: res += "not drawn"; break;
+			default: res += "failed, " + failure;
+			}
+
+			if ( stats != null)
+				res += " (" + stats + ")";
+
+			return res;
+		}
+	}
+}
@@ -0,0 +1,709 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// the constraints of a system compiled against the parameter array of a solver
+//
+// every point of a constraint is replaced by the offset of its x coordinate in a
+// single array of values, its y coordinate following it; free points are read straight
+// from their parameters, while the points of compound objects such as rigid ones and
+// the points which are constant during the solution are kept in a tail after the parameters
+// the points themselves are not written until the solver is done
+//
+// the distance, angle, point on line and parallel line constraints, the most common
+// ones, are also kept by kind in parallel arrays; whole systems are evaluated kind by kind in tight loops over
+// these, without a virtual call for each constraint; the other kinds are still
+// evaluated through the constraints themselves
+//
+// the gradient of a whole system is fused the same way: the derivatives with respect
+// to every coordinate are gathered in one pass, then carried over to the parameters
+// of each compound object once, instead of once for every constraint on its points
+public class GeoCompiledSystem {
+	// the kinds of constraints evaluated from the parallel arrays
+	private static final int KIND_OTHER = 0;
+	private static final int KIND_DISTANCE = 1;
+	private static final int KIND_ANGLE = 2;
+	private static final int KIND_POINT_ON_LINE = 3;
+	private static final int KIND_PARALLEL = 4;
+	
+	// the constraints, the offsets of their points and where the offsets of each one start
+	private GeoConstraint[] constraints;
+	private int[] offsets;
+	private int[] constraintStart;
+	
+	// the number of parameters, and of all values including the tail
+	private int parameterCount;
+	private int length;
+	
+	// the constant points, their coordinates and where they are kept in the tail
+	private GeoPoint[] constantPoints;
+	private double[] constants;
+	private int[] constantOffsets;
+	
+	// the compound objects, where their parameters start and where their points are kept
+	private GeoCompoundObject[] compoundObjects;
+	private int[] compoundParameters;
+	private int[] compoundCoordinates;
+	// for each parameter, the compound object that it moves or -1
+	private int[] parameterCompound;
+	
+	// the kind of each constraint, and its position among the constraints of that kind
+	private int[] kinds;
+	private int[] kindIndices;
+	
+	// the distance constraints: the offsets of their two points and the distances
+	private int[] distanceConstraints;
+	private int[] distanceFirst;
+	private int[] distanceSecond;
+	private double[] distances;
+	
+	// the angle constraints: the offsets of their ends and corners, and the negated
+	// cosines of the angles, which the cosine of a met angle cancels
+	private int[] angleConstraints;
+	private int[] angleFirst;
+	private int[] angleCorner;
+	private int[] angleSecond;
+	private double[] angleCosines;
+	
+	// the point on line constraints: the offsets of their points and of the two points of the lines
+	private int[] lineConstraints;
+	private int[] linePoint;
+	private int[] lineFirst;
+	private int[] lineSecond;
+	
+	// the parallel line constraints: the offsets of the two points of each line
+	private int[] parallelConstraints;
+	private int[] parallelFirstA;
+	private int[] parallelFirstB;
+	private int[] parallelSecondA;
+	private int[] parallelSecondB;
+	
+	// the rest, evaluated through the constraints themselves
+	private int[] otherConstraints;
+	
+	// scratch memory of the gradient: the derivatives with respect to every value,
+	// and those with respect to the points of a single constraint
+	private double[] coordinateGradient;
+	private double[] pointGradient;
+	// the dual numbers of the constraints evaluated through themselves
+	private GeoDual dual;
+	
+	// compiles the constraints for the parameters of the given objects, laid out
+	// in order as by GeoNumericSolver
+	public GeoCompiledSystem ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
+		HashMap<GeoPoint,Integer> coordinates;
+		ArrayList<GeoCompoundObject> compound;
+		ArrayList<Integer> compoundOffsets;
+		ArrayList<GeoPoint> constantList;
+		int leftAt;
+		
+		coordinates = new HashMap<GeoPoint,Integer>();
+		compound = new ArrayList<GeoCompoundObject>();
+		compoundOffsets = new ArrayList<Integer>();
+		
+		// free points are their own parameters
+		leftAt = 0;
+		for ( GeoObject o : objects)
+		{
+			if ( o instanceof GeoPoint && o.getNumParameters() == 2)
+				coordinates.put( ( GeoPoint) o, leftAt);
+			else if ( o instanceof GeoCompoundObject)
+			{
+				compound.add( ( GeoCompoundObject) o);
+				compoundOffsets.add( leftAt);
+			}
+			
+			leftAt += o.getNumParameters();
+		}
+		
+		parameterCount = leftAt;
+		length = parameterCount;
+		
+		// the points of the compound objects follow the parameters
+		compoundObjects = compound.toArray( new GeoCompoundObject[ compound.size()]);
+		compoundParameters = new int[ compoundObjects.length];
+		compoundCoordinates = new int[ compoundObjects.length];
+		parameterCompound = new int[ parameterCount];
+		
+		for ( int i = 0; i < parameterCount; i++)
+		{
+			parameterCompound[i] = -1;
+		}
+		
+		for ( int i = 0; i < compoundObjects.length; i++)
+		{
+			ArrayList<GeoPoint> vertices = compoundObjects[i].getPoints();
+			
+			compoundParameters[i] = compoundOffsets.get( i);
+			compoundCoordinates[i] = length;
+			
+			for ( int j = 0; j < vertices.size(); j++)
+			{
+				coordinates.put( vertices.get( j), length + 2 * j);
+			}
+			length += 2 * vertices.size();
+			
+			for ( int k = 0; k < compoundObjects[i].getNumParameters(); k++)
+			{
+				parameterCompound[ compoundParameters[i] + k] = i;
+			}
+		}
+		
+		// then the points that are not moved by any object
+		constantList = new ArrayList<GeoPoint>();
+		this.constraints = constraints.toArray( new GeoConstraint[ constraints.size()]);
+		constraintStart = new int[ this.constraints.length + 1];
+		
+		for ( int i = 0; i < this.constraints.length; i++)
+		{
+			GeoPoint[] points = this.constraints[i].getPoints();
+			
+			constraintStart[i + 1] = constraintStart[i] + points.length;
+			
+			for ( GeoPoint p : points)
+			{
+				if ( !coordinates.containsKey( p))
+				{
+					coordinates.put( p, length);
+					constantList.add( p);
+					length += 2;
+				}
+			}
+		}
+		
+		constantPoints = constantList.toArray( new GeoPoint[ constantList.size()]);
+		constants = new double[ 2 * constantPoints.length];
+		constantOffsets = new int[ constantPoints.length];
+		
+		for ( int i = 0; i < constantPoints.length; i++)
+		{
+			constantOffsets[i] = coordinates.get( constantPoints[i]);
+		}
+		refreshConstants();
+		
+		// finally the offsets of the points of each constraint
+		offsets = new int[ constraintStart[ this.constraints.length]];
+		int maxPoints = 0;
+		
+		for ( int i = 0; i < this.constraints.length; i++)
+		{
+			GeoPoint[] points = this.constraints[i].getPoints();
+			
+			for ( int j = 0; j < points.length; j++)
+			{
+				offsets[ constraintStart[i] + j] = coordinates.get( points[j]);
+			}
+			maxPoints = Math.max( maxPoints, points.length);
+		}
+		
+		coordinateGradient = new double[ length];
+		pointGradient = new double[ 2 * maxPoints];
+		dual = new GeoDual();
+		
+		groupByKind();
+	}
+	
+	// fills the parallel arrays of each kind of constraint
+	private void groupByKind ( )
+	{
+		int distanceCount = 0;
+		int angleCount = 0;
+		int lineCount = 0;
+		int parallelCount = 0;
+		int otherCount = 0;
+		
+		kinds = new int[ constraints.length];
+		kindIndices = new int[ constraints.length];
+		
+		for ( int i = 0; i < constraints.length; i++)
+		{
+			if ( constraints[i] instanceof GeoConstraint.CPointToPointDistance)
+			{
+				kinds[i] = KIND_DISTANCE;
+				kindIndices[i] = distanceCount++;
+			}
+			else if ( constraints[i] instanceof GeoConstraint.CInteriorAngle)
+			{
+				kinds[i] = KIND_ANGLE;
+				kindIndices[i] = angleCount++;
+			}
+			else if ( constraints[i] instanceof GeoConstraint.CPointOnLine)
+			{
+				kinds[i] = KIND_POINT_ON_LINE;
+				kindIndices[i] = lineCount++;
+			}
+			else if ( constraints[i] instanceof GeoConstraint.CParallelLine)
+			{
+				kinds[i] = KIND_PARALLEL;
+				kindIndices[i] = parallelCount++;
+			}
+			else
+			{
+				kinds[i] = KIND_OTHER;
+				kindIndices[i] = otherCount++;
+			}
+		}
+		
+		distanceConstraints = new int[ distanceCount];
+		distanceFirst = new int[ distanceCount];
+		distanceSecond = new int[ distanceCount];
+		distances = new double[ distanceCount];
+		
+		angleConstraints = new int[ angleCount];
+		angleFirst = new int[ angleCount];
+		angleCorner = new int[ angleCount];
+		angleSecond = new int[ angleCount];
+		angleCosines = new double[ angleCount];
+		
+		lineConstraints = new int[ lineCount];
+		linePoint = new int[ lineCount];
+		lineFirst = new int[ lineCount];
+		lineSecond = new int[ lineCount];
+		
+		parallelConstraints = new int[ parallelCount];
+		parallelFirstA = new int[ parallelCount];
+		parallelFirstB = new int[ parallelCount];
+		parallelSecondA = new int[ parallelCount];
+		parallelSecondB = new int[ parallelCount];
+		
+		otherConstraints = new int[ otherCount];
+		
+		for ( int i = 0; i < constraints.length; i++)
+		{
+			int k = kindIndices[i];
+			int start = constraintStart[i];
+			
+			if ( kinds[i] == KIND_DISTANCE)
+			{
+				distanceConstraints[k] = i;
+				distanceFirst[k] = offsets[ start];
+				distanceSecond[k] = offsets[ start + 1];
+				distances[k] = constraints[i].getValue();
+			}
+			else if ( kinds[i] == KIND_ANGLE)
+			{
+				angleConstraints[k] = i;
+				angleFirst[k] = offsets[ start];
+				angleCorner[k] = offsets[ start + 1];
+				angleSecond[k] = offsets[ start + 2];
+				angleCosines[k] = Math.cos( Math.PI - constraints[i].getValue());
+			}
+			else if ( kinds[i] == KIND_POINT_ON_LINE)
+			{
+				lineConstraints[k] = i;
+				linePoint[k] = offsets[ start];
+				lineFirst[k] = offsets[ start + 1];
+				lineSecond[k] = offsets[ start + 2];
+			}
+			else if ( kinds[i] == KIND_PARALLEL)
+			{
+				// in the order of getPoints(): the first line, then the second one reversed
+				parallelConstraints[k] = i;
+				parallelFirstA[k] = offsets[ start];
+				parallelFirstB[k] = offsets[ start + 1];
+				parallelSecondB[k] = offsets[ start + 2];
+				parallelSecondA[k] = offsets[ start + 3];
+			}
+			else
+				otherConstraints[k] = i;
+		}
+	}
+	
+	// getters
+	public int getParameterCount ( )
+	{
+		return parameterCount;
+	}
+	
+	// the length of the array of values, including the tail
+	public int getLength ( )
+	{
+		return length;
+	}
+	
+	public int getConstraintCount ( )
+	{
+		return constraints.length;
+	}
+	
+	// reads the coordinates of the constant points again, after they were moved
+	// they reach the values with the next initialize()
+	public void refreshConstants ( )
+	{
+		for ( int i = 0; i < constantPoints.length; i++)
+		{
+			constants[2 * i] = constantPoints[i].getX();
+			constants[2 * i + 1] = constantPoints[i].getY();
+		}
+	}
+	
+	// fills the tail of values, whose parameters must already be set
+	public void initialize ( double[] values)
+	{
+		for ( int i = 0; i < constantOffsets.length; i++)
+		{
+			values[ constantOffsets[i]] = constants[2 * i];
+			values[ constantOffsets[i] + 1] = constants[2 * i + 1];
+		}
+		
+		updateDerived( values);
+	}
+	
+	// places the points of every compound object for the current parameters
+	public void updateDerived ( double[] values)
+	{
+		for ( int i = 0; i < compoundObjects.length; i++)
+		{
+			compoundObjects[i].placePoints( values, compoundParameters[i], values, compoundCoordinates[i]);
+		}
+	}
+	
+	// places the points depending on a single parameter, after only it has changed
+	public void updateDerived ( double[] values, int parameter)
+	{
+		int compound = parameterCompound[ parameter];
+		
+		if ( compound >= 0)
+			compoundObjects[ compound].placePoints( values, compoundParameters[ compound], values, compoundCoordinates[ compound]);
+	}
+	
+	// evaluation of single constraints, the tail must be up to date
+	public double calculateError ( int constraint, double[] values)
+	{
+		double residual = calculateResidual( constraint, values);
+		
+		return residual * residual;
+	}
+	
+	public double calculateResidual ( int constraint, double[] values)
+	{
+		if ( kinds[ constraint] == KIND_DISTANCE)
+			return distanceResidual( kindIndices[ constraint], values);
+		else if ( kinds[ constraint] == KIND_ANGLE)
+			return angleResidual( kindIndices[ constraint], values);
+		else if ( kinds[ constraint] == KIND_POINT_ON_LINE)
+			return lineResidual( kindIndices[ constraint], values);
+		else if ( kinds[ constraint] == KIND_PARALLEL)
+			return parallelResidual( kindIndices[ constraint], values);
+		
+		return constraints[ constraint].calculateResidual( values, offsets, constraintStart[ constraint], dual);
+	}
+	
+	// evaluation of the whole system, the tail must be up to date
+	// writes the residual of each constraint into residuals
+	public void calculateResiduals ( double[] values, double[] residuals)
+	{
+		for ( int k = 0; k < distanceConstraints.length; k++)
+		{
+			residuals[ distanceConstraints[k]] = distanceResidual( k, values);
+		}
+		
+		for ( int k = 0; k < angleConstraints.length; k++)
+		{
+			residuals[ angleConstraints[k]] = angleResidual( k, values);
+		}
+		
+		for ( int k = 0; k < lineConstraints.length; k++)
+		{
+			residuals[ lineConstraints[k]] = lineResidual( k, values);
+		}
+		
+		for ( int k = 0; k < parallelConstraints.length; k++)
+		{
+			residuals[ parallelConstraints[k]] = parallelResidual( k, values);
+		}
+		
+		for ( int k = 0; k < otherConstraints.length; k++)
+		{
+			int i = otherConstraints[k];
+			
+			residuals[i] = constraints[i].calculateResidual( values, offsets, constraintStart[i], dual);
+		}
+	}
+	
+	// writes the error of each constraint into errors, returns their sum
+	public double calculateErrors ( double[] values, double[] errors)
+	{
+		double sum = 0;
+		
+		calculateResiduals( values, errors);
+		
+		for ( int i = 0; i < constraints.length; i++)
+		{
+			errors[i] *= errors[i];
+			sum += errors[i];
+		}
+		
+		return sum;
+	}
+	
+	// the kernels of the grouped kinds, matching GeoConstraint.CPointToPointDistance,
+	// GeoConstraint.CInteriorAngle, GeoConstraint.CPointOnLine and GeoConstraint.CParallelLine
+	private double distanceResidual ( int k, double[] values)
+	{
+		int a = distanceFirst[k];
+		int b = distanceSecond[k];
+		double dx = values[a] - values[b];
+		double dy = values[a + 1] - values[b + 1];
+		
+		return Math.sqrt( dx * dx + dy * dy) - distances[k];
+	}
+	
+	private double angleResidual ( int k, double[] values)
+	{
+		int a = angleFirst[k];
+		int corner = angleCorner[k];
+		int b = angleSecond[k];
+		double dx = values[a] - values[corner];
+		double dy = values[a + 1] - values[corner + 1];
+		double dx2 = values[b] - values[corner];
+		double dy2 = values[b + 1] - values[corner + 1];
+		
+		return ( dx * dx2 + dy * dy2) / Math.sqrt( ( dx * dx + dy * dy) * ( dx2 * dx2 + dy2 * dy2)) + angleCosines[k];
+	}
+	
+	// the offset of the point along the steeper axis from the line through the other two
+	private double lineResidual ( int k, double[] values)
+	{
+		int point = linePoint[k];
+		int line1 = lineFirst[k];
+		int line2 = lineSecond[k];
+		double dx = values[line1] - values[line2];
+		double dy = values[line1 + 1] - values[line2 + 1];
+		double m = dy / dx;
+		
+		if ( m <= 1 && m >= -1)
+			return values[line1 + 1] + m * ( values[point] - values[line1]) - values[point + 1];
+		else
+			return values[line1] + dx / dy * ( values[point + 1] - values[line1 + 1]) - values[point];
+	}
+	
+	private double parallelResidual ( int k, double[] values)
+	{
+		int l1a = parallelFirstA[k];
+		int l1b = parallelFirstB[k];
+		int l2a = parallelSecondA[k];
+		int l2b = parallelSecondB[k];
+		double dx = values[l1b] - values[l1a];
+		double dy = values[l1b + 1] - values[l1a + 1];
+		double dx2 = values[l2b] - values[l2a];
+		double dy2 = values[l2b + 1] - values[l2a + 1];
+		
+		return ( dx * dx2 + dy * dy2) / Math.sqrt( ( dx * dx + dy * dy) * ( dx2 * dx2 + dy2 * dy2)) - 1;
+	}
+	
+	// the gradient of the total error with respect to the parameters, written into
+	// the first getParameterCount() entries of gradient; the tail must be up to date
+	// returns the total error, which comes with it
+	public double calculateGradient ( double[] values, double[] gradient)
+	{
+		double[] g = coordinateGradient;
+		double error = 0;
+		
+		for ( int i = 0; i < length; i++)
+		{
+			g[i] = 0;
+		}
+		
+		// the error of a distance is ( length - distance)^2
+		for ( int k = 0; k < distanceConstraints.length; k++)
+		{
+			int a = distanceFirst[k];
+			int b = distanceSecond[k];
+			double dx = values[a] - values[b];
+			double dy = values[a + 1] - values[b + 1];
+			double length = Math.sqrt( dx * dx + dy * dy);
+			double residual = length - distances[k];
+			
+			// not differentiable when the points coincide
+			double factor = length == 0 ? 0 : 2 * residual / length;
+			
+			error += residual * residual;
+			g[a] += factor * dx;
+			g[a + 1] += factor * dy;
+			g[b] -= factor * dx;
+			g[b + 1] -= factor * dy;
+		}
+		
+		// the error of an angle is ( cos - cos( angle))^2, where the cosine is u.v / |u||v|
+		// for the arms u and v; its derivatives along u are ( v - cos |v| / |u| u) / |u||v|
+		for ( int k = 0; k < angleConstraints.length; k++)
+		{
+			int a = angleFirst[k];
+			int corner = angleCorner[k];
+			int b = angleSecond[k];
+			double ux = values[a] - values[corner];
+			double uy = values[a + 1] - values[corner + 1];
+			double vx = values[b] - values[corner];
+			double vy = values[b + 1] - values[corner + 1];
+			double uu = ux * ux + uy * uy;
+			double vv = vx * vx + vy * vy;
+			double inverse = 1 / Math.sqrt( uu * vv);
+			double cos = ( ux * vx + uy * vy) * inverse;
+			double residual = cos + angleCosines[k];
+			double factor = 2 * residual * inverse;
+			
+			double gux = factor * ( vx - cos * Math.sqrt( vv / uu) * ux);
+			double guy = factor * ( vy - cos * Math.sqrt( vv / uu) * uy);
+			double gvx = factor * ( ux - cos * Math.sqrt( uu / vv) * vx);
+			double gvy = factor * ( uy - cos * Math.sqrt( uu / vv) * vy);
+			
+			error += residual * residual;
+			g[a] += gux;
+			g[a + 1] += guy;
+			g[b] += gvx;
+			g[b + 1] += gvy;
+			g[corner] -= gux + gvx;
+			g[corner + 1] -= guy + gvy;
+		}
+		
+		// the residual of a point on a line is linear in the point, with the slope of the
+		// line along the steeper axis; the ends of the line move it through the slope as well
+		for ( int k = 0; k < lineConstraints.length; k++)
+		{
+			int point = linePoint[k];
+			int line1 = lineFirst[k];
+			int line2 = lineSecond[k];
+			double dx = values[line1] - values[line2];
+			double dy = values[line1 + 1] - values[line2 + 1];
+			double m = dy / dx;
+			double residual, factor, u;
+			
+			if ( m <= 1 && m >= -1)
+			{
+				u = values[point] - values[line1];
+				residual = values[line1 + 1] + m * u - values[point + 1];
+				factor = 2 * residual;
+				
+				g[point] += factor * m;
+				g[point + 1] -= factor;
+				g[line1] += factor * ( -m - u * m / dx);
+				g[line1 + 1] += factor * ( 1 + u / dx);
+				g[line2] += factor * u * m / dx;
+				g[line2 + 1] -= factor * u / dx;
+			}
+			else
+			{
+				double n = dx / dy;
+				
+				u = values[point + 1] - values[line1 + 1];
+				residual = values[line1] + n * u - values[point];
+				factor = 2 * residual;
+				
+				g[point] -= factor;
+				g[point + 1] += factor * n;
+				g[line1] += factor * ( 1 + u / dy);
+				g[line1 + 1] += factor * ( -n - u * n / dy);
+				g[line2] -= factor * u / dy;
+				g[line2 + 1] += factor * u * n / dy;
+			}
+			
+			error += residual * residual;
+		}
+		
+		// the error of parallel lines is ( cos - 1)^2 for the cosine between their directions,
+		// whose derivatives are taken as for an angle with both arms from the origin
+		for ( int k = 0; k < parallelConstraints.length; k++)
+		{
+			int l1a = parallelFirstA[k];
+			int l1b = parallelFirstB[k];
+			int l2a = parallelSecondA[k];
+			int l2b = parallelSecondB[k];
+			double ux = values[l1b] - values[l1a];
+			double uy = values[l1b + 1] - values[l1a + 1];
+			double vx = values[l2b] - values[l2a];
+			double vy = values[l2b + 1] - values[l2a + 1];
+			double uu = ux * ux + uy * uy;
+			double vv = vx * vx + vy * vy;
+			double inverse = 1 / Math.sqrt( uu * vv);
+			double cos = ( ux * vx + uy * vy) * inverse;
+			double residual = cos - 1;
+			double factor = 2 * residual * inverse;
+			
+			double gux = factor * ( vx - cos * Math.sqrt( vv / uu) * ux);
+			double guy = factor * ( vy - cos * Math.sqrt( vv / uu) * uy);
+			double gvx = factor * ( ux - cos * Math.sqrt( uu / vv) * vx);
+			double gvy = factor * ( uy - cos * Math.sqrt( uu / vv) * vy);
+			
+			error += residual * residual;
+			g[l1b] += gux;
+			g[l1b + 1] += guy;
+			g[l1a] -= gux;
+			g[l1a + 1] -= guy;
+			g[l2b] += gvx;
+			g[l2b + 1] += gvy;
+			g[l2a] -= gvx;
+			g[l2a + 1] -= gvy;
+		}
+		
+		for ( int k = 0; k < otherConstraints.length; k++)
+		{
+			int i = otherConstraints[k];
+			int start = constraintStart[i];
+			double residual = constraints[i].calculateResidual( values, offsets, start, dual);
+			double factor = 2 * residual;
+			
+			error += residual * residual;
+			constraints[i].calculateResidualGradient( values, offsets, start, pointGradient, dual);
+			
+			for ( int j = 0; j < constraintStart[i + 1] - start; j++)
+			{
+				g[ offsets[ start + j]] += factor * pointGradient[2 * j];
+				g[ offsets[ start + j] + 1] += factor * pointGradient[2 * j + 1];
+			}
+		}
+		
+		// free points are their own parameters, and no constraint reads the parameters
+		// of a compound object directly
+		for ( int i = 0; i < parameterCount; i++)
+		{
+			gradient[i] = g[i];
+		}
+		
+		for ( int i = 0; i < compoundObjects.length; i++)
+		{
+			int vertices = compoundObjects[i].getPoints().size();
+			int start = compoundCoordinates[i];
+			
+			for ( int j = 0; j < vertices; j++)
+			{
+				compoundObjects[i].addPointGradient( j, g[ start + 2 * j], g[ start + 2 * j + 1],
+													 values, gradient, compoundParameters[i]);
+			}
+		}
+		
+		return error;
+	}
+	
+	public int calculateResidualGradient ( int constraint, double[] values, double[] gradient)
+	{
+		return constraints[ constraint].calculateResidualGradient( values, offsets, constraintStart[ constraint], gradient, dual);
+	}
+	
+	public void calculateGradient ( int constraint, double[] values, double[] gradient)
+	{
+		if ( kinds[ constraint] == KIND_DISTANCE)
+		{
+			int k = kindIndices[ constraint];
+			int a = distanceFirst[k];
+			int b = distanceSecond[k];
+			double dx = values[a] - values[b];
+			double dy = values[a + 1] - values[b + 1];
+			double length = Math.sqrt( dx * dx + dy * dy);
+			
+			// the error is ( length - distance)^2, not differentiable when the points coincide
+			double factor = length == 0 ? 0 : 2 * ( length - distances[k]) / length;
+			
+			gradient[0] = factor * dx;
+			gradient[1] = factor * dy;
+			gradient[2] = -factor * dx;
+			gradient[3] = -factor * dy;
+			return;
+		}
+		
+		constraints[ constraint].calculateGradient( values, offsets, constraintStart[ constraint], gradient, dual);
+	}
+}
@@ -29,5 +29,12 @@ public abstract class GeoCompoundObject extends GeoObject {
 	{
 		return points;
 	}
+	
+	// writes the coordinates each point would have for the given parameters into
+	// target, x and y in turn from targetOffset, without moving the points
+	public abstract void placePoints ( double[] source, int startOffset, double[] target, int targetOffset);
+	
+	// creates the same object on other points, given in the same order as the points of this object
+	public abstract GeoCompoundObject copyOnto ( ArrayList<GeoPoint> points);
 
 }
@@ -2,6 +2,7 @@ package algorithm;
 // Created: 26.04.2015, Ali Batuhan Yardm
 
 import java.util.Arrays;
+import java.util.HashMap;
 
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
@@ -16,12 +17,23 @@ import org.graphstream.graph.Node;
 // represents a geometric constraint, a "rule" on the system
 public abstract class GeoConstraint {
 	public abstract double calculateError();
+	// the signed residual of the constraint, whose square is the error
+	// the coordinates are read from values: the x coordinate of the jth point
+	// of getPoints() is at values[ offsets[ start + j]], its y coordinate follows
+	public abstract double calculateResidual ( double[] values, int[] offsets, int start);
+	// writes the derivatives of the residual with respect to the coordinates of each
+	// point, as ( d/dx, d/dy) pairs in the order returned by getPoints()
+	// returns the number of values written
+	public abstract int calculateResidualGradient ( double[] values, int[] offsets, int start, double[] gradient);
 	public abstract int getType();
 	public abstract boolean involvesPoint ( GeoPoint p);
 	public abstract boolean involvesPoint ( String p);
 	public abstract GeoPoint[] getPoints ( );
 	// for use by the graph solver:
 	public abstract Node generateGraphNode ( Graph g);
+	// creates the same constraint on other points, replacing each point by its
+	// entry in the map; points missing from the map are shared with the copy
+	public abstract GeoConstraint copyOnto ( HashMap<GeoPoint,GeoPoint> points);
 
 	public static final int C_P2P_DISTANCE = 0;
 	public static final int C_INTERIOR_ANGLE = 1;
@@ -34,6 +46,189 @@ public abstract class GeoConstraint {
 	public static final int C_TRIANGULAR_AREA = 8;
 	public static final int C_REGULAR_POLYGON = 9;
 	
+	// some errors are scaled down by 10, so their residuals are by sqrt( 10)
+	static final double SQRT_10 = Math.sqrt( 10);
+	
+	// the point a copy should use in place of p
+	static GeoPoint map ( HashMap<GeoPoint,GeoPoint> points, GeoPoint p)
+	{
+		GeoPoint mapped = points.get( p);
+		
+		if ( mapped == null)
+			return p;
+		return mapped;
+	}
+	
+	// the number the constraint asks for, such as a distance or an angle
+	// 0 for constraints that only relate their points
+	public double getValue ( )
+	{
+		return 0;
+	}
+	
+	// the residual at the current coordinates of the points
+	public double calculateResidual ( )
+	{
+		GeoPoint[] points = getPoints();
+		
+		return calculateResidual( gatherCoordinates( points), sequentialOffsets( points.length), 0);
+	}
+	
+	// the derivatives of the residual at the current coordinates of the points
+	public int calculateResidualGradient ( double[] gradient)
+	{
+		GeoPoint[] points = getPoints();
+		
+		return calculateResidualGradient( gatherCoordinates( points), sequentialOffsets( points.length), 0, gradient);
+	}
+	
+	// writes the derivatives of the error with respect to the coordinates of
+	// each point, as ( d/dx, d/dy) pairs in the order returned by getPoints()
+	public void calculateGradient ( double[] gradient)
+	{
+		GeoPoint[] points = getPoints();
+		
+		calculateGradient( gatherCoordinates( points), sequentialOffsets( points.length), 0, gradient);
+	}
+	
+	// the derivatives of the error, with the coordinates read as in calculateResidual()
+	public void calculateGradient ( double[] values, int[] offsets, int start, double[] gradient)
+	{
+		calculateGradient( values, offsets, start, gradient, GeoDual.forThread());
+	}
+	
+	// the residual, its derivatives and the derivatives of the error as above, evaluated
+	// in the given dual numbers by the constraints that need them, see DualConstraint;
+	// callers evaluating many constraints pass their own workspace
+	public double calculateResidual ( double[] values, int[] offsets, int start, GeoDual dual)
+	{
+		return calculateResidual( values, offsets, start);
+	}
+	
+	public int calculateResidualGradient ( double[] values, int[] offsets, int start, double[] gradient, GeoDual dual)
+	{
+		return calculateResidualGradient( values, offsets, start, gradient);
+	}
+	
+	public void calculateGradient ( double[] values, int[] offsets, int start, double[] gradient, GeoDual dual)
+	{
+		double factor;
+		int count;
+		
+		// the error is residual^2
+		factor = 2 * calculateResidual( values, offsets, start, dual);
+		count = calculateResidualGradient( values, offsets, start, gradient, dual);
+		
+		for ( int i = 0; i < count; i++)
+		{
+			gradient[i] *= factor;
+		}
+	}
+	
+	// the coordinates of the given points, x and y in turn
+	static double[] gatherCoordinates ( GeoPoint[] points)
+	{
+		double[] values = new double[ 2 * points.length];
+		
+		for ( int i = 0; i < points.length; i++)
+		{
+			values[2 * i] = points[i].getX();
+			values[2 * i + 1] = points[i].getY();
+		}
+		
+		return values;
+	}
+	
+	// the offsets of count points stored one after the other
+	static int[] sequentialOffsets ( int count)
+	{
+		int[] offsets = new int[ count];
+		
+		for ( int i = 0; i < count; i++)
+		{
+			offsets[i] = 2 * i;
+		}
+		
+		return offsets;
+	}
+	
+	// writes factor times the derivatives of the cosine of an angle with respect to its
+	// three points, given the unit vectors of the arms ( ux, uy), ( vx, vy), their cosine
+	// and their lengths; end1, corner and end2 are the offsets of the points in gradient
+	static void cosineGradient ( double ux, double uy, double vx, double vy, double cos,
+								 double hyp1, double hyp2, double factor,
+								 double[] gradient, int end1, int corner, int end2)
+	{
+		double g1x = factor * ( vx - cos * ux) / hyp1;
+		double g1y = factor * ( vy - cos * uy) / hyp1;
+		double g3x = factor * ( ux - cos * vx) / hyp2;
+		double g3y = factor * ( uy - cos * vy) / hyp2;
+		
+		gradient[end1] = g1x;
+		gradient[end1 + 1] = g1y;
+		gradient[end2] = g3x;
+		gradient[end2 + 1] = g3y;
+		gradient[corner] = -g1x - g3x;
+		gradient[corner + 1] = -g1y - g3y;
+	}
+	
+	// constraints whose derivatives are not worth writing out by hand give their
+	// residual once in dual numbers, see GeoDual, from which the residual and its
+	// gradient are evaluated; the variables are the coordinates of the points, in
+	// the order of the gradient
+	abstract static class DualConstraint extends GeoConstraint {
+		// the number of points of the constraint, whose coordinates are the variables
+		private final int pointCount;
+		
+		DualConstraint ( int pointCount)
+		{
+			this.pointCount = pointCount;
+		}
+		
+		// the residual in dual numbers, combined from dualX() and dualY()
+		abstract int calculateResidual ( GeoDual dual, double[] values, int[] offsets, int start);
+		
+		// without a workspace of the caller, that of the thread is used
+		@Override
+		public double calculateResidual ( double[] values, int[] offsets, int start)
+		{
+			return calculateResidual( values, offsets, start, GeoDual.forThread());
+		}
+		
+		@Override
+		public int calculateResidualGradient ( double[] values, int[] offsets, int start, double[] gradient)
+		{
+			return calculateResidualGradient( values, offsets, start, gradient, GeoDual.forThread());
+		}
+		
+		@Override
+		public double calculateResidual ( double[] values, int[] offsets, int start, GeoDual dual)
+		{
+			// without variables, only the values are computed
+			dual.reset( 0);
+			return dual.value( calculateResidual( dual, values, offsets, start));
+		}
+		
+		@Override
+		public int calculateResidualGradient ( double[] values, int[] offsets, int start, double[] gradient, GeoDual dual)
+		{
+			dual.reset( 2 * pointCount);
+			dual.gradient( calculateResidual( dual, values, offsets, start), gradient);
+			return 2 * pointCount;
+		}
+		
+		// the x and y coordinates of the jth point as variables of dual
+		static int dualX ( GeoDual dual, double[] values, int[] offsets, int start, int j)
+		{
+			return dual.variable( values[ offsets[ start + j]], 2 * j);
+		}
+		
+		static int dualY ( GeoDual dual, double[] values, int[] offsets, int start, int j)
+		{
+			return dual.variable( values[ offsets[ start + j] + 1], 2 * j + 1);
+		}
+	}
+	
 	// constraint for the distance between two points
 	public static class CPointToPointDistance extends GeoConstraint {
 		GeoPoint p1;
@@ -53,10 +248,47 @@ public abstract class GeoConstraint {
 			return x * x;
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int a = offsets[ start];
+			int b = offsets[ start + 1];
+			
+			return Math.hypot( values[a] - values[b], values[a + 1] - values[b + 1]) - distance;
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int a = offsets[ start];
+			int b = offsets[ start + 1];
+			double dx = values[a] - values[b];
+			double dy = values[a + 1] - values[b + 1];
+			double hyp = Math.hypot( dx, dy);
+			
+			// the distance is not differentiable when both points coincide
+			if ( hyp == 0)
+				hyp = Double.POSITIVE_INFINITY;
+			
+			gradient[0] = dx / hyp;
+			gradient[1] = dy / hyp;
+			gradient[2] = -dx / hyp;
+			gradient[3] = -dy / hyp;
+			return 4;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CPointToPointDistance( map( points, p1), map( points, p2), distance);
+		}
+
 		@Override
 		public int getType() {
 			return C_P2P_DISTANCE;
 		}
+		
+		@Override
+		public double getValue ( ) {
+			return distance;
+		}
 
 		@Override
 		public boolean involvesPoint(GeoPoint p) {
@@ -125,10 +357,60 @@ public abstract class GeoConstraint {
 			return ( temp + temp2) * ( temp + temp2);
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int a = offsets[ start];
+			int corner = offsets[ start + 1];
+			int b = offsets[ start + 2];
+			
+			double dx = values[a] - values[corner];
+			double dy = values[a + 1] - values[corner + 1];
+
+			double dx2 = values[b] - values[corner];
+			double dy2 = values[b + 1] - values[corner + 1];
+
+			return ( dx * dx2 + dy * dy2) / ( Math.hypot( dx, dy) * Math.hypot( dx2, dy2)) + Math.cos( Math.PI - angle);
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int a = offsets[ start];
+			int corner = offsets[ start + 1];
+			int b = offsets[ start + 2];
+			
+			double dx = values[a] - values[corner];
+			double dy = values[a + 1] - values[corner + 1];
+
+			double dx2 = values[b] - values[corner];
+			double dy2 = values[b + 1] - values[corner + 1];
+
+			double hyp1 = Math.hypot( dx, dy);
+			double hyp2 = Math.hypot( dx2, dy2);
+
+			dx /= hyp1;
+			dy /= hyp1;
+			dx2 /= hyp2;
+			dy2 /= hyp2;
+
+			// derivatives of the cosine with respect to the arm end points
+			cosineGradient( dx, dy, dx2, dy2, dx * dx2 + dy * dy2, hyp1, hyp2, 1, gradient, 0, 2, 4);
+			return 6;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CInteriorAngle( map( points, p1), map( points, p2), map( points, p3), angle);
+		}
+
 		@Override
 		public int getType() {
 			return C_INTERIOR_ANGLE;
 		}
+		
+		@Override
+		public double getValue ( ) {
+			return angle;
+		}
 
 		@Override
 		public boolean involvesPoint(GeoPoint p) {
@@ -188,6 +470,56 @@ public abstract class GeoConstraint {
 			return temp * temp;
 		}
 
+		// in the order of getPoints(): l1p1, l2p2, l1p2, l2p1
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int l1a = offsets[ start];
+			int l2b = offsets[ start + 1];
+			int l1b = offsets[ start + 2];
+			int l2a = offsets[ start + 3];
+			
+			return Math.hypot( values[l1b] - values[l1a], values[l1b + 1] - values[l1a + 1]) - 
+				   Math.hypot( values[l2b] - values[l2a], values[l2b + 1] - values[l2a + 1]);
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int l1a = offsets[ start];
+			int l2b = offsets[ start + 1];
+			int l1b = offsets[ start + 2];
+			int l2a = offsets[ start + 3];
+			
+			double dx1 = values[l1b] - values[l1a];
+			double dy1 = values[l1b + 1] - values[l1a + 1];
+			double dx2 = values[l2b] - values[l2a];
+			double dy2 = values[l2b + 1] - values[l2a + 1];
+			double f1, f2;
+			
+			f1 = 1 / Math.hypot( dx1, dy1);
+			f2 = -1 / Math.hypot( dx2, dy2);
+			
+			// degenerate segments have no direction
+			if ( Double.isInfinite( f1))
+				f1 = 0;
+			if ( Double.isInfinite( f2))
+				f2 = 0;
+			
+			gradient[0] = -f1 * dx1;
+			gradient[1] = -f1 * dy1;
+			gradient[2] = f2 * dx2;
+			gradient[3] = f2 * dy2;
+			gradient[4] = f1 * dx1;
+			gradient[5] = f1 * dy1;
+			gradient[6] = -f2 * dx2;
+			gradient[7] = -f2 * dy2;
+			return 8;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CEqualLength( map( points, l1p1), map( points, l1p2), map( points, l2p1), map( points, l2p2));
+		}
+
 		@Override
 		public int getType() {
 			return C_EQUAL_LENGTH;
@@ -264,6 +596,71 @@ public abstract class GeoConstraint {
 			}
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int point = offsets[ start];
+			int line1 = offsets[ start + 1];
+			int line2 = offsets[ start + 2];
+			double dx, dy;
+			double m;
+			
+			dx = values[line1] - values[line2];
+			dy = values[line1 + 1] - values[line2 + 1];
+			
+			m = dy / dx;
+			
+			// same branches as calculateError()
+			if ( m <= 1 && m >= -1)
+				return values[line1 + 1] + m * ( values[point] - values[line1]) - values[point + 1];
+			else
+				return values[line1] + dx / dy * ( values[point + 1] - values[line1 + 1]) - values[point];
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int point = offsets[ start];
+			int line1 = offsets[ start + 1];
+			int line2 = offsets[ start + 2];
+			double dx, dy;
+			double m, n;
+			double u;
+			
+			dx = values[line1] - values[line2];
+			dy = values[line1 + 1] - values[line2 + 1];
+			
+			m = dy / dx;
+			n = dx / dy;
+			
+			if ( m <= 1 && m >= -1)
+			{
+				u = values[point] - values[line1];
+				
+				gradient[0] = m;
+				gradient[1] = -1;
+				gradient[2] = -m - u * m / dx;
+				gradient[3] = 1 + u / dx;
+				gradient[4] = u * m / dx;
+				gradient[5] = -u / dx;
+			}
+			else
+			{
+				u = values[point + 1] - values[line1 + 1];
+				
+				gradient[0] = -1;
+				gradient[1] = n;
+				gradient[2] = 1 + u / dy;
+				gradient[3] = -n - u * n / dy;
+				gradient[4] = -u / dy;
+				gradient[5] = u * n / dy;
+			}
+			return 6;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CPointOnLine( map( points, p), map( points, lp1), map( points, lp2));
+		}
+
 		@Override
 		public int getType() {
 			return C_POINT_ON_LINE;
@@ -343,6 +740,64 @@ public abstract class GeoConstraint {
 			return ( temp + temp2) * ( temp + temp2);
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int a1 = offsets[ start], a2 = offsets[ start + 1], a3 = offsets[ start + 2];
+			int b1 = offsets[ start + 3], b2 = offsets[ start + 4], b3 = offsets[ start + 5];
+			
+			double adx = values[a1] - values[a2];
+			double ady = values[a1 + 1] - values[a2 + 1];
+			double adx2 = values[a3] - values[a2];
+			double ady2 = values[a3 + 1] - values[a2 + 1];
+			
+			double bdx = values[b1] - values[b2];
+			double bdy = values[b1 + 1] - values[b2 + 1];
+			double bdx2 = values[b3] - values[b2];
+			double bdy2 = values[b3 + 1] - values[b2 + 1];
+			
+			return ( adx * adx2 + ady * ady2) / ( Math.hypot( adx, ady) * Math.hypot( adx2, ady2)) -
+				   ( bdx * bdx2 + bdy * bdy2) / ( Math.hypot( bdx, bdy) * Math.hypot( bdx2, bdy2));
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int a1 = offsets[ start], a2 = offsets[ start + 1], a3 = offsets[ start + 2];
+			int b1 = offsets[ start + 3], b2 = offsets[ start + 4], b3 = offsets[ start + 5];
+			
+			double adx = values[a1] - values[a2];
+			double ady = values[a1 + 1] - values[a2 + 1];
+			double adx2 = values[a3] - values[a2];
+			double ady2 = values[a3 + 1] - values[a2 + 1];
+			double ahyp1 = Math.hypot( adx, ady);
+			double ahyp2 = Math.hypot( adx2, ady2);
+			
+			double bdx = values[b1] - values[b2];
+			double bdy = values[b1 + 1] - values[b2 + 1];
+			double bdx2 = values[b3] - values[b2];
+			double bdy2 = values[b3 + 1] - values[b2 + 1];
+			double bhyp1 = Math.hypot( bdx, bdy);
+			double bhyp2 = Math.hypot( bdx2, bdy2);
+			
+			adx /= ahyp1;
+			ady /= ahyp1;
+			adx2 /= ahyp2;
+			ady2 /= ahyp2;
+			bdx /= bhyp1;
+			bdy /= bhyp1;
+			bdx2 /= bhyp2;
+			bdy2 /= bhyp2;
+			
+			cosineGradient( adx, ady, adx2, ady2, adx * adx2 + ady * ady2, ahyp1, ahyp2, 1, gradient, 0, 2, 4);
+			cosineGradient( bdx, bdy, bdx2, bdy2, bdx * bdx2 + bdy * bdy2, bhyp1, bhyp2, -1, gradient, 6, 8, 10);
+			return 12;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CEqualAngle( map( points, a1), map( points, a2), map( points, a3),
+								map( points, b1), map( points, b2), map( points, b3));
+		}
+
 		@Override
 		public int getType() {
 			return C_EQUAL_ANGLE;
@@ -423,6 +878,66 @@ public abstract class GeoConstraint {
 			return temp * temp;
 		}
 
+		// in the order of getPoints(): l1p1, l1p2, l2p2, l2p1
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int l1a = offsets[ start];
+			int l1b = offsets[ start + 1];
+			int l2b = offsets[ start + 2];
+			int l2a = offsets[ start + 3];
+			
+			double dx  = values[l1b] - values[l1a];
+			double dy  = values[l1b + 1] - values[l1a + 1];
+			double dx2 = values[l2b] - values[l2a];
+			double dy2 = values[l2b + 1] - values[l2a + 1];
+			
+			return ( dx * dx2 + dy * dy2) / ( Math.hypot( dx, dy) * Math.hypot( dx2, dy2)) - 1;
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int l1a = offsets[ start];
+			int l1b = offsets[ start + 1];
+			int l2b = offsets[ start + 2];
+			int l2a = offsets[ start + 3];
+			
+			double dx  = values[l1b] - values[l1a];
+			double dy  = values[l1b + 1] - values[l1a + 1];
+			double dx2 = values[l2b] - values[l2a];
+			double dy2 = values[l2b + 1] - values[l2a + 1];
+
+			double hyp1 = Math.hypot( dx, dy);
+			double hyp2 = Math.hypot( dx2, dy2);
+
+			dx  = dx  / hyp1;
+			dy  = dy  / hyp1;
+			dx2 = dx2 / hyp2;
+			dy2 = dy2 / hyp2;
+
+			double cos = dx * dx2 + dy * dy2;
+			
+			// derivatives of the cosine with respect to the second point of each line
+			double g1x = ( dx2 - cos * dx) / hyp1;
+			double g1y = ( dy2 - cos * dy) / hyp1;
+			double g2x = ( dx - cos * dx2) / hyp2;
+			double g2y = ( dy - cos * dy2) / hyp2;
+			
+			gradient[0] = -g1x;
+			gradient[1] = -g1y;
+			gradient[2] = g1x;
+			gradient[3] = g1y;
+			gradient[4] = g2x;
+			gradient[5] = g2y;
+			gradient[6] = -g2x;
+			gradient[7] = -g2y;
+			return 8;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CParallelLine( map( points, l1p1), map( points, l1p2), map( points, l2p1), map( points, l2p2));
+		}
+
 		@Override
 		public int getType() {
 			return C_PARALLEL_LINE;
@@ -489,10 +1004,66 @@ public abstract class GeoConstraint {
 			return temp * temp / 10;
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			int point = offsets[ start];
+			int line1 = offsets[ start + 1];
+			int line2 = offsets[ start + 2];
+			
+			double dx = values[line2] - values[line1];
+			double dy = values[line2 + 1] - values[line1 + 1];
+			double cross = dx * ( values[point + 1] - values[line1 + 1]) - dy * ( values[point] - values[line1]);
+			
+			return ( Math.abs( cross) / Math.hypot( dx, dy) - distance) / SQRT_10;
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			int point = offsets[ start];
+			int line1 = offsets[ start + 1];
+			int line2 = offsets[ start + 2];
+			
+			// the distance is |cross| / length, with the cross product of
+			// the line direction and the vector from lp1 to the point
+			double dx = values[line2] - values[line1];
+			double dy = values[line2 + 1] - values[line1 + 1];
+			double wx = values[point] - values[line1];
+			double wy = values[point + 1] - values[line1 + 1];
+			
+			double length = Math.hypot( dx, dy);
+			double cross = dx * wy - dy * wx;
+			double sign = cross < 0 ? -1 : 1;
+			double dist = sign * cross / length;
+			
+			// derivatives of the distance with respect to the point and the line direction
+			double gwx = -sign * dy / length;
+			double gwy = sign * dx / length;
+			double gdx = sign * wy / length - dist * dx / ( length * length);
+			double gdy = -sign * wx / length - dist * dy / ( length * length);
+			
+			gradient[0] = gwx / SQRT_10;
+			gradient[1] = gwy / SQRT_10;
+			gradient[2] = -( gwx + gdx) / SQRT_10;
+			gradient[3] = -( gwy + gdy) / SQRT_10;
+			gradient[4] = gdx / SQRT_10;
+			gradient[5] = gdy / SQRT_10;
+			return 6;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CPointToLineDistance( map( points, pointA), map( points, lp1), map( points, lp2), distance);
+		}
+
 		@Override
 		public int getType() {
 			return C_POINT_TO_LINE_DISTANCE;
 		}
+		
+		@Override
+		public double getValue ( ) {
+			return distance;
+		}
 
 		@Override
 		public boolean involvesPoint(GeoPoint p) {
@@ -524,7 +1095,7 @@ public abstract class GeoConstraint {
 		}
 	}
 
-	public static class CPointOnLineSegment extends GeoConstraint {
+	public static class CPointOnLineSegment extends DualConstraint {
 		// points of the line
 		GeoPoint lp1, lp2;
 		// the point to be on the line
@@ -532,6 +1103,8 @@ public abstract class GeoConstraint {
 		
 		public CPointOnLineSegment ( GeoPoint p1, GeoPoint lp1, GeoPoint lp2)
 		{
+			super( 3);
+			
 			this.lp1 = lp1;
 			this.lp2 = lp2;
 			this.p1  = p1;
@@ -588,6 +1161,58 @@ public abstract class GeoConstraint {
 			}
 		}
 
+		@Override
+		int calculateResidual( GeoDual d, double[] values, int[] offsets, int start) {
+			int pointX = dualX( d, values, offsets, start, 0);
+			int pointY = dualY( d, values, offsets, start, 0);
+			int line1X = dualX( d, values, offsets, start, 1);
+			int line1Y = dualY( d, values, offsets, start, 1);
+			int line2X = dualX( d, values, offsets, start, 2);
+			int line2Y = dualY( d, values, offsets, start, 2);
+			
+			if ( isOutsideSegment( d.value( pointX), d.value( pointY), d.value( line1X), d.value( line1Y),
+								   d.value( line2X), d.value( line2Y)))
+			{
+				// the distance to the closest end point
+				int dist1 = d.hypot( d.subtract( pointX, line1X), d.subtract( pointY, line1Y));
+				int dist2 = d.hypot( d.subtract( pointX, line2X), d.subtract( pointY, line2Y));
+				
+				return d.scale( d.min( dist1, dist2), 1 / SQRT_10);
+			}
+			else
+			{
+				// the signed distance to the infinite line, as cross / length, which
+				// avoids the slope becoming infinite on vertical lines
+				int dx = d.subtract( line2X, line1X);
+				int dy = d.subtract( line2Y, line1Y);
+				int cross = d.cross( dx, dy, d.subtract( pointX, line1X), d.subtract( pointY, line1Y));
+				
+				return d.scale( d.divide( cross, d.hypot( dx, dy)), 1 / SQRT_10);
+			}
+		}
+		
+		// tests which region calculateError() places the point in, true if the point
+		// is outside the perpendiculars through the end points of the segment
+		private static boolean isOutsideSegment ( double pointX, double pointY, double line1X, double line1Y,
+												  double line2X, double line2Y)
+		{
+			double m1, m2;
+			double res1, res2;
+			
+			m1 = ( line1Y - line2Y) / ( line1X - line2X);
+			m2 = -1 / m1;
+			
+			res1 = pointY - m2 * ( pointX - line1X) - line1Y;
+			res2 = pointY - m2 * ( pointX - line2X) - line2Y;
+			
+			return res1 * res2 > 0;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CPointOnLineSegment( map( points, p1), map( points, lp1), map( points, lp2));
+		}
+
 		@Override
 		public int getType() {
 			return C_POINT_ON_LINE_SEGMENT;
@@ -622,13 +1247,15 @@ public abstract class GeoConstraint {
 		}
 	}
 
-	public static class CTriangularArea extends GeoConstraint {
+	public static class CTriangularArea extends DualConstraint {
 		// three points of the triangle
 		GeoPoint p1, p2, p3;
 		double expectedArea;
 
 		public CTriangularArea ( GeoPoint p1, GeoPoint p2, GeoPoint p3, double area)
 		{
+			super( 3);
+			
 			this.p1 = p1;
 			this.p2 = p2;
 			this.p3 = p3;
@@ -658,10 +1285,35 @@ public abstract class GeoConstraint {
 			return ( h - hExpected) * ( h - hExpected) / 10;
 		}
 
+		@Override
+		int calculateResidual( GeoDual d, double[] values, int[] offsets, int start) {
+			int ax = dualX( d, values, offsets, start, 0);
+			int ay = dualY( d, values, offsets, start, 0);
+			
+			// the height is |cross| / length and the expected height is 2 * area / length
+			int dx = d.subtract( dualX( d, values, offsets, start, 1), ax);
+			int dy = d.subtract( dualY( d, values, offsets, start, 1), ay);
+			int wx = d.subtract( dualX( d, values, offsets, start, 2), ax);
+			int wy = d.subtract( dualY( d, values, offsets, start, 2), ay);
+			int cross = d.cross( dx, dy, wx, wy);
+			
+			return d.scale( d.divide( d.shift( d.abs( cross), -2 * expectedArea), d.hypot( dx, dy)), 1 / SQRT_10);
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			return new CTriangularArea( map( points, p1), map( points, p2), map( points, p3), expectedArea);
+		}
+
 		@Override
 		public int getType() {
 			return C_TRIANGULAR_AREA;
 		}
+		
+		@Override
+		public double getValue ( ) {
+			return expectedArea;
+		}
 
 		@Override
 		public boolean involvesPoint(GeoPoint p) {
@@ -708,6 +1360,27 @@ public abstract class GeoConstraint {
 			return 0;
 		}
 
+		@Override
+		public double calculateResidual( double[] values, int[] offsets, int start) {
+			return 0;
+		}
+
+		@Override
+		public int calculateResidualGradient( double[] values, int[] offsets, int start, double[] gradient) {
+			Arrays.fill( gradient, 0, 2 * vertices.length, 0);
+			return 2 * vertices.length;
+		}
+
+		@Override
+		public GeoConstraint copyOnto( HashMap<GeoPoint,GeoPoint> points) {
+			GeoPoint[] mapped = new GeoPoint[ vertices.length];
+			
+			for ( int i = 0; i < vertices.length; i++)
+				mapped[i] = map( points, vertices[i]);
+			
+			return new CRegularPolygon( mapped);
+		}
+
 		@Override
 		public int getType() {
 			return C_REGULAR_POLYGON;
@@ -0,0 +1,600 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+
+// places the points of a subsystem by ruler and compass where the constraints
+// allow it, without any iterative optimization
+//
+// starting from the fixed points, a point is placed once it lies on two known
+// loci: circles around placed points from set-dist, and rays from placed corners
+// from set-angle; placing points one by one this way follows a decomposition of
+// the figure into triangles. each intersection has up to two solutions, the one
+// that best satisfies the other constraints of the point is kept, and between
+// equal ones the one closer to the current position
+//
+// a figure without fixed points is free to move and rotate, so its first point
+// stays where it is and its second point only keeps its direction; how far the
+// placement gets depends on that first point, so a few are tried
+public class GeoConstructivePlacer {
+	// a placement error below this is considered exact
+	static final double tolerance = 1e-9;
+	// the number of first points tried for a figure without fixed points
+	static final int seedTrials = 16;
+
+	// the free points and the constraints of the subsystem
+	private ArrayList<GeoPoint> points;
+	private ArrayList<GeoConstraint> constraints;
+
+	// the constraints involving each free point
+	private HashMap<GeoPoint,ArrayList<GeoConstraint>> incident;
+
+	// the circles and lines that points bound by the presolve are on
+	private HashMap<GeoPoint,GeoLocusPoint> bound;
+
+	// points with known positions: the fixed points and the placed ones
+	private HashSet<GeoPoint> known;
+
+	// the free points in the order they were placed
+	private ArrayList<GeoPoint> placed;
+
+	public GeoConstructivePlacer ( GeoSubsystem component)
+	{
+		points = new ArrayList<GeoPoint>();
+		constraints = component.getConstraints();
+		incident = new HashMap<GeoPoint,ArrayList<GeoConstraint>>();
+		known = new HashSet<GeoPoint>();
+		placed = new ArrayList<GeoPoint>();
+		bound = new HashMap<GeoPoint,GeoLocusPoint>();
+
+		// only single points are placed, rigid objects are left to the numeric solver
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o instanceof GeoPoint && !( ( GeoPoint) o).isFixed())
+			{
+				points.add( ( GeoPoint) o);
+				incident.put( ( GeoPoint) o, new ArrayList<GeoConstraint>());
+			}
+			else if ( o instanceof GeoLocusPoint)
+			{
+				GeoLocusPoint locus = ( GeoLocusPoint) o;
+
+				points.add( locus.getPoint());
+				incident.put( locus.getPoint(), new ArrayList<GeoConstraint>());
+				bound.put( locus.getPoint(), locus);
+			}
+		}
+
+		for ( GeoConstraint c : constraints)
+		{
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( p.isFixed())
+					known.add( p);
+				else if ( incident.containsKey( p) && !incident.get( p).contains( c))
+					incident.get( p).add( c);
+			}
+		}
+	}
+
+	// places as many points as possible, moving them to their constructed positions
+	// returns the placed points, in the order they were placed
+	public ArrayList<GeoPoint> place ( )
+	{
+		ArrayList<GeoPoint> seeds;
+		double[] start;
+		GeoPoint best;
+		GeoPoint last;
+		int bestCount;
+
+		if ( !known.isEmpty())
+		{
+			propagate();
+			return placed;
+		}
+
+		// a free figure: try the most connected points first
+		seeds = orderSeeds();
+		start = new double[ 2 * points.size()];
+		for ( int i = 0; i < points.size(); i++)
+		{
+			start[2 * i] = points.get( i).getX();
+			start[2 * i + 1] = points.get( i).getY();
+		}
+
+		best = null;
+		last = null;
+		bestCount = 0;
+		for ( int i = 0; i < Math.min( seedTrials, seeds.size()) && bestCount < points.size(); i++)
+		{
+			last = seeds.get( i);
+			placeFrom( last, start);
+
+			if ( placed.size() > bestCount)
+			{
+				best = seeds.get( i);
+				bestCount = placed.size();
+			}
+		}
+
+		// repeat the best attempt, unless it was the last one
+		if ( best != last)
+			placeFrom( best, start);
+
+		return placed;
+	}
+
+	// places the figure starting from seed, with the points back at start
+	private void placeFrom ( GeoPoint seed, double[] start)
+	{
+		for ( int i = 0; i < points.size(); i++)
+		{
+			points.get( i).setX( start[2 * i]);
+			points.get( i).setY( start[2 * i + 1]);
+		}
+
+		known.clear();
+		placed.clear();
+
+		markPlaced( seed);
+		propagate();
+	}
+
+	// places points as long as any of them lies on two known loci
+	private void propagate ( )
+	{
+		boolean progress = true;
+
+		while ( progress)
+		{
+			progress = false;
+
+			for ( GeoPoint p : points)
+			{
+				if ( !known.contains( p) && placeOnLoci( p))
+				{
+					markPlaced( p);
+					progress = true;
+				}
+			}
+
+			// the figure may still turn around its only known point
+			if ( !progress && known.size() == 1)
+				progress = placeRotation();
+		}
+	}
+
+	// the points with distances to others, the ones that are also corners of
+	// angles first, as the arms of an angle are placed right after its corner
+	private ArrayList<GeoPoint> orderSeeds ( )
+	{
+		ArrayList<GeoPoint> seeds = new ArrayList<GeoPoint>();
+		final HashMap<GeoPoint,Integer> scores = new HashMap<GeoPoint,Integer>();
+
+		for ( GeoPoint p : points)
+		{
+			int score = 0;
+
+			for ( GeoConstraint c : incident.get( p))
+			{
+				if ( c.getType() == GeoConstraint.C_P2P_DISTANCE)
+					score++;
+				else if ( c.getType() == GeoConstraint.C_INTERIOR_ANGLE && c.getPoints()[1] == p)
+					score += 2;
+			}
+
+			if ( score > 0 && hasDistance( p))
+			{
+				seeds.add( p);
+				scores.put( p, score);
+			}
+		}
+
+		Collections.sort( seeds, new Comparator<GeoPoint>() {
+			@Override
+			public int compare ( GeoPoint a, GeoPoint b)
+			{
+				return scores.get( b) - scores.get( a);
+			}
+		});
+
+		return seeds;
+	}
+
+	private boolean hasDistance ( GeoPoint p)
+	{
+		for ( GeoConstraint c : incident.get( p))
+		{
+			if ( c.getType() == GeoConstraint.C_P2P_DISTANCE)
+				return true;
+		}
+
+		return false;
+	}
+
+	// the points placed by place()
+	public ArrayList<GeoPoint> getPlaced ( )
+	{
+		return placed;
+	}
+
+	// the sum of the errors of the constraints at the current positions
+	public double calculateError ( )
+	{
+		double error = 0;
+
+		for ( GeoConstraint c : constraints)
+		{
+			error += c.calculateError();
+		}
+
+		return error;
+	}
+
+	private void markPlaced ( GeoPoint p)
+	{
+		known.add( p);
+		placed.add( p);
+	}
+
+	// turns the figure around its only known point: a point at a known distance
+	// from it keeps its direction, preferring the arms of angles at that point
+	private boolean placeRotation ( )
+	{
+		GeoPoint center = known.iterator().next();
+		GeoPoint best = null;
+		double bestDistance = 0;
+		boolean bestArm = false;
+
+		for ( GeoPoint p : points)
+		{
+			if ( known.contains( p))
+				continue;
+
+			double distance = -1;
+			boolean arm = false;
+
+			for ( GeoConstraint c : incident.get( p))
+			{
+				if ( c.getType() == GeoConstraint.C_P2P_DISTANCE && other( c, p) == center)
+					distance = c.getValue();
+				else if ( c.getType() == GeoConstraint.C_INTERIOR_ANGLE && c.getPoints()[1] == center)
+					arm = true;
+			}
+
+			// a point bound to a circle around the center has the distance built in
+			if ( bound.containsKey( p) && bound.get( p).isCircular() &&
+				 bound.get( p).getOriginX() == center.getX() && bound.get( p).getOriginY() == center.getY())
+				distance = bound.get( p).getRadius();
+
+			if ( distance >= 0 && ( best == null || ( arm && !bestArm)))
+			{
+				best = p;
+				bestDistance = distance;
+				bestArm = arm;
+			}
+		}
+
+		if ( best == null)
+			return false;
+
+		double dx = best.getX() - center.getX();
+		double dy = best.getY() - center.getY();
+		double length = Math.hypot( dx, dy);
+
+		if ( length < tolerance)
+		{
+			dx = 1;
+			dy = 0;
+			length = 1;
+		}
+
+		best.setX( center.getX() + dx / length * bestDistance);
+		best.setY( center.getY() + dy / length * bestDistance);
+		markPlaced( best);
+		return true;
+	}
+
+	// places p on the intersection of two of its loci, if it has two
+	private boolean placeOnLoci ( GeoPoint p)
+	{
+		ArrayList<double[]> loci;
+		ArrayList<Integer> sources;
+		ArrayList<double[]> candidates;
+
+		// circles are { 0, cx, cy, r}, rays { 1, ox, oy, ux, uy}
+		loci = new ArrayList<double[]>();
+		sources = new ArrayList<Integer>();
+
+		// a bound point is already on its own circle or line
+		if ( bound.containsKey( p))
+		{
+			GeoLocusPoint locus = bound.get( p);
+
+			if ( locus.isCircular())
+			{
+				loci.add( new double[]{ 0, locus.getOriginX(), locus.getOriginY(), locus.getRadius()});
+				sources.add( -1);
+			}
+			else
+			{
+				loci.add( new double[]{ 1, locus.getOriginX(), locus.getOriginY(), locus.getDirectionX(), locus.getDirectionY()});
+				sources.add( -1);
+				loci.add( new double[]{ 1, locus.getOriginX(), locus.getOriginY(), -locus.getDirectionX(), -locus.getDirectionY()});
+				sources.add( -1);
+			}
+		}
+
+		for ( int i = 0; i < incident.get( p).size(); i++)
+		{
+			GeoConstraint c = incident.get( p).get( i);
+
+			if ( c.getType() == GeoConstraint.C_P2P_DISTANCE)
+			{
+				GeoPoint center = other( c, p);
+
+				if ( center != null && known.contains( center))
+				{
+					loci.add( new double[]{ 0, center.getX(), center.getY(), c.getValue()});
+					sources.add( i);
+				}
+			}
+			else if ( c.getType() == GeoConstraint.C_INTERIOR_ANGLE)
+			{
+				GeoPoint[] angle = c.getPoints();
+				GeoPoint corner = angle[1];
+				GeoPoint end;
+
+				if ( corner == p)
+				{
+					addInscribedAngle( angle[0], angle[2], c.getValue(), i, loci, sources);
+					continue;
+				}
+
+				// p must be an end, with the corner and the other end known
+				if ( angle[0] == p)
+					end = angle[2];
+				else if ( angle[2] == p)
+					end = angle[0];
+				else
+					continue;
+
+				if ( corner == p || !known.contains( corner) || !known.contains( end))
+					continue;
+
+				double dx = end.getX() - corner.getX();
+				double dy = end.getY() - corner.getY();
+				double length = Math.hypot( dx, dy);
+
+				if ( length < tolerance)
+					continue;
+
+				dx /= length;
+				dy /= length;
+
+				// the arm turned either way by the angle
+				double cos = Math.cos( c.getValue());
+				double sin = Math.sin( c.getValue());
+
+				loci.add( new double[]{ 1, corner.getX(), corner.getY(), dx * cos - dy * sin, dx * sin + dy * cos});
+				sources.add( i);
+				loci.add( new double[]{ 1, corner.getX(), corner.getY(), dx * cos + dy * sin, -dx * sin + dy * cos});
+				sources.add( i);
+			}
+		}
+
+		// intersect the loci coming from different constraints
+		candidates = new ArrayList<double[]>();
+		for ( int i = 0; i < loci.size(); i++)
+		{
+			// a zero distance places the point directly
+			if ( loci.get( i)[0] == 0 && Math.abs( loci.get( i)[3]) < tolerance)
+				candidates.add( new double[]{ loci.get( i)[1], loci.get( i)[2]});
+
+			for ( int j = i + 1; j < loci.size(); j++)
+			{
+				if ( !sources.get( i).equals( sources.get( j)))
+					intersect( loci.get( i), loci.get( j), candidates);
+			}
+		}
+
+		if ( candidates.isEmpty())
+			return false;
+
+		choose( p, candidates);
+		return true;
+	}
+
+	// the points seeing the known points a and b at the given angle lie on two
+	// circular arcs through a and b; both full circles are added, the wrong
+	// halves are rejected when the candidates are checked against the angle
+	private void addInscribedAngle ( GeoPoint a, GeoPoint b, double angle, int source,
+									 ArrayList<double[]> loci, ArrayList<Integer> sources)
+	{
+		if ( !known.contains( a) || !known.contains( b) || Math.abs( Math.sin( angle)) < tolerance)
+			return;
+
+		double dx = b.getX() - a.getX();
+		double dy = b.getY() - a.getY();
+		double chord = Math.hypot( dx, dy);
+
+		if ( chord < tolerance)
+			return;
+
+		// the centers lie on the perpendicular bisector of the chord
+		double radius = chord / ( 2 * Math.sin( angle));
+		double offset = chord / ( 2 * Math.tan( angle));
+		double mx = ( a.getX() + b.getX()) / 2;
+		double my = ( a.getY() + b.getY()) / 2;
+		double nx = -dy / chord;
+		double ny = dx / chord;
+
+		loci.add( new double[]{ 0, mx + nx * offset, my + ny * offset, Math.abs( radius)});
+		sources.add( source);
+		loci.add( new double[]{ 0, mx - nx * offset, my - ny * offset, Math.abs( radius)});
+		sources.add( source);
+	}
+
+	// moves p to the candidate that best satisfies its constraints on known points
+	// a candidate on top of a known point is a degenerate figure, it is taken last
+	private void choose ( GeoPoint p, ArrayList<double[]> candidates)
+	{
+		double x = p.getX();
+		double y = p.getY();
+		double[] best = null;
+		double bestError = 0;
+		double bestDistance = 0;
+		boolean bestCoincides = false;
+
+		for ( double[] candidate : candidates)
+		{
+			p.setX( candidate[0]);
+			p.setY( candidate[1]);
+
+			double error = 0;
+			for ( GeoConstraint c : incident.get( p))
+			{
+				if ( isDecided( c, p))
+					error += c.calculateError();
+			}
+
+			double distance = Math.hypot( candidate[0] - x, candidate[1] - y);
+			boolean coincides = coincides( candidate);
+
+			if ( best == null || ( bestCoincides && !coincides) ||
+				 ( coincides == bestCoincides && ( error < bestError - tolerance || ( error < bestError + tolerance && distance < bestDistance))))
+			{
+				best = candidate;
+				bestError = error;
+				bestDistance = distance;
+				bestCoincides = coincides;
+			}
+		}
+
+		p.setX( best[0]);
+		p.setY( best[1]);
+	}
+
+	// whether a position is taken by a known point
+	private boolean coincides ( double[] position)
+	{
+		for ( GeoPoint q : known)
+		{
+			if ( Math.abs( q.getX() - position[0]) + Math.abs( q.getY() - position[1]) < 1e-6)
+				return true;
+		}
+
+		return false;
+	}
+
+	// whether all the other points of a constraint on p are known
+	private boolean isDecided ( GeoConstraint c, GeoPoint p)
+	{
+		for ( GeoPoint q : c.getPoints())
+		{
+			if ( q != p && !known.contains( q))
+				return false;
+		}
+
+		return true;
+	}
+
+	// the other point of a distance constraint
+	private static GeoPoint other ( GeoConstraint c, GeoPoint p)
+	{
+		GeoPoint[] ends = c.getPoints();
+
+		if ( ends[0] == p)
+			return ends[1];
+		else if ( ends[1] == p)
+			return ends[0];
+
+		return null;
+	}
+
+	// adds the intersections of two loci to candidates
+	private static void intersect ( double[] a, double[] b, ArrayList<double[]> candidates)
+	{
+		if ( a[0] == 1 && b[0] == 0)
+		{
+			double[] t = a;
+			a = b;
+			b = t;
+		}
+
+		if ( a[0] == 0 && b[0] == 0)
+			intersectCircles( a, b, candidates);
+		else if ( a[0] == 0)
+			intersectCircleRay( a, b, candidates);
+		else
+			intersectRays( a, b, candidates);
+	}
+
+	private static void intersectCircles ( double[] a, double[] b, ArrayList<double[]> candidates)
+	{
+		double dx = b[1] - a[1];
+		double dy = b[2] - a[2];
+		double d = Math.hypot( dx, dy);
+
+		if ( d < tolerance)
+			return;
+
+		// the foot of the common chord on the line of the centers, and half the chord
+		double along = ( d * d + a[3] * a[3] - b[3] * b[3]) / ( 2 * d);
+		double h2 = a[3] * a[3] - along * along;
+
+		// touching circles may miss each other by rounding
+		if ( h2 < 0 && h2 > -tolerance * ( a[3] * a[3] + 1))
+			h2 = 0;
+		if ( h2 < 0)
+			return;
+
+		double h = Math.sqrt( h2);
+		double fx = a[1] + dx * along / d;
+		double fy = a[2] + dy * along / d;
+
+		candidates.add( new double[]{ fx - dy * h / d, fy + dx * h / d});
+		candidates.add( new double[]{ fx + dy * h / d, fy - dx * h / d});
+	}
+
+	private static void intersectCircleRay ( double[] circle, double[] ray, ArrayList<double[]> candidates)
+	{
+		// |o + t u - c|^2 = r^2 with a unit u, for t >= 0
+		double ox = ray[1] - circle[1];
+		double oy = ray[2] - circle[2];
+		double half = ox * ray[3] + oy * ray[4];
+		double discriminant = half * half - ( ox * ox + oy * oy - circle[3] * circle[3]);
+
+		if ( discriminant < 0)
+			return;
+
+		double root = Math.sqrt( discriminant);
+
+		for ( double t : new double[]{ -half - root, -half + root})
+		{
+			if ( t > tolerance)
+				candidates.add( new double[]{ ray[1] + t * ray[3], ray[2] + t * ray[4]});
+		}
+	}
+
+	private static void intersectRays ( double[] a, double[] b, ArrayList<double[]> candidates)
+	{
+		// a.o + t a.u = b.o + s b.u
+		double cross = a[3] * b[4] - a[4] * b[3];
+
+		if ( Math.abs( cross) < tolerance)
+			return;
+
+		double dx = b[1] - a[1];
+		double dy = b[2] - a[2];
+		double t = ( dx * b[4] - dy * b[3]) / cross;
+		double s = ( dx * a[4] - dy * a[3]) / cross;
+
+		if ( t > tolerance && s > tolerance)
+			candidates.add( new double[]{ a[1] + t * a[3], a[2] + t * a[4]});
+	}
+}
@@ -0,0 +1,231 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+
+// moves a point of a drawn construct interactively, with the rest following:
+// the point is held at the given position and the parts of the system it is
+// constrained with are solved again, starting from where they are
+//
+// the solvers of these parts are built once, when the session starts, and kept
+// with their parameters between moves; each move runs only as many iterations
+// as fit into the frame budget and leaves the points where they were reached, so
+// the figure can be painted after every move even before it is solved
+//
+// usage: start a session when the point is grabbed, call moveTo() for every
+// mouse event or frame, and finish() when it is released
+public class GeoDragSession {
+	// the default time of a move in milliseconds, leaving room for painting at 60 frames a second
+	public static final long DEFAULT_FRAME_BUDGET = 10;
+	// the times a solver that gave up is resumed again within a move
+	static final int maxResumes = 3;
+
+	private GeoConstruct construct;
+	private GeoPoint dragged;
+	// whether the point was fixed before the session, it is while dragging
+	private boolean wasFixed;
+
+	// the parts moved by the point, and their solvers
+	private ArrayList<GeoSubsystem> parts;
+	private ArrayList<GeoNumericSolver> solvers;
+	// the constraints between the point and other fixed points, which no solver can meet
+	private ArrayList<GeoConstraint> constants;
+
+	private long frameBudget;
+	private boolean active;
+
+	// the state after the last move
+	private boolean converged;
+	private SolverStats frameStats;
+
+	// starts dragging a point of a construct, which should have been drawn already
+	public GeoDragSession ( GeoConstruct construct, GeoPoint dragged)
+	{
+		ArrayList<GeoObject> objects;
+		ArrayList<GeoConstraint> constraints;
+
+		this.construct = construct;
+		this.dragged = dragged;
+		frameBudget = DEFAULT_FRAME_BUDGET;
+		converged = true;
+		frameStats = new SolverStats();
+
+		// a fixed point is a constant of the solvers, whose position they read on every move
+		wasFixed = dragged.isFixed();
+		dragged.setFixed( true);
+
+		objects = new ArrayList<GeoObject>();
+		constraints = new ArrayList<GeoConstraint>();
+		GeoDrawingOptimizer.collectSystem( construct, objects, constraints);
+
+		// only the parts constrained with the point move with it
+		parts = new ArrayList<GeoSubsystem>();
+		solvers = new ArrayList<GeoNumericSolver>();
+		constants = new ArrayList<GeoConstraint>();
+		for ( GeoSubsystem part : GeoSubsystem.partition( objects, constraints, constants))
+		{
+			if ( isMovedBy( part, dragged))
+			{
+				parts.add( part);
+				solvers.add( createSolver( part));
+			}
+		}
+
+		active = true;
+	}
+
+	// getters/setters:
+
+	public GeoConstruct getConstruct ( )
+	{
+		return construct;
+	}
+
+	public GeoPoint getDraggedPoint ( )
+	{
+		return dragged;
+	}
+
+	// the time given to the solvers on every move, in milliseconds
+	public void setFrameBudget ( long milliseconds)
+	{
+		this.frameBudget = Math.max( 1, milliseconds);
+	}
+
+	public long getFrameBudget ( )
+	{
+		return frameBudget;
+	}
+
+	public boolean isActive ( )
+	{
+		return active;
+	}
+
+	// whether the constraints were met after the last move; a move to where the
+	// point breaks a constraint with fixed points never converges, its status is
+	// SolverStats.STATUS_INCONSISTENT
+	public boolean isConverged ( )
+	{
+		return converged;
+	}
+
+	// the statistics of the last move, of all parts together
+	public SolverStats getFrameStats ( )
+	{
+		return frameStats;
+	}
+
+	// the points that follow the dragged one; their coordinates are those reached
+	// by the last move, whether or not it converged
+	public ArrayList<GeoPoint> getMovedPoints ( )
+	{
+		ArrayList<GeoPoint> points = new ArrayList<GeoPoint>();
+
+		for ( GeoSubsystem part : parts)
+		{
+			points.addAll( part.getPoints());
+		}
+
+		return points;
+	}
+
+	// moves the point to the given position and solves the rest from where it
+	// is, for at most the frame budget; returns whether the constraints are met
+	public boolean moveTo ( double x, double y)
+	{
+		long deadline;
+		double error;
+		int status;
+
+		if ( !active)
+			throw new IllegalStateException( "The drag session is finished.");
+
+		dragged.setX( x);
+		dragged.setY( y);
+
+		deadline = System.nanoTime() + frameBudget * 1000000L;
+		frameStats = new SolverStats();
+		converged = true;
+		error = 0;
+		status = SolverStats.STATUS_SOLVED;
+
+		for ( GeoNumericSolver solver : solvers)
+		{
+			SolverStats stats;
+
+			solver.setDeadline( deadline);
+			stats = solver.resumeSolution( true);
+			frameStats.add( stats);
+
+			// the estimate of the Hessian carried over from the last move may stall the
+			// solver with time left; resumed again, it starts over from where it stopped
+			for ( int i = 0; i < maxResumes && stats.getStatus() == SolverStats.STATUS_FAILED; i++)
+			{
+				stats = solver.resumeSolution( true);
+				frameStats.add( stats);
+			}
+
+			error += stats.getFinalError();
+			if ( !stats.isSolved() && converged)
+			{
+				// usually out of time, the next move continues from here
+				converged = false;
+				status = stats.getStatus();
+			}
+		}
+
+		for ( GeoConstraint c : constants)
+		{
+			double constantError = c.calculateError();
+			
+			if ( constantError >= GeoPresolver.tolerance && c.involvesPoint( dragged))
+			{
+				converged = false;
+				status = SolverStats.STATUS_INCONSISTENT;
+			}
+			error += constantError;
+		}
+
+		frameStats.setStatus( status);
+		frameStats.setFinalError( error);
+		return converged;
+	}
+
+	// ends the session, the point is left where it was moved last
+	// returns whether the constraints were met after the last move
+	public boolean finish ( )
+	{
+		if ( active)
+		{
+			dragged.setFixed( wasFixed);
+			active = false;
+		}
+
+		return converged;
+	}
+
+	// whether a constraint of the part involves the point
+	private static boolean isMovedBy ( GeoSubsystem part, GeoPoint p)
+	{
+		for ( GeoConstraint c : part.getConstraints())
+		{
+			if ( c.involvesPoint( p))
+				return true;
+		}
+
+		return false;
+	}
+
+	private static GeoNumericSolver createSolver ( GeoSubsystem part)
+	{
+		// holding a point often leaves as many residuals as parameters, the Newton
+		// solver finds out from its Jacobian and solves the others with BFGS
+		GeoNumericSolver solver = new GeoNewtonSolver();
+
+		solver.addConstraints( part.getConstraints());
+		solver.addObjects( part.getObjects());
+
+		return solver;
+	}
+}
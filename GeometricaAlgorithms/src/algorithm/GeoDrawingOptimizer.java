@@ -3,6 +3,14 @@
 package algorithm;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 // a class that given a geometric construct object,
 // optimizes the locations of the points contained to
@@ -10,29 +18,450 @@ import java.util.ArrayList;
 public class GeoDrawingOptimizer {
 	private GeoConstruct construct;
 	
+	// the variant of BFGS used by the numeric solver
+	private int solverMode;
+	private int historyLength;
+	
+	// whether independent parts of the system are solved concurrently
+	private boolean parallel;
+	
+	// whether points are first placed by ruler and compass where possible
+	private boolean constructive;
+	
+	// whether large parts are first placed level by level, from coarse to fine
+	private boolean multilevel;
+	
+	// whether each part is first solved with its rigid clusters as rigid objects
+	private boolean clustering;
+	
+	// whether parts free to move and rotate are held in place while solved
+	private boolean gaugeFixing;
+	
+	// whether the system is simplified before solving, and the result of the last simplification
+	private boolean presolve;
+	private GeoPresolver presolver;
+	
+	// the number of random starts tried at the same time, once a part fails
+	private int multiStart;
+	// gives each start its own seed, so concurrent starts differ
+	private Random seeds;
+	
+	// receives the statistics of each solution
+	private SolverStats.Listener listener;
+	
+	// the time an optimization may take in milliseconds, 0 for no limit
+	private long timeBudget;
+	// stops a running optimization when cancelled, may be null
+	private CancellationToken token;
+	// the System.nanoTime() at which the current optimization runs out of time
+	private long deadline;
+	
+	// solutions of earlier optimizations, may be null
+	private GeoSolutionCache cache;
+	
+	// whether constraints that can never be met are looked for before solving,
+	// and the result of the last search
+	private boolean diagnose;
+	private GeoSystemAnalyzer analyzer;
+	
+	// the starts without the redundant constraints that must all miss them
+	// before the system is found inconsistent
+	private static final int redundancyChecks = 3;
+	
+	// the random starts in a row that must end at the same error before the
+	// constraints missed there are found inconsistent
+	private static final int plateauStarts = 5;
+	
+	// the starts with the rigid clusters collapsed, before the whole part is solved
+	private static final int clusteredTrials = 1;
+	
+	// shared by all optimizers, the parts of a system are solved on it
+	private static final ForkJoinPool pool = new ForkJoinPool();
+	
 	public GeoDrawingOptimizer ( GeoConstruct cons)
 	{
 		this.construct = cons;
+		
+		solverMode = GeoNumericSolver.SOLVER_BFGS;
+		historyLength = 8;
+		parallel = false;
+		multiStart = 1;
+		constructive = false;
+		multilevel = false;
+		clustering = false;
+		gaugeFixing = false;
+		presolve = false;
+		diagnose = false;
+		seeds = new Random();
+		timeBudget = 0;
+		token = null;
+	}
+	
+	// limits the time of each optimization, the best positions found until
+	// then are kept; 0 removes the limit
+	public void setTimeBudget ( long milliseconds)
+	{
+		this.timeBudget = Math.max( 0, milliseconds);
+	}
+	
+	public long getTimeBudget ( )
+	{
+		return timeBudget;
+	}
+	
+	// a token through which another thread may stop the optimization, or null
+	// the best positions found until then are kept
+	public void setCancellationToken ( CancellationToken token)
+	{
+		this.token = token;
+	}
+	
+	public CancellationToken getCancellationToken ( )
+	{
+		return token;
+	}
+	
+	// reuses the solutions in the cache, which may be shared by many optimizers,
+	// and adds each new solution to it; null disables caching
+	public void setSolutionCache ( GeoSolutionCache cache)
+	{
+		this.cache = cache;
+	}
+	
+	public GeoSolutionCache getSolutionCache ( )
+	{
+		return cache;
+	}
+	
+	// sets how many randomized restarts of a failed part run concurrently
+	// the first one to reach a solution wins and the others are cancelled
+	// 1 restarts one at a time, as before
+	public void setMultiStart ( int multiStart)
+	{
+		this.multiStart = Math.max( 1, multiStart);
+	}
+	
+	public int getMultiStart ( )
+	{
+		return multiStart;
+	}
+	
+	// places the points that follow from distances and angles directly, see
+	// GeoConstructivePlacer; the numeric solver only works on the rest
+	// off by default
+	public void setConstructivePlacement ( boolean constructive)
+	{
+		this.constructive = constructive;
+	}
+	
+	public boolean isConstructivePlacement ( )
+	{
+		return constructive;
+	}
+	
+	// places the points of each large part of single points level by level before
+	// solving it, see GeoMultilevelPlacer; smaller parts are solved as before
+	// off by default
+	public void setMultilevelPlacement ( boolean multilevel)
+	{
+		this.multilevel = multilevel;
+	}
+	
+	public boolean isMultilevelPlacement ( )
+	{
+		return multilevel;
+	}
+	
+	// solves each part with its rigid clusters replaced by rigid objects first,
+	// see GeoRigidClusterer; if that fails the whole part is solved as before
+	// off by default
+	public void setClustering ( boolean clustering)
+	{
+		this.clustering = clustering;
+	}
+	
+	public boolean isClustering ( )
+	{
+		return clustering;
+	}
+	
+	// holds each part without fixed points by one of its points and a direction
+	// while solving it, see GeoGaugeFixer; the part is centered where it was afterwards
+	// off by default
+	public void setGaugeFixing ( boolean gaugeFixing)
+	{
+		this.gaugeFixing = gaugeFixing;
+	}
+	
+	public boolean isGaugeFixing ( )
+	{
+		return gaugeFixing;
+	}
+	
+	// folds constant constraints, binds points to fixed circles and lines and
+	// drops duplicate constraints before solving, see GeoPresolver
+	// off by default
+	public void setPresolve ( boolean presolve)
+	{
+		this.presolve = presolve;
+	}
+	
+	public boolean isPresolve ( )
+	{
+		return presolve;
+	}
+	
+	// looks for inconsistent and redundant constraints before solving, see
+	// GeoSystemAnalyzer; a system with inconsistent constraints is not solved
+	// off by default
+	public void setDiagnosis ( boolean diagnose)
+	{
+		this.diagnose = diagnose;
+	}
+	
+	public boolean isDiagnosis ( )
+	{
+		return diagnose;
+	}
+	
+	// the diagnosis of the last optimization, which names the constraints that
+	// could not be met; null if there was none
+	public GeoSystemAnalyzer getAnalyzer ( )
+	{
+		return analyzer;
+	}
+	
+	// the simplification of the last optimization, which tells whether its
+	// constant constraints were met; null if there was none
+	public GeoPresolver getPresolver ( )
+	{
+		return presolver;
+	}
+	
+	// receives the statistics of every attempt of the numeric solvers and of
+	// every optimization; called from the solving threads
+	public void setStatsListener ( SolverStats.Listener listener)
+	{
+		this.listener = listener;
+	}
+	
+	// makes the random starts reproducible
+	public void setRandomSeed ( long seed)
+	{
+		seeds = new Random( seed);
+	}
+	
+	// enables solving the independent parts of the system on multiple threads
+	// off by default
+	public void setParallel ( boolean parallel)
+	{
+		this.parallel = parallel;
+	}
+	
+	public boolean isParallel ( )
+	{
+		return parallel;
+	}
+	
+	// selects dense BFGS, limited memory BFGS, Levenberg-Marquardt, Newton or an
+	// automatic choice based on the shape and size of each part, see GeoNumericSolver.SOLVER_*
+	public void setSolverMode ( int mode)
+	{
+		this.solverMode = mode;
+	}
+	
+	public int getSolverMode ( )
+	{
+		return solverMode;
+	}
+	
+	// the number of correction pairs kept in the limited memory mode
+	public void setHistoryLength ( int historyLength)
+	{
+		this.historyLength = historyLength;
+	}
+	
+	public int getHistoryLength ( )
+	{
+		return historyLength;
 	}
 	
 	// run the optimization process
-	// returns true only if a solution was found
-	public boolean optimize ( boolean randomize)
+	// returns the statistics of all the solutions, which tell whether it succeeded
+	public SolverStats optimize ( boolean randomize)
 	{
 		// the set of objects and constraints that the numeric solver will work on
 		ArrayList<GeoObject> objects;
 		ArrayList<GeoConstraint> constraints;
 		
+		// the independent parts of the system and their solvers
+		ArrayList<GeoSubsystem> components;
+		ArrayList<GeoConstraint> constants;
+		ArrayList<ComponentTask> tasks;
+		
+		SolverStats stats;
+		long start;
+		
+		start = System.nanoTime();
+		deadline = start + timeBudget * 1000000L;
+		
+		// a construct solved before needs no solving, a similar one starts from its solution
+		if ( cache != null)
+		{
+			int lookup = cache.restore( construct);
+			
+			if ( lookup == GeoSolutionCache.EXACT_HIT)
+			{
+				double error = 0;
+				for ( GeoConstraint constraint : construct.getConstraints())
+				{
+					error += constraint.calculateError();
+				}
+				
+				stats = new SolverStats();
+				stats.setStatus( SolverStats.STATUS_SOLVED);
+				stats.setFinalError( error);
+				stats.setWallTime( System.nanoTime() - start);
+				
+				if ( listener != null)
+					listener.optimizationFinished( stats);
+				
+				return stats;
+			}
+			else if ( lookup == GeoSolutionCache.NEAR_HIT)
+				randomize = false;
+		}
+		
+		objects = new ArrayList<GeoObject>();
+		constraints = new ArrayList<GeoConstraint>();
+		collectSystem( construct, objects, constraints);
+		
+		// simplify the system first
+		constants = new ArrayList<GeoConstraint>();
+		presolver = null;
+		if ( presolve)
+		{
+			presolver = new GeoPresolver();
+			presolver.presolve( objects, constraints);
+			constants.addAll( presolver.getConstants());
+		}
+		
+		// split the system into parts which do not affect each other
+		components = GeoSubsystem.partition( objects, constraints, constants);
+		
+		// a system with constraints that can never be met is not solved at all
+		analyzer = null;
+		if ( diagnose)
+		{
+			analyzer = new GeoSystemAnalyzer( seeds.nextLong());
+			analyzer.checkConstants( constants);
+			analyzer.checkConflicts( constraints);
+			
+			if ( !analyzer.isConsistent())
+			{
+				double error = 0;
+				for ( GeoConstraint constraint : construct.getConstraints())
+				{
+					error += constraint.calculateError();
+				}
+				
+				stats = new SolverStats();
+				stats.setStatus( SolverStats.STATUS_INCONSISTENT);
+				stats.setFinalError( error);
+				stats.setWallTime( System.nanoTime() - start);
+				
+				if ( listener != null)
+					listener.optimizationFinished( stats);
+				
+				return stats;
+			}
+		}
+		
+		// solve each part with its own solver, restarting only the parts that fail
+		tasks = new ArrayList<ComponentTask>();
+		for ( GeoSubsystem component : components)
+		{
+			ComponentTask task = new ComponentTask( component, randomize);
+			
+			if ( analyzer != null)
+				task.redundant = analyzer.analyze( component);
+			tasks.add( task);
+		}
+		
+		if ( tasks.size() == 1 || !parallel)
+		{
+			for ( ComponentTask task : tasks)
+			{
+				task.call();
+			}
+		}
+		else
+			pool.invokeAll( tasks);
+		
+		// the final error of the whole system
+		double error = 0;
+		int trialCounter = 0;
+		stats = new SolverStats();
+		for ( ComponentTask task : tasks)
+		{
+			// the points hold the result, which may come from a copy of the part
+			for ( GeoConstraint constraint : task.component.getConstraints())
+			{
+				error += constraint.calculateError();
+			}
+			trialCounter += task.trials;
+			stats.add( task.stats);
+		}
+		for ( GeoConstraint constraint : constants)
+		{
+			error += constraint.calculateError();
+		}
+		if ( presolver != null)
+			error += presolver.calculateBindingError();
+		
+		if ( error < 1e-9)
+			stats.setStatus( SolverStats.STATUS_SOLVED);
+		else if ( analyzer != null && !analyzer.isConsistent())
+			stats.setStatus( SolverStats.STATUS_INCONSISTENT);
+		else if ( token != null && token.isCancelled())
+			stats.setStatus( SolverStats.STATUS_CANCELLED);
+		else if ( timeBudget > 0 && System.nanoTime() - deadline > 0)
+			stats.setStatus( SolverStats.STATUS_TIMED_OUT);
+		else
+			stats.setStatus( SolverStats.STATUS_FAILED);
+		stats.setRestarts( trialCounter);
+		stats.setFinalError( error);
+		stats.setWallTime( System.nanoTime() - start);
+		
+		if ( cache != null && stats.isSolved())
+			cache.store( construct);
+		
+		if ( listener != null)
+			listener.optimizationFinished( stats);
+		
+		return stats;
+	}
+	
+	// gathers the objects and constraints the numeric solver works on: regular
+	// polygons become rigid objects, and the points they do not move are objects of their own
+	static void collectSystem ( GeoConstruct construct, ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
 		// the new regular polygon objects to be created, and its vertices:
 		GeoRigidObject newRegularPolygon;
 		GeoPoint[] newPolygonVertices;
 		int pointId;
 		
-		// the numeric algorithm
-		GeoNumericSolver solver;
-		
-		objects = new ArrayList<GeoObject>();
-		constraints = new ArrayList<GeoConstraint>();
+		// the vertices of a construct drawn before are still marked as parametrized
+		for ( GeoConstraint constraint : construct.getConstraints())
+		{
+			if ( constraint.getType() == GeoConstraint.C_REGULAR_POLYGON)
+			{
+				for ( GeoPoint p : constraint.getPoints())
+				{
+					p.setParametrized( false);
+				}
+			}
+		}
 		
 		pointId = 0;
 		
@@ -85,23 +514,599 @@ public class GeoDrawingOptimizer {
 				objects.add( p);
 			}
 		}
+	}
+	
+	// solves a single independent part of the system
+	private class ComponentTask implements Callable<Boolean> {
+		GeoSubsystem component;
+		GeoNumericSolver solver;
+		boolean randomize;
+		int trials;
+		SolverStats stats;
 		
-		// solve the set of objects and constraints
-		solver = new GeoNumericSolver();
-		solver.addConstraints( constraints);
-		solver.addObjects( objects);
+		// set once a solution was cancelled or ran out of time
+		boolean stopped;
+		// the positions with the least error among the failed attempts
+		double[] bestPositions;
+		double bestError;
+		// the seeds of the concurrent starts of this part, and of the solutions
+		// of the part while it is held in place
+		Random startSeeds;
+		Random gaugeSeeds;
+		// holds the part in place if it is floating, may be null, and the solver
+		// of the part it holds, built by the first solution held in place
+		GeoGaugeFixer gauge;
+		GeoNumericSolver heldSolver;
+		// the constraints which follow from the others, see GeoSystemAnalyzer,
+		// and whether the part was solved without them
+		ArrayList<GeoConstraint> redundant;
+		boolean redundancyChecked;
+		// the error the last random starts ended at, and how many in a row did
+		double plateauError;
+		int plateauCount;
+		
+		// created in order on the calling thread, so that the seeds of a part
+		// do not depend on the order the parts are solved in
+		public ComponentTask ( GeoSubsystem component, boolean randomize)
+		{
+			this.component = component;
+			this.randomize = randomize;
+			
+			solver = createSolver( component);
+			solver.setRandomSeed( seeds.nextLong());
+			startSeeds = new Random( seeds.nextLong());
+			gaugeSeeds = new Random( seeds.nextLong());
+			stats = new SolverStats();
+			redundant = new ArrayList<GeoConstraint>();
+		}
 
-		int trialCounter = 0;
-		while ( trialCounter < 100 && !solver.findSolution( true, trialCounter < 3 ? randomize : true))
+		@Override
+		public Boolean call ( ) {
+			boolean solved;
+			boolean constructed;
+			
+			trials = 0;
+			stopped = false;
+			redundancyChecked = false;
+			plateauCount = 0;
+			solved = false;
+			constructed = false;
+			bestPositions = null;
+			bestError = Double.POSITIVE_INFINITY;
+			
+			gauge = null;
+			heldSolver = null;
+			if ( gaugeFixing)
+			{
+				gauge = new GeoGaugeFixer( component);
+				if ( !gauge.isApplicable())
+					gauge = null;
+			}
+			
+			// place what the constructions decide, then solve only for the rest
+			if ( constructive)
+			{
+				GeoConstructivePlacer placer = new GeoConstructivePlacer( component);
+				ArrayList<GeoPoint> placed = placer.place();
+				
+				if ( !placed.isEmpty())
+				{
+					if ( placer.calculateError() < 1e-9)
+						return true;
+					
+					constructed = true;
+					solved = solveLeftover( placed);
+				}
+			}
+			
+			// a start of the right extent, which random positions of many points are not
+			if ( !solved && !stopped && multilevel && GeoMultilevelPlacer.isApplicable( component))
+				solved = solveMultilevel();
+			
+			// fewer parameters, but the clusters keep the shapes they were solved in
+			if ( !solved && !stopped && clustering)
+				solved = solveClustered();
+			
+			// the starts from the current positions are not random, they run only once
+			// a constructed start is tried once before the random ones
+			while ( !solved && !stopped && trials < 100 &&
+					( multiStart == 1 || ( trials < 3 && !randomize) || ( trials == 0 && constructed)))
+			{
+				boolean random = ( trials == 0 && constructed) ? false : ( trials < 3 ? randomize : true);
+				SolverStats result = solveOnce( random);
+				
+				stats.add( result);
+				solved = result.isSolved();
+				
+				if ( !solved)
+				{
+					keepBest( result.getFinalError());
+					stopped = result.getStatus() != SolverStats.STATUS_FAILED;
+					trials++;
+					
+					if ( !stopped && random && analyzer != null && isPlateau( result.getFinalError()))
+						stopped = true;
+					
+					// the redundant constraints may be what cannot be met, find out
+					// before spending the restarts on them
+					if ( !stopped && !redundancyChecked && !redundant.isEmpty())
+						solved = solveWithoutRedundant();
+				}
+			}
+			
+			if ( !solved && !stopped && !redundancyChecked && !redundant.isEmpty())
+				solved = solveWithoutRedundant();
+			
+			if ( !solved && !stopped && trials < 100)
+				solved = solveMultiStart();
+			
+			// a later attempt may have ended worse than an earlier one
+			if ( !solved && bestPositions != null)
+				component.restorePositions( bestPositions);
+			
+			return solved;
+		}
+		
+		// a single solution of the whole part, held in place if it is floating
+		private SolverStats solveOnce ( boolean randomize)
+		{
+			GeoSubsystem held;
+			
+			if ( gauge == null)
+				return solver.findSolution( true, randomize);
+			
+			try {
+				// the line of the direction point goes through the current positions
+				held = gauge.fix();
+				
+				// a diverged part is not held
+				if ( held == component)
+					return solver.findSolution( true, randomize);
+				
+				// kept between the trials like the solver of the part, so that the
+				// random starts reuse its structure and memory
+				if ( heldSolver == null)
+				{
+					heldSolver = createSolver( held);
+					heldSolver.setRandomSeed( gaugeSeeds.nextLong());
+				}
+				
+				return heldSolver.findSolution( true, randomize);
+			} finally {
+				gauge.release();
+			}
+		}
+		
+		// solves for the points that were not placed, with the placed ones held in place
+		// returns whether the whole part is solved
+		private boolean solveLeftover ( ArrayList<GeoPoint> placed)
+		{
+			GeoSubsystem leftover = new GeoSubsystem();
+			HashSet<GeoPoint> held = new HashSet<GeoPoint>( placed);
+			
+			for ( GeoObject o : component.getObjects())
+			{
+				if ( !held.contains( o) && !( o instanceof GeoLocusPoint && held.contains( ( ( GeoLocusPoint) o).getPoint())))
+					leftover.getObjects().add( o);
+			}
+			
+			if ( leftover.getObjects().isEmpty())
+				return false;
+			
+			double[] constructed = component.savePositions();
+			
+			for ( GeoPoint p : placed)
+			{
+				p.setFixed( true);
+			}
+			
+			try {
+				// constraints between placed points only are already decided
+				for ( GeoConstraint c : component.getConstraints())
+				{
+					for ( GeoPoint p : c.getPoints())
+					{
+						if ( !p.isFixed())
+						{
+							leftover.getConstraints().add( c);
+							break;
+						}
+					}
+				}
+				
+				SolverStats result = createSolver( leftover).findSolution( true, false);
+				
+				stats.add( result);
+				stopped = result.getStatus() == SolverStats.STATUS_TIMED_OUT || result.getStatus() == SolverStats.STATUS_CANCELLED;
+			} finally {
+				for ( GeoPoint p : placed)
+				{
+					p.setFixed( false);
+				}
+			}
+			
+			double error = 0;
+			for ( GeoConstraint c : component.getConstraints())
+			{
+				error += c.calculateError();
+			}
+			
+			// a diverged solution is no place to start from
+			if ( Double.isNaN( error))
+				component.restorePositions( constructed);
+			
+			return error < 1e-9;
+		}
+		
+		// solves the part from the positions its levels place the points at
+		// returns whether the part is solved; if not, the points are left where they were
+		private boolean solveMultilevel ( )
+		{
+			GeoMultilevelPlacer placer;
+			SolverStats result;
+			double[] positions;
+			int parameters = 0;
+			
+			placer = new GeoMultilevelPlacer( startSeeds.nextLong());
+			placer.setCancellationToken( token);
+			if ( timeBudget > 0)
+				placer.setDeadline( deadline);
+			
+			positions = component.savePositions();
+			for ( GeoObject o : component.getObjects())
+			{
+				parameters += o.getNumParameters();
+			}
+			
+			result = placer.place( component);
+			stats.add( result);
+			if ( result.getStatus() == SolverStats.STATUS_TIMED_OUT || result.getStatus() == SolverStats.STATUS_CANCELLED)
+			{
+				stopped = true;
+				return false;
+			}
+			
+			// the finest level, the points themselves; not held in place, the levels
+			// already placed the part, and a point held where they left it bends the rest
+			// the parts placed this way are large, a dense estimate of the Hessian is
+			// too slow for them, so they are solved as the levels were
+			if ( solverMode == GeoNumericSolver.SOLVER_BFGS && parameters > solver.getLimitedMemoryThreshold())
+				solver.setSolverMode( GeoNumericSolver.SOLVER_LBFGS);
+			
+			try {
+				result = solver.findSolution( true, false);
+			} finally {
+				solver.setSolverMode( solverMode);
+			}
+			stats.add( result);
+			if ( result.isSolved())
+				return true;
+			
+			keepBest( result.getFinalError());
+			stopped = result.getStatus() != SolverStats.STATUS_FAILED;
+			
+			component.restorePositions( positions);
+			return false;
+		}
+		
+		// solves the part with its rigid clusters collapsed into rigid objects
+		// returns whether the part is solved; if not, the points are left where they were
+		private boolean solveClustered ( )
+		{
+			GeoRigidClusterer clusterer;
+			GeoSubsystem clustered;
+			GeoNumericSolver clusteredSolver;
+			double[] positions;
+			
+			clusterer = new GeoRigidClusterer( startSeeds.nextLong());
+			clusterer.setCancellationToken( token);
+			if ( timeBudget > 0)
+				clusterer.setDeadline( deadline);
+			
+			positions = component.savePositions();
+			
+			try {
+				clustered = clusterer.cluster( component);
+				
+				if ( clustered == null)
+					return false;
+				
+				clusteredSolver = createSolver( clustered);
+				clusteredSolver.setRandomSeed( startSeeds.nextLong());
+				
+				// the rotations of the rigid objects throw the dense line search far off,
+				// the limited memory steps are scaled to the curvature
+				if ( solverMode == GeoNumericSolver.SOLVER_AUTOMATIC)
+					clusteredSolver.setSolverMode( GeoNumericSolver.SOLVER_LBFGS);
+				
+				for ( int i = 0; i < clusteredTrials && !stopped; i++)
+				{
+					SolverStats result = clusteredSolver.findSolution( true, randomize || i > 0);
+					double error = 0;
+					
+					stats.add( result);
+					stopped = result.getStatus() == SolverStats.STATUS_TIMED_OUT || result.getStatus() == SolverStats.STATUS_CANCELLED;
+					
+					// the constraints within the clusters are met as closely as they were solved
+					for ( GeoConstraint c : component.getConstraints())
+					{
+						error += c.calculateError();
+					}
+					
+					if ( error < 1e-9)
+						return true;
+					
+					if ( !Double.isNaN( error))
+						keepBest( error);
+				}
+			} finally {
+				clusterer.release();
+			}
+			
+			// the whole part starts over from where the points were
+			component.restorePositions( positions);
+			return false;
+		}
+		
+		// solves the part without its redundant constraints; these follow from the
+		// others, so where the others are met they take the same values each time
+		// if those values miss them in every start, they can never be met
+		// returns whether the part is solved, stops it if it cannot be
+		private boolean solveWithoutRedundant ( )
+		{
+			GeoSubsystem reduced = new GeoSubsystem();
+			GeoNumericSolver reducedSolver;
+			double[] missed = null;
+			int unmet = 0;
+			
+			redundancyChecked = true;
+			reduced.getObjects().addAll( component.getObjects());
+			for ( GeoConstraint c : component.getConstraints())
+			{
+				if ( !redundant.contains( c))
+					reduced.getConstraints().add( c);
+			}
+			
+			reducedSolver = createSolver( reduced);
+			reducedSolver.setRandomSeed( startSeeds.nextLong());
+			
+			// a few starts, as a start may reach a different branch of the solutions
+			// where the redundant constraints take other values
+			for ( int i = 0; i < redundancyChecks && !stopped; i++)
+			{
+				SolverStats result = reducedSolver.findSolution( true, true);
+				
+				stats.add( result);
+				trials++;
+				
+				if ( !result.isSolved())
+				{
+					stopped = result.getStatus() != SolverStats.STATUS_FAILED;
+					continue;
+				}
+				
+				double[] errors = new double[ redundant.size()];
+				double error = 0;
+				for ( int j = 0; j < errors.length; j++)
+				{
+					errors[j] = redundant.get( j).calculateError();
+					error += errors[j];
+				}
+				
+				if ( error < 1e-9)
+					return true;
+				
+				keepBest( error);
+				
+				if ( missed == null)
+					missed = errors;
+				else
+				{
+					for ( int j = 0; j < errors.length; j++)
+					{
+						if ( Math.abs( errors[j] - missed[j]) > 1e-6 * Math.max( 1, missed[j]))
+							return false;
+					}
+				}
+				unmet++;
+			}
+			
+			if ( unmet == redundancyChecks)
+			{
+				for ( GeoConstraint c : redundant)
+				{
+					if ( !( c.calculateError() < 1e-9))
+						analyzer.addInconsistent( c, null);
+				}
+				stopped = true;
+			}
+			
+			return false;
+		}
+		
+		// whether the random starts keep ending at the same error: the rank analysis
+		// misses metric contradictions such as a triangle with sides 10, 10 and 50,
+		// whose equations are independent but have no common solution; the least
+		// the constraints can be missed by is then reached from every start, and
+		// the constraints missed there are reported inconsistent
+		private boolean isPlateau ( double error)
 		{
-			trialCounter++;
+			if ( plateauCount > 0 && Math.abs( error - plateauError) <= 1e-6 * Math.max( 1, plateauError))
+				plateauCount++;
+			else
+			{
+				plateauError = error;
+				plateauCount = 1;
+			}
+			
+			if ( plateauCount < plateauStarts)
+				return false;
+			
+			for ( GeoConstraint c : component.getConstraints())
+			{
+				if ( !( c.calculateError() < 1e-9))
+					analyzer.addInconsistent( c, null);
+			}
+			
+			return true;
 		}
 		
-		// debug
-		System.out.println( "Final error: " + solver.calculateError());
-		System.out.println( "Iterations: " + trialCounter);
+		// remembers the current positions if they are the best so far
+		private void keepBest ( double error)
+		{
+			if ( error < bestError)
+			{
+				bestError = error;
+				bestPositions = component.savePositions();
+			}
+		}
+		
+		// runs random starts on copies of the part until one of them succeeds
+		// or the remaining trials are used up, then keeps the best result
+		private boolean solveMultiStart ( )
+		{
+			AtomicInteger budget;
+			AtomicInteger used;
+			AtomicReference<StartTask> winner;
+			ArrayList<StartTask> starts;
+			StartTask best;
+			
+			budget = new AtomicInteger( 100 - trials);
+			used = new AtomicInteger( 0);
+			winner = new AtomicReference<StartTask>();
+			starts = new ArrayList<StartTask>();
+			
+			for ( int i = 0; i < multiStart; i++)
+			{
+				starts.add( new StartTask( component, startSeeds.nextLong(), budget, used, winner, starts));
+			}
+			
+			pool.invokeAll( starts);
+			trials += used.get();
+			
+			for ( StartTask start : starts)
+			{
+				stats.add( start.stats);
+			}
+			
+			best = winner.get();
+			if ( best == null)
+			{
+				for ( StartTask start : starts)
+				{
+					if ( best == null || start.error < best.error)
+						best = start;
+				}
+			}
+			
+			if ( best.error == Double.POSITIVE_INFINITY || ( winner.get() == null && best.error >= bestError))
+				return false;
+			
+			// move the result onto the points of the construct
+			for ( Map.Entry<GeoPoint,GeoPoint> entry : best.points.entrySet())
+			{
+				entry.getKey().setX( entry.getValue().getX());
+				entry.getKey().setY( entry.getValue().getY());
+			}
+			
+			if ( winner.get() != null)
+				return true;
+			
+			keepBest( best.error);
+			return false;
+		}
+	}
+	
+	// one of the concurrent random starts of a part, working on its own copy
+	private class StartTask implements Callable<Boolean> {
+		HashMap<GeoPoint,GeoPoint> points;
+		GeoNumericSolver solver;
+		AtomicInteger budget;
+		AtomicInteger used;
+		AtomicReference<StartTask> winner;
+		ArrayList<StartTask> starts;
+		double error;
+		SolverStats stats;
+		
+		public StartTask ( GeoSubsystem component, long seed, AtomicInteger budget, AtomicInteger used,
+						   AtomicReference<StartTask> winner, ArrayList<StartTask> starts)
+		{
+			this.budget = budget;
+			this.used = used;
+			this.winner = winner;
+			this.starts = starts;
+			
+			points = new HashMap<GeoPoint,GeoPoint>();
+			solver = createSolver( component.copy( points));
+			solver.setRandomSeed( seed);
+			error = Double.POSITIVE_INFINITY;
+			stats = new SolverStats();
+		}
+		
+		@Override
+		public Boolean call ( ) {
+			boolean started = false;
+			SolverStats result;
+			
+			while ( winner.get() == null && budget.getAndDecrement() > 0)
+			{
+				used.incrementAndGet();
+				started = true;
+				
+				result = solver.findSolution( true, true);
+				stats.add( result);
+				
+				// out of time or cancelled, no other start can do better
+				if ( result.getStatus() == SolverStats.STATUS_TIMED_OUT || result.getStatus() == SolverStats.STATUS_CANCELLED)
+					break;
+				
+				if ( result.isSolved())
+				{
+					// the first solution found is kept, the other starts are stopped
+					if ( winner.compareAndSet( null, this))
+					{
+						for ( StartTask start : starts)
+						{
+							if ( start != this)
+								start.solver.cancel();
+						}
+					}
+					break;
+				}
+			}
+			
+			// a start that never ran has nothing to offer
+			if ( started)
+				error = solver.calculateError();
+			
+			return winner.get() == this;
+		}
+	}
+	
+	// creates the numeric solver of a part for the selected solver mode
+	private GeoNumericSolver createSolver ( GeoSubsystem component)
+	{
+		GeoNumericSolver solver;
+		
+		if ( solverMode == GeoNumericSolver.SOLVER_LEVENBERG_MARQUARDT)
+			solver = new GeoLeastSquaresSolver();
+		// the Newton solver finds out whether a part is square from its Jacobian,
+		// and solves the others as GeoNumericSolver would
+		else if ( solverMode == GeoNumericSolver.SOLVER_NEWTON || solverMode == GeoNumericSolver.SOLVER_AUTOMATIC)
+			solver = new GeoNewtonSolver();
+		else
+			solver = new GeoNumericSolver();
+		
+		solver.setSolverMode( solverMode);
+		solver.setHistoryLength( historyLength);
+		solver.setStatsListener( listener);
+		solver.setCancellationToken( token);
+		if ( timeBudget > 0)
+			solver.setDeadline( deadline);
+		solver.addConstraints( component.getConstraints());
+		solver.addObjects( component.getObjects());
 		
-		return solver.calculateError() < 1e-9;
+		return solver;
 	}
 
 }
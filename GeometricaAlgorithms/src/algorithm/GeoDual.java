@@ -0,0 +1,244 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// forward mode automatic differentiation: numbers carrying their derivatives
+// with respect to a fixed set of variables along with their values
+//
+// the numbers live in this workspace and are referred to by their index, so
+// nothing is allocated while evaluating; the workspace only grows when a
+// function needs more numbers or variables than before
+//
+// a function is evaluated by calling reset() with the number of variables, creating
+// the variables and combining them with the operations below; with no variables
+// only the values are computed, so the same code serves for plain evaluation
+public class GeoDual {
+	// one workspace for each thread, since constraints are evaluated concurrently
+	private static final ThreadLocal<GeoDual> workspaces = new ThreadLocal<GeoDual>() {
+		@Override
+		protected GeoDual initialValue ( )
+		{
+			return new GeoDual();
+		}
+	};
+
+	// the number of variables, and the numbers created since the last reset
+	private int width;
+	private int count;
+
+	// the value of each number, and its derivatives one number after the other
+	private double[] values;
+	private double[] derivatives;
+
+	public GeoDual ( )
+	{
+		width = 0;
+		count = 0;
+		values = new double[ 32];
+		derivatives = new double[ 32 * 12];
+	}
+
+	// the workspace of the calling thread, for callers without one of their own;
+	// compiled systems keep theirs
+	public static GeoDual forThread ( )
+	{
+		return workspaces.get();
+	}
+
+	// starts a new function of the given number of variables, forgetting all numbers
+	public void reset ( int width)
+	{
+		this.width = width;
+		count = 0;
+
+		if ( derivatives.length < values.length * width)
+			derivatives = new double[ values.length * width];
+	}
+
+	public int getWidth ( )
+	{
+		return width;
+	}
+
+	// the value of a number
+	public double value ( int a)
+	{
+		return values[a];
+	}
+
+	// writes the derivatives of a number into gradient, one for each variable
+	public void gradient ( int a, double[] gradient)
+	{
+		System.arraycopy( derivatives, a * width, gradient, 0, width);
+	}
+
+	// the variable with the given index; without variables it is a constant
+	public int variable ( double value, int index)
+	{
+		int r = create( value);
+
+		if ( width > 0)
+			derivatives[ r * width + index] = 1;
+		return r;
+	}
+
+	public int constant ( double value)
+	{
+		return create( value);
+	}
+
+	// arithmetic:
+
+	public int add ( int a, int b)
+	{
+		int r = allocate( values[a] + values[b]);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = derivatives[ a * width + i] + derivatives[ b * width + i];
+		}
+		return r;
+	}
+
+	public int subtract ( int a, int b)
+	{
+		int r = allocate( values[a] - values[b]);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = derivatives[ a * width + i] - derivatives[ b * width + i];
+		}
+		return r;
+	}
+
+	public int multiply ( int a, int b)
+	{
+		double va = values[a];
+		double vb = values[b];
+		int r = allocate( va * vb);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = vb * derivatives[ a * width + i] + va * derivatives[ b * width + i];
+		}
+		return r;
+	}
+
+	public int divide ( int a, int b)
+	{
+		double vb = values[b];
+		double q = values[a] / vb;
+		int r = allocate( q);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = ( derivatives[ a * width + i] - q * derivatives[ b * width + i]) / vb;
+		}
+		return r;
+	}
+
+	// a times a constant
+	public int scale ( int a, double factor)
+	{
+		return chain( a, values[a] * factor, factor);
+	}
+
+	// a plus a constant
+	public int shift ( int a, double offset)
+	{
+		int r = allocate( values[a] + offset);
+
+		System.arraycopy( derivatives, a * width, derivatives, r * width, width);
+		return r;
+	}
+
+	// a * d - b * c, the cross product of ( a, b) and ( c, d)
+	public int cross ( int a, int b, int c, int d)
+	{
+		return subtract( multiply( a, d), multiply( b, c));
+	}
+
+	// functions:
+
+	// the derivative is taken as 0 at 0, where there is none
+	public int sqrt ( int a)
+	{
+		double root = Math.sqrt( values[a]);
+		double factor = root == 0 ? 0 : 0.5 / root;
+
+		return chain( a, root, factor);
+	}
+
+	// the length of ( a, b); the derivatives are taken as 0 at the origin, where
+	// the length has no direction
+	public int hypot ( int a, int b)
+	{
+		double va = values[a];
+		double vb = values[b];
+		double length = Math.hypot( va, vb);
+		int r = create( length);
+
+		if ( length == 0)
+			return r;
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = ( va * derivatives[ a * width + i] + vb * derivatives[ b * width + i]) / length;
+		}
+		return r;
+	}
+
+	// the derivative is taken from the positive side at 0
+	public int abs ( int a)
+	{
+		return chain( a, Math.abs( values[a]), values[a] < 0 ? -1 : 1);
+	}
+
+	// the smaller number, with its derivatives
+	public int min ( int a, int b)
+	{
+		return values[a] <= values[b] ? a : b;
+	}
+
+	// a number of the given value whose derivatives are those of a times factor
+	private int chain ( int a, double value, double factor)
+	{
+		int r = allocate( value);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = factor * derivatives[ a * width + i];
+		}
+		return r;
+	}
+
+	// a new number with zero derivatives
+	private int create ( double value)
+	{
+		int r = allocate( value);
+
+		for ( int i = 0; i < width; i++)
+		{
+			derivatives[ r * width + i] = 0;
+		}
+		return r;
+	}
+
+	// a new number whose derivatives are left for the caller to write
+	private int allocate ( double value)
+	{
+		if ( count == values.length)
+		{
+			double[] grown = new double[ 2 * values.length];
+
+			System.arraycopy( values, 0, grown, 0, count);
+			values = grown;
+
+			grown = new double[ values.length * width];
+			System.arraycopy( derivatives, 0, grown, 0, count * width);
+			derivatives = grown;
+		}
+
+		values[ count] = value;
+		return count++;
+	}
+}
@@ -0,0 +1,239 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// holds a floating part of a system in place while it is solved: a part with no
+// fixed points can move and rotate as a whole without changing any constraint,
+// which leaves the solver three directions with no curvature to wander along
+//
+// a reference point is fixed where it is, which takes away the translations,
+// and a second point is bound to the line from it through its current position,
+// which takes away the rotation; every solution of the part can be moved and
+// turned onto one of these, mirrored solutions included. once solved, the part
+// is moved back so that its points are centered where they were before
+public class GeoGaugeFixer {
+	// the part, and the points holding it
+	private GeoSubsystem component;
+	private GeoPoint reference;
+	private GeoPoint direction;
+	// the part with the direction point bound to its line, built by the first
+	// fix() and moved onto the current line by the others
+	private GeoSubsystem held;
+	private GeoLocusPoint locus;
+	private GeoPoint through;
+
+	// the positions of the points before the solution, and their center
+	private double[] positions;
+	private double centerX, centerY;
+	private boolean fixed;
+
+	// chooses the points holding the part, if it is floating
+	public GeoGaugeFixer ( GeoSubsystem component)
+	{
+		this.component = component;
+
+		if ( isFloating( component))
+			choosePoints();
+	}
+
+	// whether the part is floating and has the points to hold it by
+	public boolean isApplicable ( )
+	{
+		return reference != null && direction != null;
+	}
+
+	public GeoPoint getReferencePoint ( )
+	{
+		return reference;
+	}
+
+	public GeoPoint getDirectionPoint ( )
+	{
+		return direction;
+	}
+
+	// fixes the reference point and binds the direction point at their current
+	// positions, returns the part to solve instead; release() must follow
+	// every fix() returns the same part, so its solver can be kept between them,
+	// unless the part diverged, when the part itself is returned
+	public GeoSubsystem fix ( )
+	{
+		double dx, dy;
+
+		saveCenter();
+
+		// a part left diverged by another solution is not held at its points
+		if ( Double.isNaN( centerX) || Double.isNaN( centerY) || Double.isInfinite( centerX) || Double.isInfinite( centerY))
+			return component;
+
+		// the line keeps the current direction of the second point, any one if they coincide
+		dx = direction.getX() - reference.getX();
+		dy = direction.getY() - reference.getY();
+		if ( Math.hypot( dx, dy) < 1e-9)
+		{
+			dx = 1;
+			dy = 0;
+		}
+
+		if ( held == null)
+		{
+			through = new GeoPoint( "#" + direction.getName(), reference.getX() + dx, reference.getY() + dy, true);
+			locus = GeoLocusPoint.createOnLine( direction, reference, through);
+			held = new GeoSubsystem();
+
+			for ( GeoObject o : component.getObjects())
+			{
+				if ( o == direction)
+					held.getObjects().add( locus);
+				else
+					held.getObjects().add( o);
+			}
+			held.getConstraints().addAll( component.getConstraints());
+		}
+		else
+		{
+			through.setX( reference.getX() + dx);
+			through.setY( reference.getY() + dy);
+			locus.setLine( reference, through);
+		}
+
+		reference.setFixed( true);
+		fixed = true;
+
+		return held;
+	}
+
+	// frees the reference point and moves the part back to where it was centered
+	public void release ( )
+	{
+		ArrayList<GeoPoint> points;
+		double x, y;
+
+		if ( !fixed)
+			return;
+
+		reference.setFixed( false);
+		fixed = false;
+
+		points = component.getPoints();
+		x = y = 0;
+		for ( GeoPoint p : points)
+		{
+			x += p.getX();
+			y += p.getY();
+		}
+		x = centerX - x / points.size();
+		y = centerY - y / points.size();
+
+		// a diverged solution would hold the next one at its reference point, start over
+		if ( Double.isNaN( x) || Double.isNaN( y) || Double.isInfinite( x) || Double.isInfinite( y))
+		{
+			component.restorePositions( positions);
+			return;
+		}
+
+		for ( GeoPoint p : points)
+		{
+			p.setX( p.getX() + x);
+			p.setY( p.getY() + y);
+		}
+	}
+
+	private void saveCenter ( )
+	{
+		ArrayList<GeoPoint> points = component.getPoints();
+
+		positions = component.savePositions();
+		centerX = centerY = 0;
+		for ( GeoPoint p : points)
+		{
+			centerX += p.getX();
+			centerY += p.getY();
+		}
+		centerX /= points.size();
+		centerY /= points.size();
+	}
+
+	// the most constrained single point is the reference, and the point sharing
+	// most constraints with it the direction
+	private void choosePoints ( )
+	{
+		HashMap<GeoPoint,Integer> degrees = new HashMap<GeoPoint,Integer>();
+		HashMap<GeoPoint,Integer> shared = new HashMap<GeoPoint,Integer>();
+
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o instanceof GeoPoint && o.getNumParameters() == 2)
+				degrees.put( ( GeoPoint) o, 0);
+		}
+
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( degrees.containsKey( p))
+					degrees.put( p, degrees.get( p) + 1);
+			}
+		}
+
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( degrees.containsKey( o) && ( reference == null || degrees.get( o) > degrees.get( reference)))
+				reference = ( GeoPoint) o;
+		}
+
+		if ( reference == null)
+			return;
+
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			if ( !c.involvesPoint( reference))
+				continue;
+
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( p != reference && degrees.containsKey( p))
+					shared.put( p, shared.containsKey( p) ? shared.get( p) + 1 : 1);
+			}
+		}
+
+		// any other single point holds the rotation as well
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o != reference && degrees.containsKey( o) &&
+				 ( direction == null || count( shared, ( GeoPoint) o) > count( shared, direction)))
+				direction = ( GeoPoint) o;
+		}
+	}
+
+	private static int count ( HashMap<GeoPoint,Integer> counts, GeoPoint p)
+	{
+		Integer count = counts.get( p);
+
+		return count == null ? 0 : count;
+	}
+
+	// whether nothing holds the part in place: no fixed points, and no points
+	// bound to fixed circles or lines
+	static boolean isFloating ( GeoSubsystem component)
+	{
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o instanceof GeoLocusPoint)
+				return false;
+		}
+
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( p.isFixed())
+					return false;
+			}
+		}
+
+		return true;
+	}
+}
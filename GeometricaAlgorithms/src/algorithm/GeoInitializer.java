@@ -0,0 +1,219 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+
+// chooses random starting parameters for a system, in a box sized after what
+// its constraints tell about it instead of a fixed one:
+// - a typical length is taken from the given distances and areas
+// - the box grows with the number of points, so a figure of that scale fits
+// - fixed points are inside the box, which is centered on them
+// rotations are sampled from [0, 2 pi) and scales so that rigid objects come
+// out about the typical length in size; rigid shapes that may be mirrored are
+// mirrored half of the time
+public class GeoInitializer {
+	// the side of the box when nothing tells the size of the system
+	static final double defaultSide = 500;
+
+	private Random random;
+
+	// the sampling box
+	private double centerX, centerY;
+	private double side;
+
+	// a typical distance between points, 0 if unknown
+	private double length;
+
+	public GeoInitializer ( Random random)
+	{
+		this.random = random;
+
+		side = defaultSide;
+		centerX = centerY = defaultSide / 2;
+		length = 0;
+	}
+
+	// getters
+	public double getCenterX ( )
+	{
+		return centerX;
+	}
+
+	public double getCenterY ( )
+	{
+		return centerY;
+	}
+
+	public double getSide ( )
+	{
+		return side;
+	}
+
+	public double getLength ( )
+	{
+		return length;
+	}
+
+	// sizes the sampling box for a system
+	public void measure ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
+		ArrayList<Double> lengths = new ArrayList<Double>();
+		HashSet<GeoPoint> fixed = new HashSet<GeoPoint>();
+		int pointCount = 0;
+
+		for ( GeoConstraint c : constraints)
+		{
+			switch ( c.getType())
+			{
+			case GeoConstraint.C_P2P_DISTANCE:
+			case GeoConstraint.C_POINT_TO_LINE_DISTANCE:
+				if ( c.getValue() > 0)
+					lengths.add( c.getValue());
+				break;
+			case GeoConstraint.C_TRIANGULAR_AREA:
+				// the legs of a right triangle of that area
+				if ( c.getValue() != 0)
+					lengths.add( Math.sqrt( 2 * Math.abs( c.getValue())));
+				break;
+			}
+
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( p.isFixed())
+					fixed.add( p);
+			}
+		}
+
+		for ( GeoObject o : objects)
+		{
+			if ( o instanceof GeoCompoundObject)
+			{
+				pointCount += ( ( GeoCompoundObject) o).getPoints().size();
+
+				// the size of a rigid object which cannot be scaled is given
+				if ( o instanceof GeoRigidObject && !( ( GeoRigidObject) o).isScaleable())
+					lengths.add( ( ( GeoRigidObject) o).getShapeSize());
+			}
+			else
+				pointCount++;
+		}
+
+		// the median, so that a single long or short distance does not decide
+		if ( lengths.isEmpty())
+		{
+			length = 0;
+			side = defaultSide;
+		}
+		else
+		{
+			Collections.sort( lengths);
+			length = lengths.get( lengths.size() / 2);
+			side = length * Math.max( 1, Math.min( pointCount, 4 * Math.sqrt( pointCount)));
+		}
+
+		if ( fixed.isEmpty())
+		{
+			centerX = centerY = side / 2;
+			return;
+		}
+
+		double minX, minY, maxX, maxY;
+
+		minX = minY = Double.POSITIVE_INFINITY;
+		maxX = maxY = Double.NEGATIVE_INFINITY;
+		for ( GeoPoint p : fixed)
+		{
+			minX = Math.min( minX, p.getX());
+			minY = Math.min( minY, p.getY());
+			maxX = Math.max( maxX, p.getX());
+			maxY = Math.max( maxY, p.getY());
+		}
+
+		centerX = ( minX + maxX) / 2;
+		centerY = ( minY + maxY) / 2;
+		side = Math.max( side, Math.max( maxX - minX, maxY - minY));
+	}
+
+	// fills the parameters of the objects, in order from the start of parameters
+	public void initialize ( ArrayList<GeoObject> objects, double[] parameters)
+	{
+		int offset = 0;
+
+		for ( GeoObject o : objects)
+		{
+			// fixed points have no parameters in the pool
+			if ( o.getNumParameters() == 0)
+				continue;
+
+			if ( o instanceof GeoLocusPoint)
+			{
+				GeoLocusPoint locus = ( GeoLocusPoint) o;
+
+				if ( locus.isCircular())
+					parameters[offset] = random.nextDouble() * 2 * Math.PI * locus.getRadius();
+				else
+				{
+					// the projection of a point of the box onto the line
+					double x = sampleX() - locus.getOriginX();
+					double y = sampleY() - locus.getOriginY();
+
+					parameters[offset] = x * locus.getDirectionX() + y * locus.getDirectionY();
+				}
+			}
+			else if ( o instanceof GeoRigidObject)
+			{
+				GeoRigidObject rigid = ( GeoRigidObject) o;
+
+				parameters[offset] = sampleX();
+				parameters[offset + 1] = sampleY();
+				parameters[offset + 2] = random.nextDouble() * 2 * Math.PI;
+
+				// a shape without symmetry may be either way round
+				if ( rigid.isMirrorable() && random.nextBoolean())
+					rigid.mirror();
+
+				// scales are given in percent
+				if ( rigid.isScaleable())
+					parameters[offset + 3] = 100 * ( 0.5 + random.nextDouble()) * typicalLength() / rigid.getShapeSize();
+			}
+			else if ( o instanceof GeoPoint)
+			{
+				for ( int i = 0; i < o.getNumParameters(); i++)
+				{
+					parameters[offset + i] = i == 0 ? sampleX() : sampleY();
+				}
+			}
+			else
+			{
+				for ( int i = 0; i < o.getNumParameters(); i++)
+				{
+					parameters[offset + i] = random.nextDouble() * side;
+				}
+			}
+
+			offset += o.getNumParameters();
+		}
+	}
+
+	private double sampleX ( )
+	{
+		return centerX + ( random.nextDouble() - 0.5) * side;
+	}
+
+	private double sampleY ( )
+	{
+		return centerY + ( random.nextDouble() - 0.5) * side;
+	}
+
+	// the size to give objects of unknown size
+	private double typicalLength ( )
+	{
+		if ( length > 0)
+			return length;
+
+		return defaultSide / 5;
+	}
+}
@@ -1,6 +1,7 @@
 package algorithm;
 // Created: 26.94.2015, Ali Batuhan Yardm
 
+import java.util.HashMap;
 import java.util.Scanner;
 
 // a class to read and convert script strings into appropriate constraints
@@ -18,6 +19,9 @@ public class GeoInterpreter {
 	// output of the interpreter, for errors
 	private ScriptErrorList errors;
 	
+	// the line each constraint was read from
+	private HashMap<GeoConstraint,Integer> constraintLines;
+	
 	////// related to the language specifications:
 	
 	// language tokens
@@ -40,6 +44,7 @@ public class GeoInterpreter {
 		this.script = script;
 		
 		errors = new ScriptErrorList();
+		constraintLines = new HashMap<GeoConstraint,Integer>();
 		construct = new GeoConstruct();
 		construct.setScript( script);
 	}
@@ -63,6 +68,13 @@ public class GeoInterpreter {
 		return errors;
 	}
 	
+	// the line of the script each constraint comes from, so that errors
+	// found while solving can be shown on it
+	public HashMap<GeoConstraint,Integer> getConstraintLines ( )
+	{
+		return constraintLines;
+	}
+	
 	// run the interpreter
 	public void interpretString ()
 	{
@@ -80,8 +92,15 @@ public class GeoInterpreter {
 		// read until we reach end of the string
 		while ( scan.hasNext())
 		{
+			int constraintCount = construct.getConstraints().size();
+			
 			curLine++;
 			processLine( scan.nextLine());
+			
+			for ( int i = constraintCount; i < construct.getConstraints().size(); i++)
+			{
+				constraintLines.put( construct.getConstraints().get( i), curLine);
+			}
 		}
 		
 		scan.close();
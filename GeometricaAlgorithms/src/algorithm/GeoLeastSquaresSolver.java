@@ -0,0 +1,438 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// numerical solver for the constraints of a system, treating it as a
+// least squares problem on the signed residual of each constraint
+// using the Levenberg-Marquardt algorithm with a sparse Jacobian
+//
+// each step solves ( J^T J + lambda * D) delta = -J^T r with preconditioned
+// conjugate gradients, so the Jacobian is never multiplied out into a dense matrix
+public class GeoLeastSquaresSolver extends GeoNumericSolver {
+
+	// constants of the algorithm
+	final double initialDamping		= 1e-3;
+	final double minimumDiagonal	= 1e-12;
+	final int maxEvaluations		= 2000;
+
+	// the Jacobian in compressed row form, one row for each constraint:
+	// the entries of row i are at rowStart[i] ... rowStart[i + 1] - 1
+	private int[] rowStart;
+	private int[] columns;
+	private double[] values;
+	// the same arrays as a matrix, rebuilt with them
+	private SparseMatrix jacobian;
+
+	// the residuals at the current parameters
+	double[] residuals;
+
+	// scratch memory of the current solution
+	SolverWorkspace work;
+
+	public GeoLeastSquaresSolver ( )
+	{
+		super();
+	}
+
+	// the solution process, see GeoNumericSolver.findSolution()
+	@Override
+	boolean solve ( boolean fine, boolean randomize)
+	{
+		double[] x;
+		double[] xold;
+		double[] gradient;
+		double[] diagonal;
+		double[] delta;
+
+		double f, fnew;
+		double lambda;
+		double nu;
+		double convergence;
+		int n;
+
+		prepare( randomize);
+
+		x = parameterPool;
+		n = parameterCount;
+		ftimes = 0;
+		work = getWorkspace();
+
+		if ( fine)
+			convergence = XconvergenceFine;
+		else
+			convergence = XconvergenceRough;
+
+		work.ensureVectors( n);
+		work.ensureConstraints( constraints.size());
+		
+		xold = work.previous;
+		gradient = work.gradient;
+		diagonal = work.diagonal;
+		delta = work.step;
+
+		f = calculateResiduals();
+		lambda = initialDamping;
+		nu = 2;
+
+		while ( f > smallF && ftimes < maxEvaluations && !stopRequested())
+		{
+			iterations++;
+			calculateJacobian();
+
+			// gradient of half the error J^T r and the diagonal of J^T J
+			for ( int i = 0; i < n; i++)
+			{
+				gradient[i] = 0;
+				diagonal[i] = 0;
+			}
+
+			for ( int row = 0; row < residuals.length; row++)
+			{
+				for ( int k = rowStart[row]; k < rowStart[row + 1]; k++)
+				{
+					gradient[ columns[k]] += values[k] * residuals[row];
+					diagonal[ columns[k]] += values[k] * values[k];
+				}
+			}
+
+			for ( int i = 0; i < n; i++)
+			{
+				diagonal[i] = Math.max( diagonal[i], minimumDiagonal);
+			}
+
+			solveDampedSystem( gradient, diagonal, lambda, delta, n);
+
+			// try the step
+			double stepNorm = 0;
+			double xNorm = 0;
+			for ( int i = 0; i < n; i++)
+			{
+				xold[i] = x[i];
+				x[i] += delta[i];
+				stepNorm += delta[i] * delta[i];
+				xNorm += xold[i] * xold[i];
+			}
+			stepNorm = Math.sqrt( stepNorm);
+			xNorm = Math.sqrt( xNorm);
+
+			// the reduction predicted by the linear model, |r|^2 - |r + J delta|^2
+			double predicted = predictedReduction( gradient, delta, n);
+
+			fnew = calculateResiduals();
+
+			double gain = ( f - fnew) / predicted;
+
+			if ( fnew < f && gain > 0)
+			{
+				// accepted, trust the linear model more
+				f = fnew;
+				lambda *= Math.max( 1.0 / 3, 1 - Math.pow( 2 * gain - 1, 3));
+				nu = 2;
+			}
+			else
+			{
+				// rejected, restore the parameters and damp the step more
+				for ( int i = 0; i < n; i++)
+				{
+					x[i] = xold[i];
+				}
+				calculateResiduals();
+
+				lambda *= nu;
+				nu *= 2;
+			}
+
+			if ( stepNorm <= convergence * ( xNorm + convergence) || lambda > 1e16)
+				break;
+		}
+
+		updatePoints();
+		finalError = f;
+
+		return f < validSolution;
+	}
+
+	// evaluates the Jacobian at random parameters without solving, the points are not moved
+	void sampleJacobian ( )
+	{
+		prepare( true);
+		
+		work = getWorkspace();
+		work.ensureVectors( parameterCount);
+		
+		calculateResiduals();
+		calculateJacobian();
+	}
+	
+	// the Jacobian of the last solution or sample, in compressed row form
+	int[] getJacobianRows ( )
+	{
+		return rowStart;
+	}
+	
+	int[] getJacobianColumns ( )
+	{
+		return columns;
+	}
+	
+	double[] getJacobianValues ( )
+	{
+		return values;
+	}
+	
+	SparseMatrix getJacobian ( )
+	{
+		return jacobian;
+	}
+	
+	// whether the system has as many residuals, the rows of the Jacobian, as
+	// parameters; valid once the structure of a solution was built
+	boolean isSquare ( )
+	{
+		return parameterCount > 0 && rowStart.length - 1 == parameterCount;
+	}
+	
+	// the Jacobian follows the layout of the parameters
+	@Override
+	void buildStructure ( )
+	{
+		super.buildStructure();
+		buildJacobianStructure();
+	}
+	
+	// determines the parameter columns touched by each constraint
+	private void buildJacobianStructure ( )
+	{
+		int[] marks;
+		int count;
+
+		residuals = new double[ constraints.size()];
+		rowStart = new int[ constraints.size() + 1];
+		marks = new int[ parameterCount];
+
+		// first count the entries of each row
+		count = 0;
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			rowStart[i] = count;
+
+			for ( int j = 0; j < pointOwners[i].length; j++)
+			{
+				if ( pointOffsets[i][j] < 0)
+					continue;
+
+				for ( int k = 0; k < pointOwners[i][j].getNumParameters(); k++)
+				{
+					if ( marks[ pointOffsets[i][j] + k] != i + 1)
+					{
+						marks[ pointOffsets[i][j] + k] = i + 1;
+						count++;
+					}
+				}
+			}
+		}
+		rowStart[ constraints.size()] = count;
+
+		columns = new int[ count];
+		values = new double[ count];
+
+		// then fill in the column indices
+		for ( int i = 0; i < marks.length; i++)
+		{
+			marks[i] = 0;
+		}
+
+		count = 0;
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			for ( int j = 0; j < pointOwners[i].length; j++)
+			{
+				if ( pointOffsets[i][j] < 0)
+					continue;
+
+				for ( int k = 0; k < pointOwners[i][j].getNumParameters(); k++)
+				{
+					if ( marks[ pointOffsets[i][j] + k] != i + 1)
+					{
+						marks[ pointOffsets[i][j] + k] = i + 1;
+						columns[ count++] = pointOffsets[i][j] + k;
+					}
+				}
+			}
+		}
+		
+		jacobian = new SparseMatrix( constraints.size(), parameterCount, rowStart, columns, values);
+	}
+
+	// evaluates the residuals of all constraints at the current parameters
+	// returns the total error, the sum of the squared residuals
+	double calculateResiduals ( )
+	{
+		double err;
+
+		ftimes++;
+		compiled.updateDerived( parameterPool);
+
+		compiled.calculateResiduals( parameterPool, residuals);
+		
+		err = 0;
+		for ( int i = 0; i < residuals.length; i++)
+		{
+			err += residuals[i] * residuals[i];
+		}
+
+		return err;
+	}
+
+	// fills the values of the Jacobian at the current parameters
+	void calculateJacobian ( )
+	{
+		double[] row;
+
+		// a dense row, only the columns of the current constraint are ever nonzero
+		row = work.row;
+		for ( int i = 0; i < parameterCount; i++)
+		{
+			row[i] = 0;
+		}
+
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			compiled.calculateResidualGradient( i, parameterPool, pointGradient);
+
+			for ( int j = 0; j < pointOwners[i].length; j++)
+			{
+				if ( pointOffsets[i][j] >= 0)
+				{
+					pointOwners[i][j].addPointGradient( pointIndices[i][j], pointGradient[2 * j], pointGradient[2 * j + 1],
+														parameterPool, row, pointOffsets[i][j]);
+				}
+			}
+
+			// gather the row and clear it for the next constraint
+			for ( int k = rowStart[i]; k < rowStart[i + 1]; k++)
+			{
+				values[k] = row[ columns[k]];
+				row[ columns[k]] = 0;
+
+				// degenerate configurations, such as coinciding points
+				if ( Double.isNaN( values[k]) || Double.isInfinite( values[k]))
+					values[k] = 0;
+			}
+		}
+	}
+
+	// result = J^T J v + lambda * diag( J^T J) v
+	private void multiplyDamped ( double[] v, double[] diagonal, double lambda, double[] rowProducts, double[] result, int n)
+	{
+		for ( int i = 0; i < n; i++)
+		{
+			result[i] = lambda * diagonal[i] * v[i];
+		}
+
+		for ( int row = 0; row < residuals.length; row++)
+		{
+			double sum = 0;
+			for ( int k = rowStart[row]; k < rowStart[row + 1]; k++)
+			{
+				sum += values[k] * v[ columns[k]];
+			}
+			rowProducts[row] = sum;
+		}
+
+		for ( int row = 0; row < residuals.length; row++)
+		{
+			for ( int k = rowStart[row]; k < rowStart[row + 1]; k++)
+			{
+				result[ columns[k]] += values[k] * rowProducts[row];
+			}
+		}
+	}
+
+	// solves ( J^T J + lambda * D) delta = -gradient with Jacobi preconditioned conjugate gradients
+	private void solveDampedSystem ( double[] gradient, double[] diagonal, double lambda, double[] delta, int n)
+	{
+		double[] r = work.residual;
+		double[] z = work.preconditioned;
+		double[] p = work.conjugate;
+		double[] ap = work.product;
+		double[] rowProducts = work.rowProducts;
+		double rz, rzNew;
+		double tolerance;
+
+		rz = 0;
+		tolerance = 0;
+		for ( int i = 0; i < n; i++)
+		{
+			delta[i] = 0;
+			r[i] = -gradient[i];
+			z[i] = r[i] / ( ( 1 + lambda) * diagonal[i]);
+			p[i] = z[i];
+			rz += r[i] * z[i];
+			tolerance += r[i] * r[i];
+		}
+		tolerance *= 1e-20;
+
+		for ( int iteration = 0; iteration < 2 * n + 10; iteration++)
+		{
+			double rr = 0;
+			for ( int i = 0; i < n; i++)
+			{
+				rr += r[i] * r[i];
+			}
+			if ( rr <= tolerance || rz == 0)
+				break;
+
+			multiplyDamped( p, diagonal, lambda, rowProducts, ap, n);
+
+			double pap = 0;
+			for ( int i = 0; i < n; i++)
+			{
+				pap += p[i] * ap[i];
+			}
+			if ( pap <= 0)
+				break;
+
+			double alpha = rz / pap;
+			rzNew = 0;
+			for ( int i = 0; i < n; i++)
+			{
+				delta[i] += alpha * p[i];
+				r[i] -= alpha * ap[i];
+				z[i] = r[i] / ( ( 1 + lambda) * diagonal[i]);
+				rzNew += r[i] * z[i];
+			}
+
+			double beta = rzNew / rz;
+			rz = rzNew;
+			for ( int i = 0; i < n; i++)
+			{
+				p[i] = z[i] + beta * p[i];
+			}
+		}
+	}
+
+	// the decrease of the error predicted by the linearization for a step delta
+	// |r|^2 - |r + J delta|^2 = -2 g . delta - |J delta|^2
+	private double predictedReduction ( double[] gradient, double[] delta, int n)
+	{
+		double gd = 0;
+		double jd = 0;
+
+		for ( int i = 0; i < n; i++)
+		{
+			gd += gradient[i] * delta[i];
+		}
+
+		for ( int row = 0; row < residuals.length; row++)
+		{
+			double sum = 0;
+			for ( int k = rowStart[row]; k < rowStart[row + 1]; k++)
+			{
+				sum += values[k] * delta[ columns[k]];
+			}
+			jd += sum * sum;
+		}
+
+		return -2 * gd - jd;
+	}
+}
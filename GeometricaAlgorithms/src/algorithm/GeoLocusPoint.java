@@ -0,0 +1,193 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+
+// a point bound to a circle around a fixed point or to a line through two fixed
+// points, which leaves it a single parameter: its distance along the circle or
+// the line, from the rightmost point of the circle or the first point of the line
+// being a length like the coordinates of the other points, it keeps the solver
+// well scaled
+public class GeoLocusPoint extends GeoCompoundObject {
+	// whether the point is on a circle, otherwise it is on a line
+	private boolean circular;
+	
+	// the center of the circle or the first point of the line
+	private double originX, originY;
+	// the radius of the circle
+	private double radius;
+	// the unit direction of the line
+	private double directionX, directionY;
+	
+	private GeoLocusPoint ( String name)
+	{
+		super( name, "locus");
+	}
+	
+	// the point p at a distance from a fixed center
+	public static GeoLocusPoint createOnCircle ( GeoPoint p, GeoPoint center, double radius)
+	{
+		GeoLocusPoint locus = new GeoLocusPoint( p.getName());
+		
+		locus.circular = true;
+		locus.originX = center.getX();
+		locus.originY = center.getY();
+		locus.radius = radius;
+		locus.addPoint( p);
+		
+		return locus;
+	}
+	
+	// the point p on the line through two fixed points, null if they coincide
+	public static GeoLocusPoint createOnLine ( GeoPoint p, GeoPoint lp1, GeoPoint lp2)
+	{
+		GeoLocusPoint locus = new GeoLocusPoint( p.getName());
+		
+		if ( !locus.setLine( lp1, lp2))
+			return null;
+		locus.addPoint( p);
+		
+		return locus;
+	}
+	
+	// moves the point onto the line through two other fixed points
+	// returns false and leaves the point where it was if they coincide
+	boolean setLine ( GeoPoint lp1, GeoPoint lp2)
+	{
+		double dx = lp2.getX() - lp1.getX();
+		double dy = lp2.getY() - lp1.getY();
+		double length = Math.hypot( dx, dy);
+		
+		if ( length < 1e-9)
+			return false;
+		
+		circular = false;
+		originX = lp1.getX();
+		originY = lp1.getY();
+		directionX = dx / length;
+		directionY = dy / length;
+		
+		return true;
+	}
+	
+	// getters
+	public GeoPoint getPoint ( )
+	{
+		return points.get( 0);
+	}
+	
+	public boolean isCircular ( )
+	{
+		return circular;
+	}
+	
+	double getOriginX ( )
+	{
+		return originX;
+	}
+	
+	double getOriginY ( )
+	{
+		return originY;
+	}
+	
+	double getRadius ( )
+	{
+		return radius;
+	}
+	
+	double getDirectionX ( )
+	{
+		return directionX;
+	}
+	
+	double getDirectionY ( )
+	{
+		return directionY;
+	}
+	
+	@Override
+	public int getNumParameters ( )
+	{
+		return 1;
+	}
+	
+	@Override
+	public void updateParameters ( double[] source, int startOffset)
+	{
+		double[] position = new double[2];
+		
+		placePoints( source, startOffset, position, 0);
+		getPoint().setX( position[0]);
+		getPoint().setY( position[1]);
+	}
+	
+	@Override
+	public void placePoints ( double[] source, int startOffset, double[] target, int targetOffset)
+	{
+		double t = source[startOffset];
+		
+		if ( circular)
+		{
+			if ( radius > 0)
+			{
+				target[targetOffset] = originX + radius * Math.cos( t / radius);
+				target[targetOffset + 1] = originY + radius * Math.sin( t / radius);
+			}
+			else
+			{
+				target[targetOffset] = originX;
+				target[targetOffset + 1] = originY;
+			}
+		}
+		else
+		{
+			target[targetOffset] = originX + t * directionX;
+			target[targetOffset + 1] = originY + t * directionY;
+		}
+	}
+	
+	@Override
+	public void addPointGradient ( int pointIndex, double gx, double gy,
+								   double[] source, double[] gradient, int startOffset)
+	{
+		double t = source[startOffset];
+		
+		if ( circular)
+		{
+			if ( radius > 0)
+				gradient[startOffset] += -gx * Math.sin( t / radius) + gy * Math.cos( t / radius);
+		}
+		else
+			gradient[startOffset] += gx * directionX + gy * directionY;
+	}
+	
+	// the parameter closest to the current position of the point
+	@Override
+	public double[] getParameters ( )
+	{
+		double dx = getPoint().getX() - originX;
+		double dy = getPoint().getY() - originY;
+		
+		if ( circular)
+			return new double[] { radius * Math.atan2( dy, dx)};
+		
+		return new double[] { dx * directionX + dy * directionY};
+	}
+	
+	@Override
+	public GeoLocusPoint copyOnto ( ArrayList<GeoPoint> points)
+	{
+		GeoLocusPoint locus = new GeoLocusPoint( name);
+		
+		locus.circular = circular;
+		locus.originX = originX;
+		locus.originY = originY;
+		locus.radius = radius;
+		locus.directionX = directionX;
+		locus.directionY = directionY;
+		locus.addPoint( points.get( 0));
+		
+		return locus;
+	}
+}
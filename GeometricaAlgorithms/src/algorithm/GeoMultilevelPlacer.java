@@ -0,0 +1,540 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// places the points of a large part roughly where a solution has them, level by
+// level from coarse to fine, so that the solver of the part starts from a figure
+// of the right extent instead of random positions, which for thousands of points
+// it almost never untangles
+//
+// the points are merged into groups along the constraints between them, two
+// groups at a time, preferring the pairs sharing the most constraints; the
+// groups are merged again into the next level, until only a few are left
+//
+// each level is drawn with a point for every group and a distance between
+// groups sharing a constraint, and also between groups two steps apart, which
+// keeps the drawing from folding over: the length of a constraint is its
+// distance if it sets one and a typical length otherwise, and groups are taken
+// as round patches of their points. the coarsest level is drawn from random
+// positions, every level below from its groups placed around the ones they were
+// merged into; the points finally start around their smallest groups
+public class GeoMultilevelPlacer {
+	// an error below this is considered met
+	static final double tolerance = 1e-9;
+	// smaller parts are solved as a whole
+	static final int minPoints = 100;
+	// the merging stops at this many groups, or when a level keeps more than
+	// this part of the groups of the one below
+	static final int coarsestGroups = 8;
+	static final double minReduction = 0.8;
+	// the drawings of the coarsest level, from random positions
+	static final int coarseTrials = 4;
+	// how far around their group the groups of the next level are placed, in
+	// their typical lengths
+	static final double spread = 0.5;
+
+	private Random random;
+
+	// passed on to the solvers of the levels
+	private CancellationToken token;
+	private long deadline;
+	private boolean hasDeadline;
+	private boolean stopped;
+
+	// the free points of the part and their indices, and the indices of the free
+	// points of each constraint
+	private ArrayList<GeoPoint> points;
+	private HashMap<GeoPoint,Integer> indices;
+	private int[][] constraintPoints;
+
+	// the length between every two points sharing a constraint, and the typical
+	// length of the part
+	private HashMap<Long,Double> lengths;
+	private double typicalLength;
+
+	// the group of every point on each level, and the number of groups there;
+	// on level 0 every point is a group of its own
+	private ArrayList<int[]> owners;
+	private ArrayList<Integer> groupCounts;
+
+	// all drawings of the last placement together
+	private SolverStats stats;
+
+	public GeoMultilevelPlacer ( long seed)
+	{
+		random = new Random( seed);
+
+		owners = new ArrayList<int[]>();
+		groupCounts = new ArrayList<Integer>();
+		stats = new SolverStats();
+	}
+
+	// getters/setters:
+
+	public void setCancellationToken ( CancellationToken token)
+	{
+		this.token = token;
+	}
+
+	// the System.nanoTime() at which the drawings of the levels stop
+	public void setDeadline ( long deadline)
+	{
+		this.deadline = deadline;
+		hasDeadline = true;
+	}
+
+	// the number of levels of the last placement, the single points included
+	public int getLevelCount ( )
+	{
+		return owners.size();
+	}
+
+	// the number of groups on a level
+	public int getGroupCount ( int level)
+	{
+		return groupCounts.get( level);
+	}
+
+	// whether a part is large enough to be placed level by level, and has only
+	// single points, which the levels can group
+	public static boolean isApplicable ( GeoSubsystem component)
+	{
+		int count = 0;
+
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( !( o instanceof GeoPoint))
+				return false;
+
+			if ( o.getNumParameters() == 2)
+				count++;
+		}
+
+		return count >= minPoints;
+	}
+
+	// moves the free points of the part to where the levels place them, which
+	// need not meet its constraints; returns the statistics of the drawings,
+	// timed out or cancelled if they were stopped, the points are then left as
+	// they were
+	public SolverStats place ( GeoSubsystem component)
+	{
+		double[] positions = null;
+		int top;
+
+		stats = new SolverStats();
+		stopped = false;
+		index( component);
+		measure( component);
+		coarsen();
+
+		top = owners.size() - 1;
+		for ( int level = top; level >= 0 && !stopped; level--)
+		{
+			positions = draw( level, level == top ? null : positions);
+		}
+
+		if ( stopped)
+			return stats;
+
+		for ( int p = 0; p < points.size(); p++)
+		{
+			points.get( p).setX( positions[2 * p]);
+			points.get( p).setY( positions[2 * p + 1]);
+		}
+
+		stats.setStatus( SolverStats.STATUS_SOLVED);
+		return stats;
+	}
+
+	// numbers the free points, and finds those of each constraint
+	private void index ( GeoSubsystem component)
+	{
+		ArrayList<GeoConstraint> constraints = component.getConstraints();
+
+		points = new ArrayList<GeoPoint>();
+		indices = new HashMap<GeoPoint,Integer>();
+
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o.getNumParameters() == 2)
+			{
+				indices.put( ( GeoPoint) o, points.size());
+				points.add( ( GeoPoint) o);
+			}
+		}
+
+		constraintPoints = new int[ constraints.size()][];
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			ArrayList<Integer> free = new ArrayList<Integer>();
+
+			for ( GeoPoint p : constraints.get( i).getPoints())
+			{
+				Integer index = indices.get( p);
+
+				if ( index != null && !free.contains( index))
+					free.add( index);
+			}
+
+			constraintPoints[i] = new int[ free.size()];
+			for ( int j = 0; j < free.size(); j++)
+			{
+				constraintPoints[i][j] = free.get( j);
+			}
+		}
+	}
+
+	// the lengths between the points of each constraint, the distance it sets if
+	// it sets one and the typical length of the part otherwise
+	private void measure ( GeoSubsystem component)
+	{
+		ArrayList<GeoConstraint> constraints = component.getConstraints();
+		GeoInitializer initializer = new GeoInitializer( random);
+
+		initializer.measure( component.getObjects(), constraints);
+		typicalLength = initializer.getLength();
+		if ( !( typicalLength > 0))
+			typicalLength = initializer.getSide() / Math.sqrt( points.size());
+
+		lengths = new HashMap<Long,Double>();
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			GeoConstraint c = constraints.get( i);
+			int[] free = constraintPoints[i];
+
+			for ( int a = 0; a < free.length; a++)
+			{
+				for ( int b = a + 1; b < free.length; b++)
+				{
+					long key = key( free[a], free[b], points.size());
+
+					if ( c.getType() == GeoConstraint.C_P2P_DISTANCE && c.getValue() > 0)
+						lengths.put( key, c.getValue());
+					else if ( !lengths.containsKey( key))
+						lengths.put( key, typicalLength);
+				}
+			}
+		}
+	}
+
+	// merges the groups level by level, each with the neighbor it shares the most
+	// constraints with, the smaller one if there are several
+	private void coarsen ( )
+	{
+		int[] identity = new int[ points.size()];
+
+		for ( int i = 0; i < identity.length; i++)
+		{
+			identity[i] = i;
+		}
+
+		owners.clear();
+		groupCounts.clear();
+		owners.add( identity);
+		groupCounts.add( points.size());
+
+		while ( groupCounts.get( groupCounts.size() - 1) > coarsestGroups)
+		{
+			int[] below = owners.get( owners.size() - 1);
+			int count = groupCounts.get( groupCounts.size() - 1);
+			ArrayList<HashMap<Integer,Integer>> shared = sharedConstraints( below, count);
+			int[] sizes = groupSizes( owners.size() - 1);
+			int[] parents = new int[ count];
+			int[] above = new int[ points.size()];
+			ArrayList<Integer> order = new ArrayList<Integer>();
+			int merged = 0;
+
+			for ( int g = 0; g < count; g++)
+			{
+				parents[g] = -1;
+				order.add( g);
+			}
+			Collections.shuffle( order, random);
+
+			for ( int g : order)
+			{
+				int partner = -1;
+
+				if ( parents[g] >= 0)
+					continue;
+
+				for ( Map.Entry<Integer,Integer> entry : shared.get( g).entrySet())
+				{
+					int h = entry.getKey();
+					int shares = entry.getValue();
+
+					if ( parents[h] >= 0)
+						continue;
+
+					if ( partner < 0 || shares > shared.get( g).get( partner) ||
+						 ( shares == shared.get( g).get( partner) && sizes[h] < sizes[ partner]))
+						partner = h;
+				}
+
+				parents[g] = merged;
+				if ( partner >= 0)
+					parents[ partner] = merged;
+				merged++;
+			}
+
+			// groups with no constraint between them are not merged any further
+			if ( merged > minReduction * count)
+				break;
+
+			for ( int p = 0; p < below.length; p++)
+			{
+				above[p] = parents[ below[p]];
+			}
+
+			owners.add( above);
+			groupCounts.add( merged);
+		}
+	}
+
+	// the number of constraints between every two groups of a level
+	private ArrayList<HashMap<Integer,Integer>> sharedConstraints ( int[] owner, int count)
+	{
+		ArrayList<HashMap<Integer,Integer>> shared = new ArrayList<HashMap<Integer,Integer>>();
+
+		for ( int g = 0; g < count; g++)
+		{
+			shared.add( new HashMap<Integer,Integer>());
+		}
+
+		for ( int[] free : constraintPoints)
+		{
+			for ( int a = 0; a < free.length; a++)
+			{
+				for ( int b = 0; b < free.length; b++)
+				{
+					int g = owner[ free[a]];
+					int h = owner[ free[b]];
+					Integer shares;
+
+					if ( g == h)
+						continue;
+
+					shares = shared.get( g).get( h);
+					shared.get( g).put( h, shares == null ? 1 : shares + 1);
+				}
+			}
+		}
+
+		return shared;
+	}
+
+	// the number of points of each group of a level
+	private int[] groupSizes ( int level)
+	{
+		int[] sizes = new int[ groupCounts.get( level)];
+
+		for ( int g : owners.get( level))
+		{
+			sizes[g]++;
+		}
+
+		return sizes;
+	}
+
+	// the typical length of a group, taken as a round patch of its points
+	private double groupLength ( int size)
+	{
+		return typicalLength * Math.sqrt( size);
+	}
+
+	// draws the groups of a level, from around the positions of the groups of the
+	// level above, or from random positions if there are none
+	// returns the positions of the groups, x and y in turn
+	private double[] draw ( int level, double[] above)
+	{
+		int count = groupCounts.get( level);
+		int[] sizes = groupSizes( level);
+		HashMap<Long,Double> targets = targets( level, sizes);
+		ArrayList<GeoObject> objects = new ArrayList<GeoObject>();
+		ArrayList<GeoConstraint> constraints = new ArrayList<GeoConstraint>();
+		GeoNumericSolver solver;
+		double[] start;
+		double[] best;
+		double bestError;
+		int trials;
+
+		start = above == null ? null : prolong( level, sizes, above);
+		if ( targets.isEmpty())
+			return start == null ? new double[ 2 * count] : start;
+
+		for ( int g = 0; g < count; g++)
+		{
+			objects.add( new GeoPoint( "#" + g, 0, 0));
+		}
+		for ( Map.Entry<Long,Double> entry : targets.entrySet())
+		{
+			GeoPoint a = ( GeoPoint) objects.get( ( int) ( entry.getKey() / count));
+			GeoPoint b = ( GeoPoint) objects.get( ( int) ( entry.getKey() % count));
+
+			constraints.add( new GeoConstraint.CPointToPointDistance( a, b, entry.getValue()));
+		}
+
+		solver = new GeoNumericSolver();
+		solver.setSolverMode( GeoNumericSolver.SOLVER_LBFGS);
+		solver.setRandomSeed( random.nextLong());
+		solver.setCancellationToken( token);
+		if ( hasDeadline)
+			solver.setDeadline( deadline);
+		solver.addObjects( objects);
+		solver.addConstraints( constraints);
+
+		best = start;
+		bestError = Double.POSITIVE_INFINITY;
+		trials = start == null ? coarseTrials : 1;
+
+		for ( int i = 0; i < trials; i++)
+		{
+			SolverStats result;
+			double error = 0;
+
+			if ( start != null)
+			{
+				for ( int g = 0; g < count; g++)
+				{
+					( ( GeoPoint) objects.get( g)).setX( start[2 * g]);
+					( ( GeoPoint) objects.get( g)).setY( start[2 * g + 1]);
+				}
+			}
+
+			// a drawing is rarely met exactly, the closest one is kept
+			result = solver.findSolution( false, start == null);
+			stats.add( result);
+
+			if ( result.getStatus() == SolverStats.STATUS_TIMED_OUT || result.getStatus() == SolverStats.STATUS_CANCELLED)
+			{
+				stopped = true;
+				break;
+			}
+
+			for ( GeoConstraint c : constraints)
+			{
+				error += c.calculateError();
+			}
+
+			if ( error < bestError)
+			{
+				bestError = error;
+				best = new double[ 2 * count];
+				for ( int g = 0; g < count; g++)
+				{
+					best[2 * g] = ( ( GeoPoint) objects.get( g)).getX();
+					best[2 * g + 1] = ( ( GeoPoint) objects.get( g)).getY();
+				}
+			}
+
+			if ( error < tolerance)
+				break;
+		}
+
+		return best;
+	}
+
+	// the distances between the groups of a level: between groups sharing a
+	// constraint, as far apart as their points if they are single and as their
+	// patches touching otherwise, and between groups two steps apart, along the
+	// shorter way
+	private HashMap<Long,Double> targets ( int level, int[] sizes)
+	{
+		int count = groupCounts.get( level);
+		int[] owner = owners.get( level);
+		ArrayList<HashMap<Integer,Double>> neighbors = new ArrayList<HashMap<Integer,Double>>();
+		HashMap<Long,Double> targets = new HashMap<Long,Double>();
+
+		for ( int g = 0; g < count; g++)
+		{
+			neighbors.add( new HashMap<Integer,Double>());
+		}
+
+		for ( Map.Entry<Long,Double> entry : lengths.entrySet())
+		{
+			int g = owner[ ( int) ( entry.getKey() / points.size())];
+			int h = owner[ ( int) ( entry.getKey() % points.size())];
+			double length;
+
+			if ( g == h)
+				continue;
+
+			if ( level == 0)
+				length = entry.getValue();
+			else
+				length = ( groupLength( sizes[g]) + groupLength( sizes[h])) / 2;
+
+			if ( !neighbors.get( g).containsKey( h) || length < neighbors.get( g).get( h))
+			{
+				neighbors.get( g).put( h, length);
+				neighbors.get( h).put( g, length);
+			}
+		}
+
+		for ( int g = 0; g < count; g++)
+		{
+			for ( Map.Entry<Integer,Double> first : neighbors.get( g).entrySet())
+			{
+				targets.put( key( g, first.getKey(), count), first.getValue());
+			}
+		}
+
+		for ( int g = 0; g < count; g++)
+		{
+			for ( Map.Entry<Integer,Double> first : neighbors.get( g).entrySet())
+			{
+				for ( Map.Entry<Integer,Double> second : neighbors.get( first.getKey()).entrySet())
+				{
+					int h = second.getKey();
+					long key = key( g, h, count);
+					double length = first.getValue() + second.getValue();
+
+					if ( h != g && !neighbors.get( g).containsKey( h) &&
+						 ( !targets.containsKey( key) || length < targets.get( key)))
+						targets.put( key, length);
+				}
+			}
+		}
+
+		return targets;
+	}
+
+	// the positions of the groups of a level, around those of the level above
+	private double[] prolong ( int level, int[] sizes, double[] above)
+	{
+		int[] owner = owners.get( level);
+		int[] parent = owners.get( level + 1);
+		int count = groupCounts.get( level);
+		double[] positions = new double[ 2 * count];
+		boolean[] placed = new boolean[ count];
+
+		for ( int p = 0; p < owner.length; p++)
+		{
+			int g = owner[p];
+			double angle, radius;
+
+			if ( placed[g])
+				continue;
+
+			angle = random.nextDouble() * 2 * Math.PI;
+			radius = random.nextDouble() * spread * groupLength( sizes[g]);
+			positions[2 * g] = above[2 * parent[p]] + radius * Math.cos( angle);
+			positions[2 * g + 1] = above[2 * parent[p] + 1] + radius * Math.sin( angle);
+			placed[g] = true;
+		}
+
+		return positions;
+	}
+
+	// the key of two points or groups, in either order
+	private static long key ( int a, int b, int count)
+	{
+		return Math.min( a, b) * ( long) count + Math.max( a, b);
+	}
+}
@@ -0,0 +1,158 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// numerical solver for systems with as many residuals as parameters, using
+// Newton's method on the signed residuals: each step solves J delta = -r with
+// a sparse LU factorization of the Jacobian, see SparseLU
+//
+// close to a solution the error falls quadratically, where BFGS on the sum of
+// the squared residuals slows down; steps which do not reduce the error are
+// halved, and when the Jacobian is singular, the steps fail or the system is not
+// square, the solution continues with BFGS from the parameters reached
+public class GeoNewtonSolver extends GeoLeastSquaresSolver {
+
+	// constants of the algorithm
+	final int maxNewtonIterations	= 50;
+	final int maxStepHalvings		= 20;
+
+	private SparseLU lu;
+
+	// whether the last solution finished with Newton's method
+	private boolean converged;
+
+	public GeoNewtonSolver ( )
+	{
+		super();
+
+		lu = new SparseLU();
+	}
+
+	public boolean isNewtonConverged ( )
+	{
+		return converged;
+	}
+
+	// the solution process, see GeoNumericSolver.findSolution()
+	@Override
+	boolean solve ( boolean fine, boolean randomize)
+	{
+		prepare( randomize);
+		ftimes = 0;
+
+		return minimize( fine);
+	}
+
+	// Newton's method from the current parameters, then BFGS if it did not converge
+	@Override
+	boolean minimize ( boolean fine)
+	{
+		SparseMatrix jacobian;
+		double[] x;
+		double[] xold;
+		double[] delta;
+
+		double f, fnew;
+		double convergence;
+		int n;
+
+		x = parameterPool;
+		n = parameterCount;
+		converged = false;
+
+		if ( !isSquare())
+			return super.minimize( fine);
+
+		if ( fine)
+			convergence = XconvergenceFine;
+		else
+			convergence = XconvergenceRough;
+
+		work = getWorkspace();
+		work.ensureVectors( n);
+
+		xold = work.previous;
+		delta = work.step;
+		jacobian = getJacobian();
+
+		f = calculateResiduals();
+
+		while ( f > smallF && iterations < maxNewtonIterations && !stopRequested())
+		{
+			double step;
+			double stepNorm;
+			double xNorm;
+			boolean accepted;
+
+			iterations++;
+			calculateJacobian();
+
+			if ( !lu.factor( jacobian))
+				break;
+
+			lu.solve( residuals, delta);
+
+			stepNorm = 0;
+			xNorm = 0;
+			for ( int i = 0; i < n; i++)
+			{
+				xold[i] = x[i];
+				stepNorm += delta[i] * delta[i];
+				xNorm += x[i] * x[i];
+			}
+			stepNorm = Math.sqrt( stepNorm);
+			xNorm = Math.sqrt( xNorm);
+
+			if ( Double.isNaN( stepNorm) || Double.isInfinite( stepNorm))
+				break;
+
+			// the full step first, halved until the error falls
+			accepted = false;
+			step = 1;
+			for ( int halving = 0; halving <= maxStepHalvings && !accepted; halving++)
+			{
+				for ( int i = 0; i < n; i++)
+				{
+					x[i] = xold[i] - step * delta[i];
+				}
+
+				fnew = calculateResiduals();
+
+				if ( fnew < f)
+				{
+					f = fnew;
+					accepted = true;
+				}
+				else
+				{
+					bracketSteps++;
+					step /= 2;
+				}
+			}
+
+			if ( !accepted)
+			{
+				for ( int i = 0; i < n; i++)
+				{
+					x[i] = xold[i];
+				}
+				f = calculateResiduals();
+				break;
+			}
+
+			if ( step * stepNorm <= convergence * ( xNorm + convergence))
+				break;
+		}
+
+		if ( f < validSolution)
+		{
+			updatePoints();
+			finalError = f;
+			converged = true;
+
+			return true;
+		}
+
+		// singular or not converging, let BFGS continue from here
+		return super.minimize( fine);
+	}
+}
@@ -2,6 +2,9 @@ package algorithm;
 // Created: 26.04.2015, Ali Batuhan Yardm
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
 
 // numerical solver for multiple variable constraints/functions
 // using BFGS algorithm
@@ -25,21 +28,25 @@ public class GeoNumericSolver {
 	public void addObject ( GeoObject p)
 	{
 		objects.add( p);
+		structureValid = false;
 	}
 	
 	public void addObjects ( ArrayList<GeoObject> list)
 	{
 		objects.addAll( list);
+		structureValid = false;
 	}
 
 	public void addConstraint ( GeoConstraint c)
 	{
 		constraints.add( c);
+		structureValid = false;
 	}
 	
 	public void addConstraints ( ArrayList<GeoConstraint> constraints)
 	{
 		this.constraints.addAll( constraints);
+		structureValid = false;
 	}
 
 	public ArrayList<GeoObject> getPoints ()
@@ -51,6 +58,114 @@ public class GeoNumericSolver {
 	{
 		return constraints;
 	}
+	
+	// receives the statistics of every solution
+	public void setStatsListener ( SolverStats.Listener listener)
+	{
+		this.listener = listener;
+	}
+	
+	// the scratch memory used by the solution, by default that of the solving thread
+	// a workspace may be shared by solvers which never run at the same time
+	public void setWorkspace ( SolverWorkspace workspace)
+	{
+		this.workspace = workspace;
+	}
+	
+	public SolverWorkspace getWorkspace ( )
+	{
+		if ( workspace == null)
+			return SolverWorkspace.forCurrentThread();
+		
+		return workspace;
+	}
+	
+	// seeds the generator of random starting points, for reproducible runs
+	public void setRandomSeed ( long seed)
+	{
+		random = new Random( seed);
+	}
+	
+	// asks a running solution to stop at the end of its current iteration
+	// can be called from any thread, the solver stays cancelled afterwards
+	public void cancel ( )
+	{
+		cancelled = true;
+	}
+	
+	public boolean isCancelled ( )
+	{
+		return cancelled;
+	}
+	
+	// a token through which the caller may stop the solution, or null
+	public void setCancellationToken ( CancellationToken token)
+	{
+		this.token = token;
+	}
+	
+	// stops solutions still running at the given System.nanoTime()
+	public void setDeadline ( long deadline)
+	{
+		this.deadline = deadline;
+		hasDeadline = true;
+	}
+	
+	public void clearDeadline ( )
+	{
+		hasDeadline = false;
+	}
+	
+	// how gradients of the error function are computed
+	public void setGradientMode ( int mode)
+	{
+		this.gradientMode = mode;
+	}
+	
+	public int getGradientMode ( )
+	{
+		return gradientMode;
+	}
+	
+	// which variant of the algorithm is used, one of the SOLVER_ constants
+	public void setSolverMode ( int mode)
+	{
+		this.solverMode = mode;
+	}
+	
+	public int getSolverMode ( )
+	{
+		return solverMode;
+	}
+	
+	// the number of correction pairs kept by the limited memory variant
+	public void setHistoryLength ( int historyLength)
+	{
+		this.historyLength = Math.max( 1, historyLength);
+	}
+	
+	public int getHistoryLength ( )
+	{
+		return historyLength;
+	}
+	
+	// the parameter count above which SOLVER_AUTOMATIC switches to the limited memory variant
+	public void setLimitedMemoryThreshold ( int threshold)
+	{
+		this.limitedMemoryThreshold = threshold;
+	}
+	
+	public int getLimitedMemoryThreshold ( )
+	{
+		return limitedMemoryThreshold;
+	}
+	
+	// the largest relative difference between the analytic and the finite difference
+	// gradients observed during the last solution, only tracked with GRADIENT_VALIDATE
+	public double getMaxGradientDeviation ( )
+	{
+		return maxGradientDeviation;
+	}
 
 	///////////////////////////////// the algorithm
 	
@@ -61,34 +176,175 @@ public class GeoNumericSolver {
 	final double smallF				= 1e-20;
 	final double validSolution		= 1e-9; // -12
 	int ftimes; // track error calculation calls
-
-	// the set of all parameters to be optimized
-	private double[] parameterPool;
+	
+	// statistics of the current solution besides ftimes
+	int iterations;
+	int bracketSteps;
+	int hessianResets;
+	double finalError;
+	private SolverStats.Listener listener;
+	
+	// the source of random starting points
+	private Random random = new Random();
+	// set when another thread stops the solution
+	volatile boolean cancelled;
+	private CancellationToken token;
+	private long deadline;
+	private boolean hasDeadline;
+	
+	// scratch memory, null for that of the solving thread
+	private SolverWorkspace workspace;
+	// whether the maps from the constraints to the parameters are up to date,
+	// so that restarts do not build them again
+	private boolean structureValid;
+	
+	// gradient modes:
+	// closed form derivatives of the constraints, falling back to finite differences
+	// when a constraint can not provide one at the current position
+	public static final int GRADIENT_ANALYTIC = 0;
+	// forward finite differences, one error calculation per parameter
+	public static final int GRADIENT_FINITE_DIFFERENCE = 1;
+	// analytic gradients, checked against finite differences on every evaluation
+	public static final int GRADIENT_VALIDATE = 2;
+	
+	private int gradientMode = GRADIENT_ANALYTIC;
+	private double maxGradientDeviation;
+	
+	// solver modes:
+	// BFGS with a dense N x N inverse Hessian estimate
+	public static final int SOLVER_BFGS = 0;
+	// limited memory BFGS, keeping only the last few correction pairs
+	public static final int SOLVER_LBFGS = 1;
+	// dense BFGS for small systems, limited memory above the threshold
+	public static final int SOLVER_AUTOMATIC = 2;
+	// Levenberg-Marquardt on the constraint residuals, see GeoLeastSquaresSolver
+	public static final int SOLVER_LEVENBERG_MARQUARDT = 3;
+	// Newton's method with a sparse LU factorization for systems with as many
+	// residuals as parameters, BFGS for the others, see GeoNewtonSolver
+	public static final int SOLVER_NEWTON = 4;
+	
+	private int solverMode = SOLVER_BFGS;
+	private int historyLength = 8;
+	private int limitedMemoryThreshold = 120;
+	
+	// for each constraint, the objects that parametrize its points, the index of each
+	// point within its object and the offset of the object's parameters in the pool
+	// points that are not parametrized by any object have a null owner
+	GeoObject[][] pointOwners;
+	int[][] pointIndices;
+	int[][] pointOffsets;
+	// scratch space for the gradients of single constraints
+	double[] pointGradient;
+	private double[] validationGradient;
+	
+	// the constraints involving each parameter
+	private int[][] parameterConstraints;
+	// the error of each constraint at the last full evaluation
+	private double[] constraintErrors;
+
+	// the set of all parameters to be optimized, followed by the coordinates
+	// which the compiled constraints read but which are not optimized
+	double[] parameterPool;
+	int parameterCount;
+	// the constraints compiled against the parameter pool
+	GeoCompiledSystem compiled;
 	private double[] x = parameterPool;
 
 	// starts the solution process
 	// fine indicates whether or not a more precise but costly process should be applied
 	// randomize indicates whether parameters should be randomized beforehand
-	public boolean findSolution( boolean fine, boolean randomize)
+	// returns the statistics of the solution, which tell whether it succeeded
+	public SolverStats findSolution ( boolean fine, boolean randomize)
+	{
+		return runSolution( fine, randomize, false);
+	}
+	
+	// continues from the parameters of the last solution, after fixed points were moved
+	// the structure of the last solution is kept, so only the iterations cost time;
+	// without a previous solution, this is findSolution( fine, false)
+	public SolverStats resumeSolution ( boolean fine)
+	{
+		return runSolution( fine, false, compiled != null);
+	}
+	
+	private SolverStats runSolution ( boolean fine, boolean randomize, boolean resume)
+	{
+		SolverStats stats;
+		long start;
+		int status;
+		
+		start = System.nanoTime();
+		ftimes = 0;
+		iterations = 0;
+		bracketSteps = 0;
+		hessianResets = 0;
+		
+		if ( resume ? resume( fine) : solve( fine, randomize))
+			status = SolverStats.STATUS_SOLVED;
+		else if ( cancelled || ( token != null && token.isCancelled()))
+			status = SolverStats.STATUS_CANCELLED;
+		else if ( isOutOfTime())
+			status = SolverStats.STATUS_TIMED_OUT;
+		else
+			status = SolverStats.STATUS_FAILED;
+		
+		stats = new SolverStats( status, ftimes, iterations, bracketSteps, hessianResets, 0,
+								 finalError, System.nanoTime() - start);
+		
+		if ( listener != null)
+			listener.solveFinished( stats);
+		
+		return stats;
+	}
+	
+	// checked between iterations, the solution keeps its current parameters
+	// when it is cancelled or runs out of time
+	boolean stopRequested ( )
+	{
+		return cancelled || ( token != null && token.isCancelled()) || isOutOfTime();
+	}
+	
+	private boolean isOutOfTime ( )
+	{
+		return hasDeadline && System.nanoTime() - deadline > 0;
+	}
+	
+	// the solution itself, returns true only if a solution was found
+	// the final error must be left in finalError
+	boolean solve ( boolean fine, boolean randomize)
 	{		
 		// build the parameter pool
-		buildParameterPool();
+		prepare( randomize);
+		ftimes = 0;
 		
-		// TODO implement the option to prevent randomization
-		if ( randomize)
-			randomizeParameters();
-		else
-			cachePoints();
+		return minimize( fine);
+	}
+	
+	// the solution from the parameters left by the last one, with the constant points
+	// read again; returns true only if a solution was found
+	boolean resume ( boolean fine)
+	{
+		compiled.refreshConstants();
+		compiled.initialize( parameterPool);
+		ftimes = 0;
+		
+		return minimize( fine);
+	}
+	
+	// BFGS from the current parameters, for solve() and the solvers falling back to it
+	boolean minimize ( boolean fine)
+	{
+		maxGradientDeviation = 0;
 		
 		// shorthand...
 		x = parameterPool;
-		final int xLength = x.length;
+		final int xLength = parameterCount;
+		final SolverWorkspace work = getWorkspace();
 
 		/////////////////////////////////////////////////
 		// apply BFGS
 
 		////////// setup:
-		ftimes = 0;
 
 		// precision of the result, affects performance cost
 		double convergence;
@@ -99,24 +355,33 @@ public class GeoNumericSolver {
 
 		double f0 = calculateError(); // initial error value
 		if ( f0 < smallF)
+		{
+			updatePoints();
+			finalError = f0;
 			return true; // success
+		}
+		
+		// large systems use O( m * N) memory instead of a dense Hessian estimate
+		if ( solverMode == SOLVER_LBFGS || ( solverMode != SOLVER_BFGS && xLength > limitedMemoryThreshold))
+			return solveLimitedMemory( f0, convergence, work);
 
+		work.ensureVectors( xLength);
+		work.ensureMatrices( xLength);
+		
 		// calculate gradient vector
-		double[] grad = new double[ xLength];
+		double[] grad = work.gradient;
 		double norm;
 		double f1,f2,f3,alpha1,alpha2,alpha3,alphaStar;
 		norm = 0;
+		calculateGradient( grad);
 		for ( int j = 0; j < xLength;j++)
 		{
-			x[j] = x[j] + pert;
-			grad[j] = (calculateError() - f0) / pert;
-			x[j] -= pert;
 			norm = norm + (grad[j]*grad[j]);
 		}
 		norm = Math.sqrt( norm);
 
-		double[] s = new double[xLength]; // search direction
-		double[][] N = new double[xLength][xLength]; // Hessian matrix estimate
+		double[] s = work.direction; // search direction
+		double[][] N = work.hessian; // Hessian matrix estimate
 
 		// Hessian estimation
 		// TODO wrap these in a convenient matrix class?
@@ -140,7 +405,7 @@ public class GeoNumericSolver {
 		double fnew = f0 + 1;
 		double alpha = 1; // initial value of search vector multiplier
 
-		double[] xold = new double[xLength]; // for old parameter set
+		double[] xold = work.previous; // for old parameter set
 		double fold;
 		for ( int i = 0; i < xLength; i++) // fill xold with current parameters
 		{
@@ -200,8 +465,8 @@ public class GeoNumericSolver {
 		// get the alpha for the minimum f of the quadratic approximation
 		alphaStar= alpha2+((alpha2-alpha1)*(f1-f3))/(3*(f1-2*f2+f3));
 
-		//Guarantee that the new alphaStar is within the bracket
-		if(alphaStar>alpha3 || alphaStar<alpha1) alphaStar=alpha2;
+		//Guarantee that the new alphaStar is within the bracket, a flat bracket gives NaN
+		if(!(alphaStar<=alpha3 && alphaStar>=alpha1)) alphaStar=alpha2;
 
 		/// Set the values to alphaStar
 		for(int i=0;i<xLength;i++)
@@ -212,24 +477,23 @@ public class GeoNumericSolver {
 		fold=fnew;
 
 		///////////////////////// line search end
-		double[] deltaX = new double[xLength];
-		double[] gradnew = new double[xLength];
-		double[] gamma = new double[xLength];
+		double[] deltaX = work.step;
+		double[] gradnew = work.newGradient;
+		double[] gamma = work.gradientChange;
 		double bottom=0;
 		double deltaXtDotGamma;
-		double[][] gammatDotN = new double[1][xLength]; // [1][xLength];
+		double[][] gammatDotN = work.gradientChangeDotHessian; // [1][xLength];
 
 		double gammatDotNDotGamma=0;
 		double firstTerm=0;
 
-		double[][] FirstSecond = new double[xLength][xLength]; // [xLength][xLength];
-		double[][] deltaXDotGammatDotN = new double[xLength][xLength]; // [xLength][xLength];
-		double[][] gammatDotDeltaXt = new double[xLength][xLength]; // [xLength][xLength];
-		double[][] NDotGammaDotDeltaXt = new double[xLength][xLength]; // [xLength][xLength];
+		double[][] FirstSecond = work.firstSecond; // [xLength][xLength];
+		double[][] deltaXDotGammatDotN = work.stepDotGradientChangeDotHessian; // [xLength][xLength];
+		double[][] gammatDotDeltaXt = work.gradientChangeDotStep; // [xLength][xLength];
+		double[][] NDotGammaDotDeltaXt = work.hessianDotGradientChangeDotStep; // [xLength][xLength];
 
 		double deltaXnorm = 1;
 
-		int iterations = 1;
 		int steps;
 
 		for (int i = 0 ; i < xLength; i++)
@@ -240,17 +504,16 @@ public class GeoNumericSolver {
 		///////////////////////////////////////////////
 		/// Start of main algorithm
 		///////////////////////////////////////////////
-		while( deltaXnorm > convergence && fnew > smallF && /* avoid too long search times*/ ftimes < 500000)
+		while( deltaXnorm > convergence && fnew > smallF && /* avoid too long search times*/ ftimes < 500000 && !stopRequested())
 		{
 			bottom=0;
 			deltaXtDotGamma = 0;
 
+			//Calculate the new gradient vector
+			calculateGradient( gradnew);
+
 			for(int i=0;i<xLength;i++)
 			{
-				//Calculate the new gradient vector
-				x[i]=x[i]+pert;
-				gradnew[i]=( calculateError() - fnew) / pert;
-				x[i]=x[i]-pert;
 				//Calculate the change in the gradient
 				gamma[i]=gradnew[i]-grad[i];
 				bottom+=deltaX[i] * gamma[i];
@@ -396,6 +659,7 @@ public class GeoNumericSolver {
 				}
 				if(steps==4)
 				{
+					hessianResets++;
 					alpha2=1;
 					alpha3=2;
 
@@ -413,13 +677,14 @@ public class GeoNumericSolver {
 					}
 				}
 				steps=steps+1;
+				bracketSteps++;
 			}
 
 			// get the alpha for the minimum f of the quadratic approximation
 			alphaStar= alpha2+((alpha2-alpha1)*(f1-f3))/(3*(f1-2*f2+f3));
 
-			//Guarantee that the new alphaStar is within the bracket
-			if(alphaStar>alpha3 || alphaStar<alpha1)
+			//Guarantee that the new alphaStar is within the bracket, a flat bracket gives NaN
+			if(!(alphaStar<=alpha3 && alphaStar>=alpha1))
 			{
 				alphaStar=alpha2;
 			}
@@ -450,30 +715,306 @@ public class GeoNumericSolver {
 		}
 
 		updatePoints();
-		
-		System.out.println( "Solved in " + ftimes);
-		System.out.println( "Error: " + calculateError());
+		finalError = fnew;
 
 		///End of function
 		if( fnew < validSolution) 
 			return true;
 
 		return false; // failure... No solution found
-	} // end of method findSolution
+	} // end of method solve
+
+	// limited memory BFGS on the current parameters, starting from error f0
+	// the inverse Hessian estimate is applied implicitly by the two loop recursion
+	// over the last historyLength steps and gradient changes
+	private boolean solveLimitedMemory ( double f0, double convergence, SolverWorkspace work)
+	{
+		final int xLength = parameterCount;
+		final int m = Math.min( historyLength, Math.max( xLength, 1));
+		
+		work.ensureVectors( xLength);
+		work.ensureHistory( m, xLength);
+		
+		// ring buffers of the step and gradient change history
+		double[][] sHistory = work.stepHistory;
+		double[][] yHistory = work.gradientHistory;
+		double[] rho = work.rho;
+		double[] a = work.alpha;
+		int historyStart = 0;
+		int historySize = 0;
+		
+		double[] grad = work.gradient;
+		double[] gradnew = work.newGradient;
+		double[] s = work.direction;
+		double[] xold = work.previous;
+		
+		double fnew;
+		double norm;
+		double deltaXnorm;
+		
+		calculateGradient( grad);
+		
+		// the first step follows the normalized steepest descent direction
+		norm = 0;
+		for ( int i = 0; i < xLength; i++)
+		{
+			norm += grad[i] * grad[i];
+		}
+		norm = Math.sqrt( norm);
+		
+		if ( norm == 0)
+		{
+			updatePoints();
+			finalError = f0;
+			return f0 < validSolution;
+		}
+		
+		for ( int i = 0; i < xLength; i++)
+		{
+			s[i] = -grad[i] / norm;
+		}
+		
+		fnew = f0;
+		deltaXnorm = 1;
+		
+		while ( deltaXnorm > convergence && fnew > smallF && /* avoid too long search times*/ ftimes < 500000 && !stopRequested())
+		{
+			for ( int i = 0; i < xLength; i++)
+			{
+				xold[i] = x[i];
+			}
+			
+			fnew = lineSearch( xold, s, fnew);
+			iterations++;
+			
+			// record the step, then the change in the gradient
+			int slot = ( historyStart + historySize) % m;
+			if ( historySize == m)
+				historyStart = ( historyStart + 1) % m;
+			else
+				historySize++;
+			
+			calculateGradient( gradnew);
+			
+			double sy = 0;
+			deltaXnorm = 0;
+			for ( int i = 0; i < xLength; i++)
+			{
+				sHistory[slot][i] = x[i] - xold[i];
+				yHistory[slot][i] = gradnew[i] - grad[i];
+				sy += sHistory[slot][i] * yHistory[slot][i];
+				deltaXnorm += sHistory[slot][i] * sHistory[slot][i];
+				grad[i] = gradnew[i];
+			}
+			deltaXnorm = Math.sqrt( deltaXnorm);
+			
+			if ( sy <= 1e-20)
+			{
+				// curvature condition violated, the history is no longer reliable
+				historyStart = 0;
+				historySize = 0;
+				hessianResets++;
+			}
+			else
+				rho[slot] = 1 / sy;
+			
+			//////// two loop recursion: s = -H * grad
+			for ( int i = 0; i < xLength; i++)
+			{
+				s[i] = -grad[i];
+			}
+			
+			for ( int k = historySize - 1; k >= 0; k--)
+			{
+				int j = ( historyStart + k) % m;
+				double dot = 0;
+				for ( int i = 0; i < xLength; i++)
+				{
+					dot += sHistory[j][i] * s[i];
+				}
+				a[j] = rho[j] * dot;
+				for ( int i = 0; i < xLength; i++)
+				{
+					s[i] -= a[j] * yHistory[j][i];
+				}
+			}
+			
+			// scale by the curvature estimate of the most recent pair
+			if ( historySize > 0)
+			{
+				int j = ( historyStart + historySize - 1) % m;
+				double yy = 0;
+				for ( int i = 0; i < xLength; i++)
+				{
+					yy += yHistory[j][i] * yHistory[j][i];
+				}
+				double gamma = 1 / ( rho[j] * yy);
+				for ( int i = 0; i < xLength; i++)
+				{
+					s[i] *= gamma;
+				}
+			}
+			
+			for ( int k = 0; k < historySize; k++)
+			{
+				int j = ( historyStart + k) % m;
+				double dot = 0;
+				for ( int i = 0; i < xLength; i++)
+				{
+					dot += yHistory[j][i] * s[i];
+				}
+				double b = rho[j] * dot;
+				for ( int i = 0; i < xLength; i++)
+				{
+					s[i] += ( a[j] - b) * sHistory[j][i];
+				}
+			}
+			
+			// fall back to steepest descent if this is not a descent direction
+			double slope = 0;
+			for ( int i = 0; i < xLength; i++)
+			{
+				slope += s[i] * grad[i];
+			}
+			
+			if ( !( slope < 0))
+			{
+				historyStart = 0;
+				historySize = 0;
+				hessianResets++;
+				for ( int i = 0; i < xLength; i++)
+				{
+					s[i] = -grad[i];
+				}
+			}
+		}
+		
+		updatePoints();
+		finalError = fnew;
+		
+		return fnew < validSolution;
+	}
+	
+	// brackets the minimum along s starting from xold, whose error is f1,
+	// then moves the parameters to the minimum of the quadratic fit
+	// returns the error at the new parameters
+	private double lineSearch ( double[] xold, double[] s, double f1)
+	{
+		final int xLength = parameterCount;
+		double f2, f3;
+		double alpha1, alpha2, alpha3, alphaStar;
+		int steps;
+		
+		alpha1 = 0;
+		
+		alpha2 = 1;
+		for ( int i = 0; i < xLength; i++)
+		{
+			x[i] = xold[i] + alpha2 * s[i];
+		}
+		f2 = calculateError();
+		
+		alpha3 = 2 * alpha2;
+		for ( int i = 0; i < xLength; i++)
+		{
+			x[i] = xold[i] + alpha3 * s[i];
+		}
+		f3 = calculateError();
+		
+		// reduce or lengthen alpha2 and alpha3 until the minimum is
+		// bracketed by the triplet f1 > f2 < f3
+		steps = 0;
+		while ( ( f2 > f1 || f2 > f3) && steps < 100)
+		{
+			if ( f2 > f1)
+			{
+				alpha3 = alpha2;
+				f3 = f2;
+				alpha2 = alpha2 / 2;
+				for ( int i = 0; i < xLength; i++)
+				{
+					x[i] = xold[i] + alpha2 * s[i];
+				}
+				f2 = calculateError();
+			}
+			else
+			{
+				alpha2 = alpha3;
+				f2 = f3;
+				alpha3 = alpha3 * 2;
+				for ( int i = 0; i < xLength; i++)
+				{
+					x[i] = xold[i] + alpha3 * s[i];
+				}
+				f3 = calculateError();
+			}
+			steps++;
+			bracketSteps++;
+		}
+		
+		// get the alpha for the minimum f of the quadratic approximation
+		alphaStar = alpha2 + ( ( alpha2 - alpha1) * ( f1 - f3)) / ( 3 * ( f1 - 2 * f2 + f3));
+		
+		// guarantee that the new alphaStar is within the bracket
+		if ( alphaStar > alpha3 || alphaStar < alpha1 || Double.isNaN( alphaStar))
+			alphaStar = alpha2;
+		
+		for ( int i = 0; i < xLength; i++)
+		{
+			x[i] = xold[i] + alphaStar * s[i];
+		}
+		
+		return calculateError();
+	}
 
+	// sets up the parameters for a solution, building the maps from the constraints
+	// to the parameters again only if the system or the order of its points changed
+	void prepare ( boolean randomize)
+	{
+		buildParameterPool();
+		
+		if ( randomize)
+			randomizeParameters();
+		else
+		{
+			// rigid objects may reorder their points when cached, so map them afterwards
+			cachePoints();
+			structureValid = false;
+		}
+		
+		// fixing or freeing a point changes the layout too; a fixed point may have
+		// been moved since the last solution
+		if ( structureValid && compiled.getParameterCount() == parameterCount)
+		{
+			compiled.refreshConstants();
+			compiled.initialize( parameterPool);
+		}
+		else
+		{
+			buildStructure();
+			structureValid = true;
+		}
+	}
+	
+	// builds everything that depends on the layout of the parameters
+	void buildStructure ( )
+	{
+		buildGradientMap();
+	}
+	
 	// constructs the parameter pool
-	private void buildParameterPool ( )
+	void buildParameterPool ( )
 	{
 		// total number of parameters to work on
-		int parameterCount;
-		
 		parameterCount = 0;
 		for ( GeoObject c : objects)
 		{
 			parameterCount += c.getNumParameters();
 		}
 		
-		parameterPool = new double[ parameterCount];
+		// the pool of the last solution is reused when it is large enough
+		if ( parameterPool == null || parameterPool.length < parameterCount)
+			parameterPool = new double[ parameterCount];
 		
 		// clear the array to zeros
 		for ( int i = 0; i < parameterCount; i++)
@@ -482,18 +1023,18 @@ public class GeoNumericSolver {
 		}
 	}
 	
-	// randomize variables
-	private void randomizeParameters ()
+	// randomize variables, within the size the constraints suggest
+	void randomizeParameters ()
 	{
-		for ( int i = 0; i < parameterPool.length; i++)
-		{
-			parameterPool[i] = Math.random() * 500; // TODO make this context specific
-		}		
+		GeoInitializer initializer = new GeoInitializer( random);
+		
+		initializer.measure( objects, constraints);
+		initializer.initialize( objects, parameterPool);
 	}
 
 	// sets the current locations of points as parameters
 	// useful for getting hints from the user about the construction
-	private void cachePoints ( )
+	void cachePoints ( )
 	{
 		int leftAt = 0;
 
@@ -532,13 +1073,18 @@ public class GeoNumericSolver {
 					// leftAt += 4;
 				}
 			}
+			else if ( objects.get(i).getType().equals( "locus")) // a point on a fixed circle or line
+			{
+				parameterPool[ leftAt] = objects.get(i).getParameters()[0];
+			}
 			objects.get( i).updateParameters( parameterPool, leftAt);
 			leftAt += objects.get( i).getNumParameters();
 		}
 	}
 	
 	// update the parameters of the geometric objects
-	private void updatePoints ( )
+	// the constraints are evaluated on the pool, so this is only needed for the result
+	void updatePoints ( )
 	{
 		int leftAt = 0;
 
@@ -549,19 +1095,244 @@ public class GeoNumericSolver {
 		}
 	}
 
+	// maps the points of each constraint to the objects and parameters controlling them
+	void buildGradientMap ( )
+	{
+		HashMap<GeoPoint,GeoObject> owners;
+		HashMap<GeoPoint,Integer> indices;
+		HashMap<GeoObject,Integer> offsets;
+		int leftAt;
+		int maxPoints;
+		
+		owners = new HashMap<GeoPoint,GeoObject>();
+		indices = new HashMap<GeoPoint,Integer>();
+		offsets = new HashMap<GeoObject,Integer>();
+		
+		leftAt = 0;
+		for ( GeoObject o : objects)
+		{
+			offsets.put( o, leftAt);
+			
+			if ( o instanceof GeoPoint)
+			{
+				owners.put( ( GeoPoint) o, o);
+				indices.put( ( GeoPoint) o, 0);
+			}
+			else if ( o instanceof GeoCompoundObject)
+			{
+				ArrayList<GeoPoint> children = ( ( GeoCompoundObject) o).getPoints();
+				
+				for ( int i = 0; i < children.size(); i++)
+				{
+					owners.put( children.get( i), o);
+					indices.put( children.get( i), i);
+				}
+			}
+			
+			leftAt += o.getNumParameters();
+		}
+		
+		pointOwners = new GeoObject[ constraints.size()][];
+		pointIndices = new int[ constraints.size()][];
+		pointOffsets = new int[ constraints.size()][];
+		maxPoints = 0;
+		
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			GeoPoint[] points = constraints.get( i).getPoints();
+			
+			pointOwners[i] = new GeoObject[ points.length];
+			pointIndices[i] = new int[ points.length];
+			pointOffsets[i] = new int[ points.length];
+			
+			for ( int j = 0; j < points.length; j++)
+			{
+				GeoObject owner = owners.get( points[j]);
+				
+				if ( owner != null && owner.getNumParameters() > 0)
+				{
+					pointOwners[i][j] = owner;
+					pointIndices[i][j] = indices.get( points[j]);
+					pointOffsets[i][j] = offsets.get( owner);
+				}
+				else
+				{
+					// constant during the solution
+					pointOffsets[i][j] = -1;
+				}
+			}
+			
+			maxPoints = Math.max( maxPoints, points.length);
+		}
+		
+		pointGradient = new double[ 2 * maxPoints];
+		validationGradient = new double[ parameterCount];
+		
+		buildIncidenceIndex();
+		compile();
+	}
+	
+	// compiles the constraints against the parameter pool, which is extended
+	// with the coordinates of the points moved by rigid objects and the constants
+	void compile ( )
+	{
+		compiled = new GeoCompiledSystem( objects, constraints);
+		
+		if ( parameterPool.length != compiled.getLength())
+			parameterPool = Arrays.copyOf( parameterPool, compiled.getLength());
+		compiled.initialize( parameterPool);
+	}
+	
+	// indexes the constraints involving each parameter, so that changing a
+	// single parameter only needs the constraints touching it
+	private void buildIncidenceIndex ( )
+	{
+		int[] counts;
+		int[] marks;
+		
+		// count, then fill the constraints of each parameter
+		counts = new int[ parameterCount];
+		marks = new int[ parameterCount];
+		
+		for ( int pass = 0; pass < 2; pass++)
+		{
+			for ( int i = 0; i < marks.length; i++)
+			{
+				marks[i] = 0;
+			}
+			
+			if ( pass == 1)
+			{
+				parameterConstraints = new int[ parameterCount][];
+				for ( int i = 0; i < counts.length; i++)
+				{
+					parameterConstraints[i] = new int[ counts[i]];
+					counts[i] = 0;
+				}
+			}
+			
+			for ( int i = 0; i < constraints.size(); i++)
+			{
+				for ( int j = 0; j < pointOffsets[i].length; j++)
+				{
+					if ( pointOffsets[i][j] < 0)
+						continue;
+					
+					for ( int k = 0; k < pointOwners[i][j].getNumParameters(); k++)
+					{
+						int parameter = pointOffsets[i][j] + k;
+						
+						// a constraint may involve several points of the same object
+						if ( marks[ parameter] == i + 1)
+							continue;
+						marks[ parameter] = i + 1;
+						
+						if ( pass == 1)
+							parameterConstraints[ parameter][ counts[ parameter]] = i;
+						counts[ parameter]++;
+					}
+				}
+			}
+		}
+	}
+	
+	// fills gradient with the derivatives of the error at the current parameters
+	// must follow a calculateError() call at the same parameters
+	private void calculateGradient ( double[] gradient)
+	{
+		if ( gradientMode == GRADIENT_FINITE_DIFFERENCE)
+		{
+			calculateFiniteDifferenceGradient( gradient);
+			return;
+		}
+		
+		if ( !calculateAnalyticGradient( gradient))
+		{
+			// some constraint is not differentiable here
+			calculateFiniteDifferenceGradient( gradient);
+			return;
+		}
+		
+		if ( gradientMode == GRADIENT_VALIDATE)
+		{
+			calculateFiniteDifferenceGradient( validationGradient);
+			
+			for ( int i = 0; i < parameterCount; i++)
+			{
+				double deviation = Math.abs( gradient[i] - validationGradient[i]) / 
+								   Math.max( 1, Math.abs( gradient[i]));
+				
+				maxGradientDeviation = Math.max( maxGradientDeviation, deviation);
+			}
+		}
+	}
+	
+	// forward difference approximation of the gradient
+	// only the constraints involving each perturbed parameter are evaluated again
+	private void calculateFiniteDifferenceGradient ( double[] gradient)
+	{
+		for ( int j = 0; j < parameterCount; j++)
+		{
+			parameterPool[j] = parameterPool[j] + pert;
+			gradient[j] = calculateErrorChange( j) / pert;
+			parameterPool[j] -= pert;
+			
+			// restore the vertices moved by the perturbed parameter
+			compiled.updateDerived( parameterPool, j);
+		}
+	}
+	
+	// the change in the error since the last calculateError() call, when only
+	// parameter j has changed; only the constraints involving it are evaluated
+	private double calculateErrorChange ( int j)
+	{
+		double change;
+		int[] touching;
+		
+		ftimes++;
+		
+		compiled.updateDerived( parameterPool, j);
+		
+		change = 0;
+		touching = parameterConstraints[j];
+		for ( int i = 0; i < touching.length; i++)
+		{
+			change += compiled.calculateError( touching[i], parameterPool) - constraintErrors[ touching[i]];
+		}
+		
+		return change;
+	}
+	
+	// computes the gradient of the error from the closed form derivatives of each constraint
+	// returns false if the result is not a finite number
+	private boolean calculateAnalyticGradient ( double[] gradient)
+	{
+		compiled.updateDerived( parameterPool);
+		
+		// all constraints in one pass, with the chain rule through the objects
+		// owning the points applied once for each object
+		compiled.calculateGradient( parameterPool, gradient);
+		
+		for ( int i = 0; i < parameterCount; i++)
+		{
+			if ( Double.isNaN( gradient[i]) || Double.isInfinite( gradient[i]))
+				return false;
+		}
+		
+		return true;
+	}
+
 	// calculate the error of the current parameter setup // TODO should be private
 	public double calculateError( )
 	{
 		ftimes++;
 
-		updatePoints();
-
-		double err = 0;
-		for (int i = 0; i < constraints.size(); i++)
-		{
-			err += constraints.get( i).calculateError();
-		}
+		compiled.updateDerived( parameterPool);
+		
+		if ( constraintErrors == null || constraintErrors.length != constraints.size())
+			constraintErrors = new double[ constraints.size()];
 
-		return err;
+		// keep the error of each constraint for incremental updates
+		return compiled.calculateErrors( parameterPool, constraintErrors);
 	}
 }
@@ -31,4 +31,10 @@ public abstract class GeoObject {
 	public abstract int getNumParameters ( );
 	public abstract void updateParameters ( double[] source, int startOffset);
 	public abstract double[] getParameters ( );
+	
+	// adds the derivatives with respect to the parameters of this object, given the
+	// derivatives ( gx, gy) with respect to the coordinates of its point at pointIndex
+	// source holds the current parameters and gradient receives the result, both from startOffset
+	public abstract void addPointGradient ( int pointIndex, double gx, double gy,
+											double[] source, double[] gradient, int startOffset);
 }
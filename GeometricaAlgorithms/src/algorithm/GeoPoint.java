@@ -61,6 +61,18 @@ public class GeoPoint extends GeoObject {
 		this.y = source[startOffset + 1];
 	}
 
+	@Override
+	public void addPointGradient ( int pointIndex, double gx, double gy,
+								   double[] source, double[] gradient, int startOffset)
+	{
+		if ( fixed)
+			return;
+		
+		// the parameters are the coordinates themselves
+		gradient[startOffset] += gx;
+		gradient[startOffset + 1] += gy;
+	}
+
 	@Override
 	public double[] getParameters() {
 		if ( this.isFixed())
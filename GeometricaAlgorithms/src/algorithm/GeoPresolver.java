@@ -0,0 +1,300 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+
+// simplifies a system before it is solved:
+// - constraints on fixed points only are constants, they are taken out and
+//   checked once instead of at every evaluation
+// - a point at a distance from a fixed point, or on a line through two fixed
+//   points, is given a single parameter on that circle or line instead of two
+//   coordinates, and the constraint binding it is dropped
+// - constraints given twice, possibly with their points in another order, are
+//   kept once
+public class GeoPresolver {
+	// an error below this is considered met
+	static final double tolerance = 1e-9;
+
+	// the constraints taken out as constants, and the ones of them which are not met
+	private ArrayList<GeoConstraint> constants;
+	private ArrayList<GeoConstraint> inconsistent;
+
+	// the constraints dropped as copies of others
+	private ArrayList<GeoConstraint> duplicates;
+
+	// the points given a single parameter, and the constraints they replace
+	private ArrayList<GeoLocusPoint> loci;
+	private ArrayList<GeoConstraint> bindings;
+
+	public GeoPresolver ( )
+	{
+		constants = new ArrayList<GeoConstraint>();
+		inconsistent = new ArrayList<GeoConstraint>();
+		duplicates = new ArrayList<GeoConstraint>();
+		loci = new ArrayList<GeoLocusPoint>();
+		bindings = new ArrayList<GeoConstraint>();
+	}
+
+	// simplifies the objects and constraints in place
+	public void presolve ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
+		removeDuplicates( constraints);
+		foldConstants( constraints);
+		bindPoints( objects, constraints);
+	}
+
+	// getters
+	public ArrayList<GeoConstraint> getConstants ( )
+	{
+		return constants;
+	}
+
+	public ArrayList<GeoConstraint> getInconsistentConstraints ( )
+	{
+		return inconsistent;
+	}
+
+	public ArrayList<GeoConstraint> getDuplicates ( )
+	{
+		return duplicates;
+	}
+
+	public ArrayList<GeoLocusPoint> getLoci ( )
+	{
+		return loci;
+	}
+
+	// whether the constant constraints are met, otherwise the system cannot be solved
+	public boolean isConsistent ( )
+	{
+		return inconsistent.isEmpty();
+	}
+
+	private void removeDuplicates ( ArrayList<GeoConstraint> constraints)
+	{
+		HashSet<String> keys = new HashSet<String>();
+		Iterator<GeoConstraint> iterator = constraints.iterator();
+
+		while ( iterator.hasNext())
+		{
+			GeoConstraint c = iterator.next();
+
+			if ( !keys.add( canonicalKey( c)))
+			{
+				duplicates.add( c);
+				iterator.remove();
+			}
+		}
+	}
+
+	private void foldConstants ( ArrayList<GeoConstraint> constraints)
+	{
+		Iterator<GeoConstraint> iterator = constraints.iterator();
+
+		while ( iterator.hasNext())
+		{
+			GeoConstraint c = iterator.next();
+
+			if ( isConstant( c))
+			{
+				constants.add( c);
+				if ( !( c.calculateError() < tolerance))
+					inconsistent.add( c);
+
+				iterator.remove();
+			}
+		}
+	}
+
+	// replaces free points bound to a fixed circle or line by locus points
+	private void bindPoints ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
+		HashMap<GeoPoint,GeoConstraint> binding = new HashMap<GeoPoint,GeoConstraint>();
+
+		// a distance fixes more than a line, so it is preferred
+		for ( GeoConstraint c : constraints)
+		{
+			GeoPoint[] points = c.getPoints();
+
+			if ( c.getType() == GeoConstraint.C_P2P_DISTANCE && points[0] != points[1])
+			{
+				if ( points[0].isFixed() && !binding.containsKey( points[1]))
+					binding.put( points[1], c);
+				else if ( points[1].isFixed() && !binding.containsKey( points[0]))
+					binding.put( points[0], c);
+			}
+		}
+
+		for ( GeoConstraint c : constraints)
+		{
+			GeoPoint[] points = c.getPoints();
+
+			if ( c.getType() == GeoConstraint.C_POINT_ON_LINE && !points[0].isFixed() &&
+				 points[1].isFixed() && points[2].isFixed() && !binding.containsKey( points[0]))
+				binding.put( points[0], c);
+		}
+
+		for ( int i = 0; i < objects.size(); i++)
+		{
+			GeoConstraint c;
+			GeoLocusPoint locus;
+
+			// only points that are their own objects, not the vertices of a rigid one
+			if ( !( objects.get( i) instanceof GeoPoint) || objects.get( i).getNumParameters() == 0)
+				continue;
+
+			c = binding.get( objects.get( i));
+			if ( c == null)
+				continue;
+
+			GeoPoint p = ( GeoPoint) objects.get( i);
+			GeoPoint[] points = c.getPoints();
+
+			if ( c.getType() == GeoConstraint.C_P2P_DISTANCE)
+				locus = GeoLocusPoint.createOnCircle( p, points[0] == p ? points[1] : points[0], c.getValue());
+			else
+				locus = GeoLocusPoint.createOnLine( p, points[1], points[2]);
+
+			if ( locus == null)
+				continue;
+
+			objects.set( i, locus);
+			constraints.remove( c);
+			loci.add( locus);
+			bindings.add( c);
+		}
+	}
+
+	// the error of the constraints replaced by locus points, which is zero
+	// unless the points were moved by something else
+	public double calculateBindingError ( )
+	{
+		double error = 0;
+
+		for ( GeoConstraint c : bindings)
+		{
+			error += c.calculateError();
+		}
+
+		return error;
+	}
+
+	private static boolean isConstant ( GeoConstraint c)
+	{
+		for ( GeoPoint p : c.getPoints())
+		{
+			if ( !p.isFixed())
+				return false;
+		}
+
+		return true;
+	}
+
+	// a description of a constraint that is the same for every order of its
+	// points which describes the same figure
+	static String canonicalKey ( GeoConstraint c)
+	{
+		return structuralKey( c) + "=" + c.getValue();
+	}
+	
+	// the same, without the value
+	static String structuralKey ( GeoConstraint c)
+	{
+		String key;
+
+		switch ( c.getType())
+		{
+		case GeoConstraint.C_P2P_DISTANCE:
+		{
+			GeoConstraint.CPointToPointDistance d = ( GeoConstraint.CPointToPointDistance) c;
+			key = segment( d.p1, d.p2);
+			break;
+		}
+		case GeoConstraint.C_INTERIOR_ANGLE:
+		{
+			GeoConstraint.CInteriorAngle a = ( GeoConstraint.CInteriorAngle) c;
+			key = angle( a.p1, a.p2, a.p3);
+			break;
+		}
+		case GeoConstraint.C_EQUAL_LENGTH:
+		{
+			GeoConstraint.CEqualLength e = ( GeoConstraint.CEqualLength) c;
+			key = sorted( segment( e.l1p1, e.l1p2), segment( e.l2p1, e.l2p2));
+			break;
+		}
+		case GeoConstraint.C_POINT_ON_LINE:
+		{
+			GeoConstraint.CPointOnLine l = ( GeoConstraint.CPointOnLine) c;
+			key = l.p.getName() + "|" + segment( l.lp1, l.lp2);
+			break;
+		}
+		case GeoConstraint.C_EQUAL_ANGLE:
+		{
+			GeoConstraint.CEqualAngle e = ( GeoConstraint.CEqualAngle) c;
+			key = sorted( angle( e.a1, e.a2, e.a3), angle( e.b1, e.b2, e.b3));
+			break;
+		}
+		case GeoConstraint.C_PARALLEL_LINE:
+		{
+			GeoConstraint.CParallelLine l = ( GeoConstraint.CParallelLine) c;
+			key = sorted( segment( l.l1p1, l.l1p2), segment( l.l2p1, l.l2p2));
+			break;
+		}
+		case GeoConstraint.C_POINT_TO_LINE_DISTANCE:
+		{
+			GeoConstraint.CPointToLineDistance d = ( GeoConstraint.CPointToLineDistance) c;
+			key = d.pointA.getName() + "|" + segment( d.lp1, d.lp2);
+			break;
+		}
+		case GeoConstraint.C_POINT_ON_LINE_SEGMENT:
+		{
+			GeoConstraint.CPointOnLineSegment s = ( GeoConstraint.CPointOnLineSegment) c;
+			key = s.p1.getName() + "|" + segment( s.lp1, s.lp2);
+			break;
+		}
+		case GeoConstraint.C_TRIANGULAR_AREA:
+		{
+			GeoConstraint.CTriangularArea a = ( GeoConstraint.CTriangularArea) c;
+			String[] names = { a.p1.getName(), a.p2.getName(), a.p3.getName()};
+			Arrays.sort( names);
+			key = names[0] + "-" + names[1] + "-" + names[2];
+			break;
+		}
+		default:
+		{
+			// the order of the vertices of a polygon matters
+			StringBuilder builder = new StringBuilder();
+			for ( GeoPoint p : c.getPoints())
+			{
+				builder.append( p.getName()).append( ',');
+			}
+			key = builder.toString();
+		}
+		}
+
+		return c.getType() + ":" + key;
+	}
+
+	private static String segment ( GeoPoint a, GeoPoint b)
+	{
+		return sorted( a.getName(), b.getName());
+	}
+
+	// an angle is the same with its arms swapped
+	private static String angle ( GeoPoint end1, GeoPoint corner, GeoPoint end2)
+	{
+		return corner.getName() + "<" + segment( end1, end2);
+	}
+
+	private static String sorted ( String a, String b)
+	{
+		if ( a.compareTo( b) <= 0)
+			return "(" + a + "," + b + ")";
+
+		return "(" + b + "," + a + ")";
+	}
+}
@@ -249,7 +249,6 @@ public class GeoProblemSolver {
 			}
 		}
 		
-		System.out.println( "...");
 		// TODO remove duplicates
 	}
 
@@ -0,0 +1,367 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+// finds the rigid clusters of a subsystem, figures whose shape is decided by the
+// constraints between their own points, and replaces each of them by a rigid
+// object with three parameters instead of two for each of its points
+//
+// a cluster grows from two points at a set distance; a free point joins it when
+// two of its constraints with the points of the cluster are independent in its
+// coordinates, which leaves the point only finitely many positions relative to the
+// cluster. the independence is decided at random coordinates, as in
+// GeoSystemAnalyzer, which is right for almost every figure
+//
+// each cluster is solved once on its own, by ruler and compass where possible and
+// numerically otherwise, and the solution becomes the shape of its rigid object;
+// the object may still be mirrored, but a point with two positions keeps the
+// one chosen, so a system may only be solvable without the clusters
+public class GeoRigidClusterer {
+	// an error below this is considered met
+	static final double tolerance = 1e-9;
+	// two rows are independent when their cross product is more than this part
+	// of the product of their lengths
+	static final double rankTolerance = 1e-6;
+	// smaller clusters save too little to be worth a solution
+	static final int minClusterSize = 3;
+	// the numeric solutions of a cluster, the first from the current positions
+	static final int solveTrials = 4;
+
+	private Random random;
+
+	// passed on to the solvers of the clusters
+	private CancellationToken token;
+	private long deadline;
+	private boolean hasDeadline;
+
+	// the free points of the subsystem, and the constraints involving each
+	private HashMap<GeoPoint,ArrayList<GeoConstraint>> incident;
+	// the random coordinates at which the independence is decided
+	private HashMap<GeoPoint,double[]> samples;
+
+	// the rigid objects created, and the constraints they meet by their shape
+	private ArrayList<GeoRigidObject> clusters;
+	private HashSet<GeoConstraint> replaced;
+
+	public GeoRigidClusterer ( long seed)
+	{
+		random = new Random( seed);
+
+		incident = new HashMap<GeoPoint,ArrayList<GeoConstraint>>();
+		samples = new HashMap<GeoPoint,double[]>();
+		clusters = new ArrayList<GeoRigidObject>();
+		replaced = new HashSet<GeoConstraint>();
+	}
+
+	// getters/setters:
+
+	public void setCancellationToken ( CancellationToken token)
+	{
+		this.token = token;
+	}
+
+	// the System.nanoTime() at which the solutions of the clusters stop
+	public void setDeadline ( long deadline)
+	{
+		this.deadline = deadline;
+		hasDeadline = true;
+	}
+
+	// the rigid objects which replace the clusters
+	public ArrayList<GeoRigidObject> getClusters ( )
+	{
+		return clusters;
+	}
+
+	// the constraints between the points of a cluster
+	public HashSet<GeoConstraint> getReplacedConstraints ( )
+	{
+		return replaced;
+	}
+
+	// the parameters taken away by the clusters
+	public int getParameterReduction ( )
+	{
+		int reduction = 0;
+
+		for ( GeoRigidObject cluster : clusters)
+		{
+			reduction += 2 * cluster.getPoints().size() - cluster.getNumParameters();
+		}
+
+		return reduction;
+	}
+
+	// the subsystem with its rigid clusters replaced by rigid objects, whose points
+	// are moved to the solutions of the clusters; null if it has no clusters
+	// the points stay parametrized until release() is called
+	public GeoSubsystem cluster ( GeoSubsystem component)
+	{
+		HashSet<GeoPoint> clustered;
+		GeoSubsystem result;
+
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o instanceof GeoPoint && o.getNumParameters() == 2)
+			{
+				incident.put( ( GeoPoint) o, new ArrayList<GeoConstraint>());
+				samples.put( ( GeoPoint) o, new double[] { random.nextDouble(), random.nextDouble()});
+			}
+		}
+
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( incident.containsKey( p) && !incident.get( p).contains( c))
+					incident.get( p).add( c);
+			}
+		}
+
+		// grow a cluster from each distance between points of no cluster yet
+		clustered = new HashSet<GeoPoint>();
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			GeoPoint[] points = c.getPoints();
+
+			if ( c.getType() != GeoConstraint.C_P2P_DISTANCE || points[0] == points[1] || !( c.getValue() > 0) ||
+				 !incident.containsKey( points[0]) || !incident.containsKey( points[1]) ||
+				 clustered.contains( points[0]) || clustered.contains( points[1]))
+				continue;
+
+			ArrayList<GeoPoint> members = new ArrayList<GeoPoint>();
+			ArrayList<GeoConstraint> constraints = new ArrayList<GeoConstraint>();
+
+			grow( c, clustered, members, constraints);
+
+			if ( members.size() >= minClusterSize)
+			{
+				GeoRigidObject rigid = solve( members, constraints);
+
+				// a cluster which cannot be solved is left to the solver of the whole
+				if ( rigid != null)
+				{
+					clusters.add( rigid);
+					replaced.addAll( constraints);
+					clustered.addAll( members);
+				}
+			}
+		}
+
+		if ( clusters.isEmpty())
+			return null;
+
+		result = new GeoSubsystem();
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( !clustered.contains( o))
+				result.getObjects().add( o);
+		}
+		result.getObjects().addAll( clusters);
+
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			if ( !replaced.contains( c))
+				result.getConstraints().add( c);
+		}
+
+		return result;
+	}
+
+	// the points of the clusters are single points again
+	public void release ( )
+	{
+		for ( GeoRigidObject cluster : clusters)
+		{
+			for ( GeoPoint p : cluster.getPoints())
+			{
+				p.setParametrized( false);
+			}
+		}
+	}
+
+	// grows a cluster from the points of a distance, adding its points to members
+	// and the constraints between them to constraints
+	private void grow ( GeoConstraint seed, HashSet<GeoPoint> clustered,
+						ArrayList<GeoPoint> members, ArrayList<GeoConstraint> constraints)
+	{
+		HashSet<GeoPoint> cluster = new HashSet<GeoPoint>();
+		HashSet<GeoConstraint> inside = new HashSet<GeoConstraint>();
+		ArrayDeque<GeoPoint> candidates = new ArrayDeque<GeoPoint>();
+		HashSet<GeoPoint> queued = new HashSet<GeoPoint>();
+
+		for ( GeoPoint p : seed.getPoints())
+		{
+			cluster.add( p);
+			members.add( p);
+		}
+		constraints.add( seed);
+		inside.add( seed);
+
+		for ( GeoPoint p : members)
+		{
+			queueNeighbors( p, cluster, clustered, candidates, queued);
+		}
+
+		// a point that cannot join yet is queued again once a neighbor joins
+		while ( !candidates.isEmpty())
+		{
+			GeoPoint p = candidates.poll();
+			ArrayList<GeoConstraint> joining = new ArrayList<GeoConstraint>();
+
+			queued.remove( p);
+
+			for ( GeoConstraint c : incident.get( p))
+			{
+				if ( !inside.contains( c) && isWithin( c, cluster, p))
+					joining.add( c);
+			}
+
+			if ( !isDetermined( p, joining))
+				continue;
+
+			cluster.add( p);
+			members.add( p);
+			constraints.addAll( joining);
+			inside.addAll( joining);
+
+			queueNeighbors( p, cluster, clustered, candidates, queued);
+		}
+	}
+
+	private void queueNeighbors ( GeoPoint p, HashSet<GeoPoint> cluster, HashSet<GeoPoint> clustered,
+								  ArrayDeque<GeoPoint> candidates, HashSet<GeoPoint> queued)
+	{
+		for ( GeoConstraint c : incident.get( p))
+		{
+			for ( GeoPoint q : c.getPoints())
+			{
+				if ( incident.containsKey( q) && !cluster.contains( q) && !clustered.contains( q) && queued.add( q))
+					candidates.add( q);
+			}
+		}
+	}
+
+	// whether the constraint involves p and otherwise only points of the cluster
+	private static boolean isWithin ( GeoConstraint c, HashSet<GeoPoint> cluster, GeoPoint p)
+	{
+		for ( GeoPoint q : c.getPoints())
+		{
+			if ( q != p && !cluster.contains( q))
+				return false;
+		}
+
+		return true;
+	}
+
+	// whether two of the constraints are independent in the coordinates of p,
+	// which then has only finitely many positions relative to the others
+	private boolean isDetermined ( GeoPoint p, ArrayList<GeoConstraint> joining)
+	{
+		double firstX = 0;
+		double firstY = 0;
+		boolean first = false;
+
+		if ( joining.size() < 2)
+			return false;
+
+		for ( GeoConstraint c : joining)
+		{
+			GeoPoint[] points = c.getPoints();
+			double[] values = new double[ 2 * points.length];
+			double[] gradient = new double[ 2 * points.length];
+			double x = 0;
+			double y = 0;
+
+			for ( int j = 0; j < points.length; j++)
+			{
+				values[2 * j] = samples.get( points[j])[0];
+				values[2 * j + 1] = samples.get( points[j])[1];
+			}
+
+			c.calculateResidualGradient( values, GeoConstraint.sequentialOffsets( points.length), 0, gradient);
+
+			// the point may appear more than once
+			for ( int j = 0; j < points.length; j++)
+			{
+				if ( points[j] == p)
+				{
+					x += gradient[2 * j];
+					y += gradient[2 * j + 1];
+				}
+			}
+
+			if ( !first)
+			{
+				if ( x != 0 || y != 0)
+				{
+					firstX = x;
+					firstY = y;
+					first = true;
+				}
+			}
+			else if ( Math.abs( firstX * y - firstY * x) > rankTolerance * Math.hypot( firstX, firstY) * Math.hypot( x, y))
+				return true;
+		}
+
+		return false;
+	}
+
+	// solves a cluster on a copy of its points, and creates its rigid object
+	// from the solution; null if it cannot be solved
+	private GeoRigidObject solve ( ArrayList<GeoPoint> members, ArrayList<GeoConstraint> constraints)
+	{
+		GeoSubsystem part = new GeoSubsystem();
+		HashMap<GeoPoint,GeoPoint> copies = new HashMap<GeoPoint,GeoPoint>();
+		GeoSubsystem copy;
+		boolean solved;
+		double[] data;
+
+		part.getObjects().addAll( members);
+		part.getConstraints().addAll( constraints);
+		copy = part.copy( copies);
+
+		GeoConstructivePlacer placer = new GeoConstructivePlacer( copy);
+		solved = placer.place().size() == members.size() && placer.calculateError() < tolerance;
+
+		if ( !solved)
+		{
+			GeoNumericSolver solver = new GeoNumericSolver();
+
+			solver.setRandomSeed( random.nextLong());
+			solver.setCancellationToken( token);
+			if ( hasDeadline)
+				solver.setDeadline( deadline);
+			solver.addConstraints( copy.getConstraints());
+			solver.addObjects( copy.getObjects());
+
+			for ( int i = 0; i < solveTrials && !solved; i++)
+			{
+				SolverStats stats = solver.findSolution( true, i > 0);
+
+				solved = stats.isSolved();
+				if ( stats.getStatus() == SolverStats.STATUS_TIMED_OUT || stats.getStatus() == SolverStats.STATUS_CANCELLED)
+					break;
+			}
+		}
+
+		if ( !solved)
+			return null;
+
+		data = new double[ 2 * members.size()];
+		for ( int i = 0; i < members.size(); i++)
+		{
+			GeoPoint p = copies.get( members.get( i));
+
+			data[2 * i] = p.getX();
+			data[2 * i + 1] = p.getY();
+		}
+
+		return GeoRigidObject.createFromPointData( false, data, members.toArray( new GeoPoint[ members.size()]));
+	}
+}
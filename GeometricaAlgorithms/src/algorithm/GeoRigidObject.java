@@ -9,18 +9,44 @@ public class GeoRigidObject extends GeoCompoundObject {
 	
 	private double[] pointData;
 	private boolean scaleable;
+	
+	// whether the shape may also be taken mirrored: a regular polygon is the same
+	// mirrored, with its points in the other order, any other shape is not
+	private boolean mirrorable;
+	
+	// the cosine and sine of the last rotation, which every placement and gradient
+	// of the same parameters needs again
+	private double cachedRotation;
+	private double cachedCos, cachedSin;
+	
+	// the parameters the points were last moved to by updateParameters, and where
+	// each point went, x and y in turn
+	// while placed, the points need not be moved again as long as the parameters are
+	// the same and every point is still where it went; the points are written from
+	// outside too, by the solution cache or by setX() and setY(), so all of them are
+	// compared; placed is cleared whenever the shape or the order of the points changes
+	private double placedX, placedY, placedRotation, placedScale;
+	private double[] placedPoints;
+	private boolean placed;
 
 	public GeoRigidObject(String name, boolean scaleable) {
 		super(name, "rigid");
 		
 		this.scaleable = scaleable;
 		
+		cachedRotation = Double.NaN;
+		placed = false;
+		mirrorable = false;
 	}
 	
 	public GeoRigidObject( boolean scaleable) {
 		super( "rigid*", "rigid");
 		
 		this.scaleable = scaleable;
+		
+		cachedRotation = Double.NaN;
+		placed = false;
+		mirrorable = false;
 	}
 
 	@Override
@@ -30,15 +56,62 @@ public class GeoRigidObject extends GeoCompoundObject {
 		return 3;
 	}
 
+	// whether the size of the object is a parameter
+	boolean isScaleable ( )
+	{
+		return scaleable;
+	}
+	
+	// whether the shape may be mirrored, see mirror()
+	boolean isMirrorable ( )
+	{
+		return mirrorable;
+	}
+	
+	// mirrors the shape about its x axis; solutions of a system are solutions
+	// again when mirrored, but with a rigid shape among them only if it is
+	// mirrored too, so a start may pick either
+	void mirror ( )
+	{
+		double[] mirrored = new double[ pointData.length];
+		
+		// the data may be shared with copies
+		for ( int i = 0; i < pointData.length; i += 2)
+		{
+			mirrored[i] = pointData[i];
+			mirrored[i + 1] = -pointData[i + 1];
+		}
+		
+		pointData = mirrored;
+		placed = false;
+	}
+	
+	// the average distance between consecutive points of the shape, at scale 100
+	double getShapeSize ( )
+	{
+		int n = pointData.length / 2;
+		double size = 0;
+		
+		for ( int i = 0; i < n; i++)
+		{
+			int j = ( i + 1) % n;
+			
+			size += Math.hypot( pointData[2 * j] - pointData[2 * i], pointData[2 * j + 1] - pointData[2 * i + 1]);
+		}
+		
+		if ( size == 0)
+			return 1;
+		
+		return size / n;
+	}
+	
 	@Override
 	public void updateParameters(double[] source, int startOffset) {
 		ArrayList<GeoPoint> points = getPoints();
 		double x, y;
 		double rotation;
 		double scale;
-		
-		GeoPoint p;
-		double newX, newY;
+		double cos, sin;
 		 
 		x = source[startOffset];
 		y = source[startOffset + 1];
@@ -48,23 +121,110 @@ public class GeoRigidObject extends GeoCompoundObject {
 			scale = source[startOffset + 3] / 100;
 		else
 			scale = 1;
+		
+		if ( placed && x == placedX && y == placedY && rotation == placedRotation && scale == placedScale
+			 && isPlaced( points))
+			return;
+		
+		updateTrigonometry( rotation);
+		cos = scale * cachedCos;
+		sin = scale * cachedSin;
+		
+		if ( placedPoints == null || placedPoints.length != 2 * points.size())
+			placedPoints = new double[ 2 * points.size()];
 		 
-		// place each point appropriately
+		// rotate and scale each point, then translate
 		for ( int i = 0; i < points.size(); i++)
 		{
-			p = points.get( i);
+			GeoPoint p = points.get( i);
+			double localX = pointData[2 * i];
+			double localY = pointData[2 * i + 1];
 			
-			// first rotate and scale,
-			newX = scale * ( pointData[2 * i] * Math.cos( rotation) - pointData[2 * i + 1] * Math.sin( rotation));
-			newY = scale * ( pointData[2 * i] * Math.sin( rotation) + pointData[2 * i + 1] * Math.cos( rotation));
-			 
-			// then translate
-			newX += x;
-			newY += y;
-			
-			p.setX( newX);
-			p.setY( newY);
+			p.setX( x + ( localX * cos - localY * sin));
+			p.setY( y + ( localX * sin + localY * cos));
+			placedPoints[2 * i] = p.getX();
+			placedPoints[2 * i + 1] = p.getY();
 		}
+		
+		placedX = x;
+		placedY = y;
+		placedRotation = rotation;
+		placedScale = scale;
+		placed = true;
+	}
+	
+	// whether every point is still where updateParameters last put it
+	private boolean isPlaced ( ArrayList<GeoPoint> points)
+	{
+		if ( placedPoints.length != 2 * points.size())
+			return false;
+		
+		for ( int i = 0; i < points.size(); i++)
+		{
+			if ( points.get( i).getX() != placedPoints[2 * i] || points.get( i).getY() != placedPoints[2 * i + 1])
+				return false;
+		}
+		
+		return true;
+	}
+	
+	@Override
+	public void placePoints ( double[] source, int startOffset, double[] target, int targetOffset)
+	{
+		double x, y;
+		double scale;
+		double cos, sin;
+		
+		x = source[startOffset];
+		y = source[startOffset + 1];
+		updateTrigonometry( source[startOffset + 2]);
+		
+		if ( scaleable)
+			scale = source[startOffset + 3] / 100;
+		else
+			scale = 1;
+		
+		cos = scale * cachedCos;
+		sin = scale * cachedSin;
+		
+		for ( int i = 0; i < 2 * points.size(); i += 2)
+		{
+			target[targetOffset + i] = x + ( pointData[i] * cos - pointData[i + 1] * sin);
+			target[targetOffset + i + 1] = y + ( pointData[i] * sin + pointData[i + 1] * cos);
+		}
+	}
+	
+	@Override
+	public void addPointGradient( int pointIndex, double gx, double gy,
+								  double[] source, double[] gradient, int startOffset) {
+		double scale;
+		double localX, localY;
+		double cos, sin;
+		
+		if ( scaleable)
+			scale = source[startOffset + 3] / 100;
+		else
+			scale = 1;
+		
+		// called for each point in turn, with the same rotation
+		updateTrigonometry( source[startOffset + 2]);
+		cos = cachedCos;
+		sin = cachedSin;
+		
+		// the rotated, unscaled position of the point relative to the center
+		localX = pointData[2 * pointIndex] * cos - pointData[2 * pointIndex + 1] * sin;
+		localY = pointData[2 * pointIndex] * sin + pointData[2 * pointIndex + 1] * cos;
+		
+		// translation
+		gradient[startOffset] += gx;
+		gradient[startOffset + 1] += gy;
+		
+		// rotation
+		gradient[startOffset + 2] += scale * ( -gx * localY + gy * localX);
+		
+		// scale, which is kept as a percentage
+		if ( scaleable)
+			gradient[startOffset + 3] += ( gx * localX + gy * localY) / 100;
 	}
 	
 	@Override
@@ -77,70 +237,157 @@ public class GeoRigidObject extends GeoCompoundObject {
 		// an estimate of the angle
 		double rotation;
 		
+		ArrayList<GeoPoint> points = getPoints();
+		int n = points.size();
+		
 		avgX = avgY = 0;
 		
 		// compute the average:
-		for ( GeoPoint p : getPoints())
+		for ( GeoPoint p : points)
 		{
 			avgX += p.getX();
 			avgY += p.getY();
 		}
 		
-		avgX /= getPoints().size();
-		avgY /= getPoints().size();
+		avgX /= n;
+		avgY /= n;
+		
+		if ( mirrorable)
+			return fitParameters( avgX, avgY);
 
 		scale = 0;
 		// find the average value of the scale
-		for ( int i = 0; i < getPoints().size(); i++)
+		for ( int i = 0; i < n; i++)
 		{
-			double realDist = getPoints().get( i).getPositionVector().distanceTo( getPoints().get( (i + 1) % getPoints().size()).getPositionVector());
-			double expectedDist = new Vector2( pointData[2 * i], pointData[2 * i + 1])
-				.distanceTo( new Vector2( pointData[2 * (i + 1) % getPoints().size()], pointData[2 * (i + 1) % getPoints().size() + 1]));
+			int j = ( i + 1) % n;
+			double realDist = Math.hypot( points.get( j).getX() - points.get( i).getX(), points.get( j).getY() - points.get( i).getY());
+			double expectedDist = Math.hypot( pointData[2 * j] - pointData[2 * i], pointData[2 * j + 1] - pointData[2 * i + 1]);
 			
 			scale += realDist / expectedDist * 100;
 		}
 		
-		scale /= getPoints().size();
+		scale /= n;
 		
 		
 		// check if the system is counterclockwise or clockwise
-		ArrayList<GeoPoint> points = getPoints();
 		double cwResult = 0;
-		for ( int i = 0; i < points.size(); i++)
+		for ( int i = 0; i < n; i++)
 		{
-			Vector2 p1, p2;
-			p1 = new Vector2( points.get( i).getX(), points.get( i).getY());
-			p2 = new Vector2( points.get( (i + 1) % points.size()).getX(), points.get( (i + 1) % points.size()).getY());
+			int j = ( i + 1) % n;
 			
-			p1 = p1.substract( new Vector2( avgX, avgY));
-			p2 = p2.substract( new Vector2( avgX, avgY));
-			
-			cwResult += ( p2.getX() - p1.getX()) * ( p2.getY() + p1.getY());
+			// the edge relative to the average, ( x2 - x1) * ( y2 + y1)
+			cwResult += ( points.get( j).getX() - points.get( i).getX())
+						* ( points.get( j).getY() + points.get( i).getY() - 2 * avgY);
 		}
 		
 		if ( cwResult > 0) // clockwise
 		{
 			Collections.reverse( points);
-			System.out.println( "clockwise");
+			placed = false;
 		}
 		
 		// estimate the rotation
-		Vector2 vpoint1 = getPoints().get( 0).getPositionVector().substract( new Vector2( avgX, avgY));
-		rotation = Math.atan2( vpoint1.getY(), vpoint1.getX()) - Math.atan2( pointData[1], pointData[0]);
+		rotation = Math.atan2( points.get( 0).getY() - avgY, points.get( 0).getX() - avgX) - Math.atan2( pointData[1], pointData[0]);
+		
+		return new double[] { avgX, avgY, rotation, scale};
+	}
+	
+	// the parameters that lay the shape over the points with the least squared
+	// distance, mirroring it first if the points are the other way round
+	private double[] fitParameters ( double avgX, double avgY)
+	{
+		ArrayList<GeoPoint> points = getPoints();
+		double sxx, sxy, syx, syy;
+		double norm;
+		double rotation, scale;
+		
+		sxx = sxy = syx = syy = norm = 0;
+		for ( int i = 0; i < points.size(); i++)
+		{
+			double localX = pointData[2 * i];
+			double localY = pointData[2 * i + 1];
+			double x = points.get( i).getX() - avgX;
+			double y = points.get( i).getY() - avgY;
+			
+			sxx += localX * x;
+			sxy += localX * y;
+			syx += localY * x;
+			syy += localY * y;
+			norm += localX * localX + localY * localY;
+		}
+		
+		// a negative determinant is a reflection
+		if ( sxx * syy - sxy * syx < 0)
+		{
+			mirror();
+			syx = -syx;
+			syy = -syy;
+		}
+		
+		rotation = Math.atan2( sxy - syx, sxx + syy);
+		
+		if ( norm == 0)
+			scale = 100;
+		else
+			scale = 100 * Math.hypot( sxy - syx, sxx + syy) / norm;
 		
 		return new double[] { avgX, avgY, rotation, scale};
 	}
 	
+	// creates a rigid object of the same shape on other points,
+	// given in the same order as the points of this object
+	@Override
+	public GeoRigidObject copyOnto ( ArrayList<GeoPoint> points)
+	{
+		GeoRigidObject rigidObject;
+		
+		rigidObject = new GeoRigidObject( name, scaleable);
+		rigidObject.pointData = pointData;
+		rigidObject.mirrorable = mirrorable;
+		
+		for ( GeoPoint p : points)
+		{
+			rigidObject.addPoint( p);
+		}
+		
+		return rigidObject;
+	}
+	
+	// computes the cosine and sine of a rotation, unless they are those of the last one
+	private void updateTrigonometry ( double rotation)
+	{
+		if ( rotation != cachedRotation)
+		{
+			cachedCos = Math.cos( rotation);
+			cachedSin = Math.sin( rotation);
+			cachedRotation = rotation;
+		}
+	}
+	
+	// takes the shape from the points, centered on their average as getParameters() expects
 	private void process ( )
 	{
 		ArrayList<GeoPoint> points = getPoints();
+		double avgX, avgY;
+		
 		pointData = new double[points.size() * 2];
 		
+		avgX = avgY = 0;
+		for ( GeoPoint p : points)
+		{
+			avgX += p.getX();
+			avgY += p.getY();
+		}
+		avgX /= points.size();
+		avgY /= points.size();
+		
 		for ( int i = 0; i < points.size(); i++)
 		{
-			pointData[2 * i] = points.get( i).getX();
-			pointData[2 * i + 1] = points.get( i).getY();
+			pointData[2 * i] = points.get( i).getX() - avgX;
+			pointData[2 * i + 1] = points.get( i).getY() - avgY;
 		}
+		
+		placed = false;
 	}
 	
 	public static GeoRigidObject createRegularPolygon ( double sideLength, GeoPoint... points)
@@ -205,14 +452,17 @@ public class GeoRigidObject extends GeoCompoundObject {
 		return rigidObject;
 	}
 	
+	// a rigid object of any shape, given by the coordinates of its points in data,
+	// x and y in turn; the points are moved there
 	public static GeoRigidObject createFromPointData ( boolean scaleable, double[] data, GeoPoint... points)
 	{
-		if ( points.length != data.length * 2)
+		if ( data.length != points.length * 2 || points.length == 0)
 			return null;
 		
 		GeoRigidObject rigidObject;
 		
-		rigidObject = new GeoRigidObject( true);
+		rigidObject = new GeoRigidObject( scaleable);
+		rigidObject.mirrorable = true;
 		
 		int i = 0;
 		for ( GeoPoint p : points)
@@ -0,0 +1,195 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// remembers the solved coordinates of recent constructs, so that solving the
+// same construct again is free and solving a slightly changed one starts
+// from the previous solution instead of random positions
+//
+// constructs are identified by a fingerprint of their points, fixed coordinates
+// and constraints; two constructs differing only in the values of their
+// constraints, such as a distance, share the same structure and are near hits
+// the least recently used structure is dropped once the cache is full
+public class GeoSolutionCache {
+	// results of a lookup
+	public static final int MISS = 0;
+	public static final int NEAR_HIT = 1;
+	public static final int EXACT_HIT = 2;
+	
+	private final int capacity;
+	
+	// the solution of each structure, in the order of their last use
+	private LinkedHashMap<String,Solution> entries;
+	
+	private long hits;
+	private long nearHits;
+	private long misses;
+	
+	public GeoSolutionCache ( int capacity)
+	{
+		this.capacity = Math.max( 1, capacity);
+		
+		entries = new LinkedHashMap<String,Solution>( 16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry ( Map.Entry<String,Solution> eldest)
+			{
+				return size() > GeoSolutionCache.this.capacity;
+			}
+		};
+	}
+	
+	// moves the points of the construct to a cached solution of it, if there is one
+	// returns EXACT_HIT if the construct is already solved by the new coordinates,
+	// NEAR_HIT if they only make a good starting point, or MISS if nothing was changed
+	public synchronized int restore ( GeoConstruct construct)
+	{
+		String[] key = fingerprint( construct);
+		Solution entry = entries.get( key[0]);
+		
+		if ( entry == null)
+		{
+			misses++;
+			return MISS;
+		}
+		
+		for ( int i = 0; i < entry.names.length; i++)
+		{
+			GeoPoint p = construct.findPoint( entry.names[i]);
+			
+			if ( p != null && !p.isFixed())
+			{
+				p.setX( entry.coordinates[2 * i]);
+				p.setY( entry.coordinates[2 * i + 1]);
+			}
+		}
+		
+		if ( entry.values.equals( key[1]))
+		{
+			hits++;
+			return EXACT_HIT;
+		}
+		
+		nearHits++;
+		return NEAR_HIT;
+	}
+	
+	// saves the current coordinates of the construct as its solution
+	public synchronized void store ( GeoConstruct construct)
+	{
+		String[] key = fingerprint( construct);
+		ArrayList<GeoPoint> points = construct.getPoints();
+		Solution entry = new Solution();
+		
+		entry.values = key[1];
+		entry.names = new String[ points.size()];
+		entry.coordinates = new double[ 2 * points.size()];
+		
+		for ( int i = 0; i < points.size(); i++)
+		{
+			entry.names[i] = points.get( i).getName();
+			entry.coordinates[2 * i] = points.get( i).getX();
+			entry.coordinates[2 * i + 1] = points.get( i).getY();
+		}
+		
+		entries.put( key[0], entry);
+	}
+	
+	public synchronized void clear ( )
+	{
+		entries.clear();
+	}
+	
+	public synchronized int size ( )
+	{
+		return entries.size();
+	}
+	
+	public int getCapacity ( )
+	{
+		return capacity;
+	}
+	
+	// lookup counters
+	public synchronized long getHits ( )
+	{
+		return hits;
+	}
+	
+	public synchronized long getNearHits ( )
+	{
+		return nearHits;
+	}
+	
+	public synchronized long getMisses ( )
+	{
+		return misses;
+	}
+	
+	// the canonical description of a construct: the structure, made of the points,
+	// the fixed coordinates and the kinds of constraints on each tuple of points,
+	// and the same with the values of the constraints added
+	// both are sorted, so the order of the lines of a script does not matter
+	static String[] fingerprint ( GeoConstruct construct)
+	{
+		ArrayList<String> points;
+		ArrayList<String> structure;
+		ArrayList<String> values;
+		
+		points = new ArrayList<String>();
+		for ( GeoPoint p : construct.getPoints())
+		{
+			if ( p.isFixed())
+				points.add( p.getName() + "@" + p.getX() + "," + p.getY());
+			else
+				points.add( p.getName());
+		}
+		Collections.sort( points);
+		
+		structure = new ArrayList<String>();
+		values = new ArrayList<String>();
+		for ( GeoConstraint c : construct.getConstraints())
+		{
+			StringBuilder description = new StringBuilder();
+			
+			description.append( c.getType());
+			for ( GeoPoint p : c.getPoints())
+			{
+				description.append( ' ').append( p.getName());
+			}
+			
+			structure.add( description.toString());
+			values.add( description.append( '=').append( c.getValue()).toString());
+		}
+		Collections.sort( structure);
+		Collections.sort( values);
+		
+		return new String[]{ join( points) + "|" + join( structure), join( values) };
+	}
+	
+	private static String join ( ArrayList<String> parts)
+	{
+		StringBuilder result = new StringBuilder();
+		
+		for ( String part : parts)
+		{
+			result.append( part).append( ';');
+		}
+		
+		return result.toString();
+	}
+	
+	// a cached solution
+	private static class Solution {
+		// the constraint values it solves
+		String values;
+		// the coordinates of the named points, x and y in turn
+		String[] names;
+		double[] coordinates;
+	}
+}
@@ -0,0 +1,237 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// an independent part of a geometric system: a set of objects together with
+// the constraints between them, which can be solved without the rest
+//
+// fixed points have no parameters, so they never join two subsystems; a figure
+// attached to the rest of the construct only through fixed points is solved alone
+public class GeoSubsystem {
+	private ArrayList<GeoObject> objects;
+	private ArrayList<GeoConstraint> constraints;
+
+	public GeoSubsystem ( )
+	{
+		objects = new ArrayList<GeoObject>();
+		constraints = new ArrayList<GeoConstraint>();
+	}
+
+	// getters
+	public ArrayList<GeoObject> getObjects ( )
+	{
+		return objects;
+	}
+
+	public ArrayList<GeoConstraint> getConstraints ( )
+	{
+		return constraints;
+	}
+
+	// the coordinates of the points moved by the objects, x and y in turn
+	public double[] savePositions ( )
+	{
+		ArrayList<GeoPoint> points = getPoints();
+		double[] positions = new double[ 2 * points.size()];
+		
+		for ( int i = 0; i < points.size(); i++)
+		{
+			positions[2 * i] = points.get( i).getX();
+			positions[2 * i + 1] = points.get( i).getY();
+		}
+		
+		return positions;
+	}
+	
+	// moves the points back to coordinates given by savePositions()
+	public void restorePositions ( double[] positions)
+	{
+		ArrayList<GeoPoint> points = getPoints();
+		
+		for ( int i = 0; i < points.size(); i++)
+		{
+			points.get( i).setX( positions[2 * i]);
+			points.get( i).setY( positions[2 * i + 1]);
+		}
+	}
+	
+	// the points moved by the objects of this subsystem
+	public ArrayList<GeoPoint> getPoints ( )
+	{
+		ArrayList<GeoPoint> points = new ArrayList<GeoPoint>();
+		
+		for ( GeoObject o : objects)
+		{
+			if ( o instanceof GeoPoint)
+				points.add( ( GeoPoint) o);
+			else if ( o instanceof GeoCompoundObject)
+				points.addAll( ( ( GeoCompoundObject) o).getPoints());
+		}
+		
+		return points;
+	}
+	
+	// creates an independent copy of this subsystem, which can be solved
+	// concurrently with it; points maps each original point to its copy
+	// fixed points are never written by a solver, so they are shared
+	public GeoSubsystem copy ( HashMap<GeoPoint,GeoPoint> points)
+	{
+		GeoSubsystem copy = new GeoSubsystem();
+		
+		for ( GeoObject o : objects)
+		{
+			if ( o instanceof GeoPoint)
+			{
+				copy.objects.add( copyPoint( ( GeoPoint) o, points));
+			}
+			else if ( o instanceof GeoCompoundObject)
+			{
+				ArrayList<GeoPoint> vertices = new ArrayList<GeoPoint>();
+				
+				for ( GeoPoint p : ( ( GeoCompoundObject) o).getPoints())
+				{
+					vertices.add( copyPoint( p, points));
+				}
+				
+				copy.objects.add( ( ( GeoCompoundObject) o).copyOnto( vertices));
+			}
+		}
+		
+		for ( GeoConstraint c : constraints)
+		{
+			copy.constraints.add( c.copyOnto( points));
+		}
+		
+		return copy;
+	}
+	
+	private static GeoPoint copyPoint ( GeoPoint p, HashMap<GeoPoint,GeoPoint> points)
+	{
+		GeoPoint copy = new GeoPoint( p.getName(), p.getX(), p.getY(), p.isFixed());
+		
+		copy.setParametrized( p.isParametrized());
+		points.put( p, copy);
+		
+		return copy;
+	}
+	
+	// splits a system into the connected components of its object/constraint graph
+	// constraints that only involve constant points are returned in constants, if it is not null
+	public static ArrayList<GeoSubsystem> partition ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints,
+													  ArrayList<GeoConstraint> constants)
+	{
+		HashMap<GeoPoint,Integer> owners;
+		int[] parent;
+		int[] constraintRoots;
+		HashMap<Integer,GeoSubsystem> components;
+		ArrayList<GeoSubsystem> result;
+
+		// find the object parametrizing each point
+		owners = new HashMap<GeoPoint,Integer>();
+		for ( int i = 0; i < objects.size(); i++)
+		{
+			GeoObject o = objects.get( i);
+
+			if ( o.getNumParameters() == 0)
+				continue;
+
+			if ( o instanceof GeoPoint)
+				owners.put( ( GeoPoint) o, i);
+			else if ( o instanceof GeoCompoundObject)
+			{
+				for ( GeoPoint p : ( ( GeoCompoundObject) o).getPoints())
+				{
+					owners.put( p, i);
+				}
+			}
+		}
+
+		// join the owners of the points of every constraint
+		parent = new int[ objects.size()];
+		for ( int i = 0; i < parent.length; i++)
+		{
+			parent[i] = i;
+		}
+
+		constraintRoots = new int[ constraints.size()];
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			int first = -1;
+
+			for ( GeoPoint p : constraints.get( i).getPoints())
+			{
+				Integer owner = owners.get( p);
+
+				if ( owner == null)
+					continue;
+
+				if ( first < 0)
+					first = owner;
+				else
+					union( parent, first, owner);
+			}
+
+			constraintRoots[i] = first;
+		}
+
+		// collect the components, in the order of their first object
+		components = new HashMap<Integer,GeoSubsystem>();
+		result = new ArrayList<GeoSubsystem>();
+
+		for ( int i = 0; i < objects.size(); i++)
+		{
+			// fixed points are constants, they do not need solving
+			if ( objects.get( i).getNumParameters() == 0)
+				continue;
+			
+			int root = find( parent, i);
+			GeoSubsystem component = components.get( root);
+
+			if ( component == null)
+			{
+				component = new GeoSubsystem();
+				components.put( root, component);
+				result.add( component);
+			}
+
+			component.objects.add( objects.get( i));
+		}
+
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			if ( constraintRoots[i] < 0)
+			{
+				// nothing to solve for, the value of this constraint is already decided
+				if ( constants != null)
+					constants.add( constraints.get( i));
+			}
+			else
+				components.get( find( parent, constraintRoots[i])).constraints.add( constraints.get( i));
+		}
+
+		return result;
+	}
+
+	// union-find helpers
+	private static int find ( int[] parent, int i)
+	{
+		while ( parent[i] != i)
+		{
+			parent[i] = parent[ parent[i]];
+			i = parent[i];
+		}
+
+		return i;
+	}
+
+	private static void union ( int[] parent, int a, int b)
+	{
+		a = find( parent, a);
+		b = find( parent, b);
+
+		if ( a != b)
+			parent[ Math.max( a, b)] = Math.min( a, b);
+	}
+}
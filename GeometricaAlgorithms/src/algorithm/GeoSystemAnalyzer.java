@@ -0,0 +1,528 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+// finds out before solving whether a system can be solved at all:
+// - the degrees of freedom of each part are counted against its constraints,
+//   less the rigid motions which move a free figure without changing it
+// - the rank of the Jacobian of the residuals at a random configuration tells
+//   which constraints follow from the others; these are redundant, and either
+//   hold by themselves or can never hold
+// - constraints on fixed points only which are not met, and constraints given
+//   twice with different values, can never hold
+//
+// the constraints which can never hold are inconsistent, a system with any of
+// them is rejected without solving; the diagnosis names them through getErrors()
+//
+// metric contradictions are not found here: the sides 10, 10 and 50 of a
+// triangle are independent equations, which merely have no common solution.
+// GeoDrawingOptimizer reports these once its random starts keep ending at the
+// same error, with the constraints missed there
+public class GeoSystemAnalyzer {
+	// an error below this is considered met
+	static final double tolerance = 1e-9;
+	// a row is dependent on the earlier ones when elimination leaves less than
+	// this part of it
+	static final double rankTolerance = 1e-6;
+	// parts with more parameters than this are only counted, not factored
+	static final int maxFactoredParameters = 20000;
+
+	// the source of the trial configurations
+	private Random random;
+
+	// the totals of the parts analyzed so far
+	private int parameterCount;
+	private int equationCount;
+	private int rank;
+	private int gauge;
+	private int unfactored;
+
+	private ArrayList<GeoConstraint> redundant;
+	private ArrayList<GeoConstraint> inconsistent;
+	// the constraint each inconsistent one conflicts with, if any
+	private HashMap<GeoConstraint,GeoConstraint> conflicts;
+
+	public GeoSystemAnalyzer ( long seed)
+	{
+		random = new Random( seed);
+
+		redundant = new ArrayList<GeoConstraint>();
+		inconsistent = new ArrayList<GeoConstraint>();
+		conflicts = new HashMap<GeoConstraint,GeoConstraint>();
+	}
+
+	// getters
+
+	// the parameters of the analyzed parts
+	public int getParameterCount ( )
+	{
+		return parameterCount;
+	}
+
+	// the constraints of the analyzed parts, one equation each
+	public int getEquationCount ( )
+	{
+		return equationCount;
+	}
+
+	// the number of independent equations
+	public int getRank ( )
+	{
+		return rank;
+	}
+
+	// the rigid motions of the free parts, which no constraint can take away
+	public int getGauge ( )
+	{
+		return gauge;
+	}
+
+	// the ways the figure can still change shape; more than 0 if it is under-constrained
+	public int getFreedoms ( )
+	{
+		return parameterCount - rank - gauge;
+	}
+
+	// the number of parameters of parts too large to factor, whose redundancy is unknown
+	public int getUnfactoredParameters ( )
+	{
+		return unfactored;
+	}
+
+	public ArrayList<GeoConstraint> getRedundantConstraints ( )
+	{
+		return redundant;
+	}
+
+	public ArrayList<GeoConstraint> getInconsistentConstraints ( )
+	{
+		return inconsistent;
+	}
+
+	// whether no constraint was found to be impossible
+	public boolean isConsistent ( )
+	{
+		return inconsistent.isEmpty();
+	}
+
+	// marks a constraint that can never hold, optionally with the one it conflicts with
+	// the parts of a system may be solved concurrently, so this is synchronized
+	synchronized void addInconsistent ( GeoConstraint c, GeoConstraint other)
+	{
+		if ( inconsistent.contains( c))
+			return;
+
+		inconsistent.add( c);
+		if ( other != null)
+			conflicts.put( c, other);
+	}
+
+	// constraints whose points are all fixed, which are met or not regardless of the solution
+	public void checkConstants ( ArrayList<GeoConstraint> constants)
+	{
+		for ( GeoConstraint c : constants)
+		{
+			if ( !( c.calculateError() < tolerance))
+				addInconsistent( c, null);
+		}
+	}
+
+	// constraints on the same figure with different values
+	public void checkConflicts ( ArrayList<GeoConstraint> constraints)
+	{
+		HashMap<String,GeoConstraint> figures = new HashMap<String,GeoConstraint>();
+
+		for ( GeoConstraint c : constraints)
+		{
+			String key = GeoPresolver.structuralKey( c);
+			GeoConstraint first = figures.get( key);
+
+			if ( first == null)
+				figures.put( key, c);
+			else if ( Math.abs( first.getValue() - c.getValue()) > tolerance * Math.max( 1, Math.abs( first.getValue())))
+				addInconsistent( c, first);
+		}
+	}
+
+	// counts the freedoms of an independent part and finds its redundant constraints
+	// returns the redundant constraints of the part
+	public ArrayList<GeoConstraint> analyze ( GeoSubsystem component)
+	{
+		ArrayList<GeoConstraint> found = new ArrayList<GeoConstraint>();
+		GeoLeastSquaresSolver solver;
+		int n;
+
+		solver = new GeoLeastSquaresSolver();
+		solver.setRandomSeed( random.nextLong());
+		solver.addObjects( component.getObjects());
+		solver.addConstraints( component.getConstraints());
+		solver.sampleJacobian();
+
+		n = solver.parameterCount;
+		parameterCount += n;
+		equationCount += component.getConstraints().size();
+
+		int[] rowStart = solver.getJacobianRows();
+		int[] columns = solver.getJacobianColumns();
+		double[] values = solver.getJacobianValues();
+
+		int motions = countGauge( component, solver.parameterPool);
+		gauge += motions;
+
+		if ( n > maxFactoredParameters)
+		{
+			// assume the constraints are independent, as far as they can be
+			rank += Math.min( n - motions, component.getConstraints().size());
+			unfactored += n;
+			return found;
+		}
+
+		// eliminate the rows in order, a row reduced to nothing follows from the earlier ones
+		Elimination elimination = new Elimination( n);
+		int independent = 0;
+
+		for ( int i = 0; i < component.getConstraints().size(); i++)
+		{
+			if ( elimination.add( columns, values, rowStart[i], rowStart[i + 1]))
+				independent++;
+			else
+				found.add( component.getConstraints().get( i));
+		}
+
+		// rounding errors add up over large parts, and may leave a few dependent
+		// rows seemingly independent; the motions are never constrained
+		rank += Math.min( independent, n - motions);
+		redundant.addAll( found);
+
+		return found;
+	}
+
+	// the number of independent rigid motions that the free objects of the part
+	// can follow without changing any constraint
+	//
+	// the motions are combinations of the translations along x and y and the
+	// rotation about the origin; those which move a fixed point, the center of a
+	// circle a point is bound to, or a line a point is bound to, are not allowed.
+	// this is decided from the anchors and not from the Jacobian, since residuals
+	// such as that of a point on a line change under rotation away from a solution
+	private static int countGauge ( GeoSubsystem component, double[] parameters)
+	{
+		ArrayList<double[]> anchors = new ArrayList<double[]>();
+		ArrayList<double[]> motions = new ArrayList<double[]>();
+		int offset = 0;
+
+		// how each of the three motions moves the anchors, a row for each
+		// direction of each anchor
+		for ( GeoConstraint c : component.getConstraints())
+		{
+			for ( GeoPoint p : c.getPoints())
+			{
+				if ( p.isFixed())
+					addAnchor( anchors, p.getX(), p.getY());
+			}
+		}
+
+		// and the parameters of the objects
+		for ( GeoObject o : component.getObjects())
+		{
+			if ( o instanceof GeoLocusPoint)
+			{
+				GeoLocusPoint locus = ( GeoLocusPoint) o;
+
+				if ( locus.isCircular())
+				{
+					// follows a rotation about the center of its circle
+					addAnchor( anchors, locus.getOriginX(), locus.getOriginY());
+					motions.add( new double[] { 0, 0, locus.getRadius()});
+				}
+				else
+				{
+					// follows a translation along its line
+					double nx = -locus.getDirectionY();
+					double ny = locus.getDirectionX();
+
+					anchors.add( new double[] { 0, 0, 1});
+					anchors.add( new double[] { nx, ny, -nx * locus.getOriginY() + ny * locus.getOriginX()});
+					motions.add( new double[] { locus.getDirectionX(), locus.getDirectionY(), 0});
+				}
+			}
+			else if ( o instanceof GeoRigidObject)
+			{
+				motions.add( new double[] { 1, 0, -parameters[offset + 1]});
+				motions.add( new double[] { 0, 1, parameters[offset]});
+				motions.add( new double[] { 0, 0, 1});
+			}
+			else if ( o instanceof GeoPoint)
+			{
+				motions.add( new double[] { 1, 0, -parameters[offset + 1]});
+				motions.add( new double[] { 0, 1, parameters[offset]});
+			}
+
+			offset += o.getNumParameters();
+		}
+
+		// the allowed motions are the null space of the anchor rows; their images
+		// in the parameters are independent unless they also leave every parameter
+		// alone, which is the null space of both together
+		double[][] anchorColumns = columnsOf( anchors);
+		double[][] allColumns = columnsOf( concatenate( anchors, motions));
+
+		return rankOf( allColumns) - rankOf( anchorColumns);
+	}
+
+	private static void addAnchor ( ArrayList<double[]> anchors, double x, double y)
+	{
+		anchors.add( new double[] { 1, 0, -y});
+		anchors.add( new double[] { 0, 1, x});
+	}
+
+	private static ArrayList<double[]> concatenate ( ArrayList<double[]> a, ArrayList<double[]> b)
+	{
+		ArrayList<double[]> rows = new ArrayList<double[]>( a);
+
+		rows.addAll( b);
+		return rows;
+	}
+
+	// the three columns of rows of three entries, one for each motion
+	private static double[][] columnsOf ( ArrayList<double[]> rows)
+	{
+		double[][] columns = new double[3][ rows.size()];
+
+		for ( int i = 0; i < rows.size(); i++)
+		{
+			for ( int m = 0; m < 3; m++)
+			{
+				columns[m][i] = rows.get( i)[m];
+			}
+		}
+
+		return columns;
+	}
+
+	// the rank of a few dense rows of the same length
+	private static int rankOf ( double[][] rows)
+	{
+		int length = rows[0].length;
+		Elimination elimination = new Elimination( length);
+		int[] all = new int[ length];
+		int rank = 0;
+
+		for ( int i = 0; i < length; i++)
+		{
+			all[i] = i;
+		}
+
+		for ( int i = 0; i < rows.length; i++)
+		{
+			if ( elimination.add( all, rows[i], 0, length))
+				rank++;
+		}
+
+		return rank;
+	}
+
+	// the diagnosis as script errors; lines maps the constraints to the lines
+	// of the script they come from, see GeoInterpreter.getConstraintLines(), and may be null
+	public ScriptErrorList getErrors ( HashMap<GeoConstraint,Integer> lines)
+	{
+		ScriptErrorList errors = new ScriptErrorList();
+
+		for ( GeoConstraint c : inconsistent)
+		{
+			GeoConstraint other = conflicts.get( c);
+			String text;
+
+			if ( other != null)
+				text = "Constraint contradicts \"" + describe( other) + "\"" + lineOf( other, lines) + ".";
+			else if ( redundant.contains( c))
+				text = "Constraint follows from the others, but with a different value.";
+			else
+				text = "Constraint cannot be met.";
+
+			errors.addError( new ScriptError( text, "Constraint \"" + describe( c) + "\"", line( c, lines)));
+		}
+
+		return errors;
+	}
+
+	private static int line ( GeoConstraint c, HashMap<GeoConstraint,Integer> lines)
+	{
+		if ( lines == null || !lines.containsKey( c))
+			return 0;
+
+		return lines.get( c);
+	}
+
+	private static String lineOf ( GeoConstraint c, HashMap<GeoConstraint,Integer> lines)
+	{
+		if ( line( c, lines) == 0)
+			return "";
+
+		return " on line " + line( c, lines);
+	}
+
+	// the constraint as it is written in a script
+	public static String describe ( GeoConstraint c)
+	{
+		String command;
+		String value = "";
+
+		switch ( c.getType())
+		{
+		case GeoConstraint.C_P2P_DISTANCE:
+			command = "set-dist";
+			value = " " + MathHelpers.round( c.getValue(), 4);
+			break;
+		case GeoConstraint.C_INTERIOR_ANGLE:
+			command = "set-angle";
+			value = " " + MathHelpers.round( c.getValue() * 180 / Math.PI, 4);
+			break;
+		case GeoConstraint.C_EQUAL_LENGTH: command = "equal-length"; break;
+		case GeoConstraint.C_POINT_ON_LINE: command = "point-on-line"; break;
+		case GeoConstraint.C_EQUAL_ANGLE: command = "equal-angle"; break;
+		case GeoConstraint.C_PARALLEL_LINE: command = "parallel"; break;
+		case GeoConstraint.C_POINT_TO_LINE_DISTANCE:
+			command = "dist2line";
+			value = " " + MathHelpers.round( c.getValue(), 4);
+			break;
+		case GeoConstraint.C_POINT_ON_LINE_SEGMENT: command = "point-on-line-segment"; break;
+		case GeoConstraint.C_TRIANGULAR_AREA:
+			command = "area";
+			value = " " + MathHelpers.round( c.getValue(), 4);
+			break;
+		case GeoConstraint.C_REGULAR_POLYGON: command = "reg-polygon"; break;
+		default: command = "constraint";
+		}
+
+		StringBuilder builder = new StringBuilder( command);
+		for ( GeoPoint p : c.getPoints())
+		{
+			builder.append( ' ').append( p.getName());
+		}
+
+		return builder.append( value).toString();
+	}
+
+	// gaussian elimination of sparse rows one at a time, keeping the reduced
+	// rows with partial pivoting
+	private static class Elimination {
+		// the reduced rows, each with its pivot column, which is zero in all later rows
+		private ArrayList<int[]> basisColumns;
+		private ArrayList<double[]> basisValues;
+		private ArrayList<Integer> pivots;
+
+		// a dense copy of the row being reduced, and the columns that were touched
+		private double[] row;
+		private boolean[] touched;
+		private int[] touchedList;
+
+		Elimination ( int columns)
+		{
+			basisColumns = new ArrayList<int[]>();
+			basisValues = new ArrayList<double[]>();
+			pivots = new ArrayList<Integer>();
+
+			row = new double[ columns];
+			touched = new boolean[ columns];
+			touchedList = new int[ columns];
+		}
+
+		// reduces a row given by its entries from start to end, returns whether it
+		// is independent of the earlier ones, in which case it is kept
+		boolean add ( int[] columns, double[] values, int start, int end)
+		{
+			int count = 0;
+			double norm = 0;
+
+			for ( int k = start; k < end; k++)
+			{
+				int c = columns[k];
+
+				if ( !touched[c])
+				{
+					touched[c] = true;
+					touchedList[ count++] = c;
+				}
+				row[c] += values[k];
+				norm = Math.max( norm, Math.abs( values[k]));
+			}
+
+			for ( int b = 0; b < pivots.size(); b++)
+			{
+				double factor = row[ pivots.get( b)];
+
+				if ( factor == 0)
+					continue;
+
+				int[] bc = basisColumns.get( b);
+				double[] bv = basisValues.get( b);
+
+				for ( int k = 0; k < bc.length; k++)
+				{
+					if ( !touched[ bc[k]])
+					{
+						touched[ bc[k]] = true;
+						touchedList[ count++] = bc[k];
+					}
+					row[ bc[k]] -= factor * bv[k];
+				}
+				row[ pivots.get( b)] = 0;
+			}
+
+			// the largest remaining entry is the pivot
+			int pivot = -1;
+			double largest = 0;
+			for ( int k = 0; k < count; k++)
+			{
+				if ( Math.abs( row[ touchedList[k]]) > largest)
+				{
+					largest = Math.abs( row[ touchedList[k]]);
+					pivot = touchedList[k];
+				}
+			}
+
+			boolean independent = pivot >= 0 && largest > rankTolerance * norm;
+
+			if ( independent)
+			{
+				int nonzero = 0;
+				for ( int k = 0; k < count; k++)
+				{
+					if ( row[ touchedList[k]] != 0)
+						nonzero++;
+				}
+
+				int[] bc = new int[ nonzero];
+				double[] bv = new double[ nonzero];
+				double p = row[ pivot];
+
+				nonzero = 0;
+				for ( int k = 0; k < count; k++)
+				{
+					if ( row[ touchedList[k]] != 0)
+					{
+						bc[ nonzero] = touchedList[k];
+						bv[ nonzero++] = row[ touchedList[k]] / p;
+					}
+				}
+
+				basisColumns.add( bc);
+				basisValues.add( bv);
+				pivots.add( pivot);
+			}
+
+			// clear the dense row for the next one
+			for ( int k = 0; k < count; k++)
+			{
+				row[ touchedList[k]] = 0;
+				touched[ touchedList[k]] = false;
+			}
+
+			return independent;
+		}
+	}
+}
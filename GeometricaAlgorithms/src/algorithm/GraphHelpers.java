@@ -3,6 +3,7 @@ package algorithm;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
@@ -38,14 +39,14 @@ public class GraphHelpers {
 	
 		// key generators:
 		
-		// to keep track of used keys;
-		private static int lastEdgeId = 0;
-		private static int lastNodeId = 0;
+		// to keep track of used keys; shared by problems solved on different threads
+		private static final AtomicInteger lastEdgeId = new AtomicInteger();
+		private static final AtomicInteger lastNodeId = new AtomicInteger();
 		
 		// generates an unused edge id
 		public static String generateEdgeId ( )
 		{
-			return "e:" + ( lastEdgeId++);
+			return "e:" + lastEdgeId.getAndIncrement();
 		}
 		
 		// generates an unused point id
@@ -57,7 +58,7 @@ public class GraphHelpers {
 		// generates an unused constraint id
 		public static String generateConstraintNodeId ( String type)
 		{
-			return type + ":" + ( lastNodeId++);
+			return type + ":" + lastNodeId.getAndIncrement();
 		}
 	}
 	
@@ -0,0 +1,150 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// the statistics of a numeric solution, or the sum of several
+// returned by GeoNumericSolver.findSolution() and GeoDrawingOptimizer.optimize()
+public class SolverStats {
+	// receives the statistics of every solution, for monitoring
+	// solveFinished is called by the numeric solver after each attempt and
+	// optimizationFinished by the optimizer after a whole construct
+	public interface Listener {
+		public void solveFinished ( SolverStats stats);
+		public void optimizationFinished ( SolverStats stats);
+	}
+	
+	// how a solution ended
+	public static final int STATUS_SOLVED = 0;
+	// the solver gave up without meeting the constraints
+	public static final int STATUS_FAILED = 1;
+	// the time budget ran out, the best result so far was kept
+	public static final int STATUS_TIMED_OUT = 2;
+	// the solution was cancelled, the best result so far was kept
+	public static final int STATUS_CANCELLED = 3;
+	// some constraints can never be met together, see GeoSystemAnalyzer
+	public static final int STATUS_INCONSISTENT = 4;
+	
+	private int status;
+	private long evaluations;
+	private long iterations;
+	private long bracketSteps;
+	private long hessianResets;
+	private long restarts;
+	private double finalError;
+	private long wallTime;
+	
+	public SolverStats ( )
+	{
+		status = STATUS_FAILED;
+		finalError = 0;
+	}
+	
+	public SolverStats ( int status, long evaluations, long iterations, long bracketSteps,
+						 long hessianResets, long restarts, double finalError, long wallTime)
+	{
+		this.status = status;
+		this.evaluations = evaluations;
+		this.iterations = iterations;
+		this.bracketSteps = bracketSteps;
+		this.hessianResets = hessianResets;
+		this.restarts = restarts;
+		this.finalError = finalError;
+		this.wallTime = wallTime;
+	}
+	
+	// adds the work of another solution, whose result replaces the current one
+	void add ( SolverStats stats)
+	{
+		status = stats.status;
+		evaluations += stats.evaluations;
+		iterations += stats.iterations;
+		bracketSteps += stats.bracketSteps;
+		hessianResets += stats.hessianResets;
+		restarts += stats.restarts;
+		finalError = stats.finalError;
+		wallTime += stats.wallTime;
+	}
+	
+	void setStatus ( int status)
+	{
+		this.status = status;
+	}
+	
+	void setRestarts ( long restarts)
+	{
+		this.restarts = restarts;
+	}
+	
+	void setFinalError ( double finalError)
+	{
+		this.finalError = finalError;
+	}
+	
+	void setWallTime ( long wallTime)
+	{
+		this.wallTime = wallTime;
+	}
+	
+	// getters
+	
+	// one of the STATUS_ constants
+	public int getStatus ( )
+	{
+		return status;
+	}
+	
+	// whether the constraints were met
+	public boolean isSolved ( )
+	{
+		return status == STATUS_SOLVED;
+	}
+	
+	// the number of error function evaluations
+	public long getEvaluations ( )
+	{
+		return evaluations;
+	}
+	
+	// the number of iterations of the main loop of the solver
+	public long getIterations ( )
+	{
+		return iterations;
+	}
+	
+	// the number of times a line search shortened or lengthened its bracket
+	public long getBracketSteps ( )
+	{
+		return bracketSteps;
+	}
+	
+	// the number of times the Hessian estimate was thrown away
+	public long getHessianResets ( )
+	{
+		return hessianResets;
+	}
+	
+	// the number of solutions started again after a failure
+	public long getRestarts ( )
+	{
+		return restarts;
+	}
+	
+	public double getFinalError ( )
+	{
+		return finalError;
+	}
+	
+	// in nanoseconds; for concurrent solutions, the time spent by all of them
+	public long getWallTime ( )
+	{
+		return wallTime;
+	}
+	
+	@Override
+	public String toString ( )
+	{
+		return "status: " + status + ", evaluations: " + evaluations + ", iterations: " + iterations + 
+			   ", bracket steps: " + bracketSteps + ", Hessian resets: " + hessianResets + 
+			   ", restarts: " + restarts + ", final error: " + finalError + 
+			   ", time: " + MathHelpers.round( wallTime / 1e6, 2) + " ms";
+	}
+}
@@ -0,0 +1,139 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// the scratch memory of the numeric solvers, kept between solutions so that
+// restarts and repeated solutions of similar systems do not allocate
+//
+// arrays only grow, so they may be longer than the system being solved
+// a workspace must not be shared by solvers running at the same time,
+// forCurrentThread() gives each thread its own
+public class SolverWorkspace {
+	private static final ThreadLocal<SolverWorkspace> threadWorkspaces = new ThreadLocal<SolverWorkspace>() {
+		@Override
+		protected SolverWorkspace initialValue ( )
+		{
+			return new SolverWorkspace();
+		}
+	};
+	
+	// vectors over the parameters
+	double[] gradient;
+	double[] newGradient;
+	double[] direction;
+	double[] previous;
+	double[] step;
+	double[] gradientChange;
+	
+	// the dense BFGS inverse Hessian estimate and the terms of its update
+	double[][] hessian;
+	double[][] gradientChangeDotHessian;
+	double[][] firstSecond;
+	double[][] stepDotGradientChangeDotHessian;
+	double[][] gradientChangeDotStep;
+	double[][] hessianDotGradientChangeDotStep;
+	
+	// the correction pairs of limited memory BFGS
+	double[][] stepHistory;
+	double[][] gradientHistory;
+	double[] rho;
+	double[] alpha;
+	
+	// the damped least squares steps and their conjugate gradient solutions
+	double[] diagonal;
+	double[] residual;
+	double[] preconditioned;
+	double[] conjugate;
+	double[] product;
+	double[] row;
+	// over the constraints
+	double[] rowProducts;
+	
+	private int parameterCapacity;
+	private int matrixCapacity;
+	private int historyCapacity;
+	private int historyLengthCapacity;
+	private int constraintCapacity;
+	
+	public SolverWorkspace ( )
+	{
+		parameterCapacity = -1;
+		matrixCapacity = -1;
+		historyCapacity = -1;
+		historyLengthCapacity = -1;
+		constraintCapacity = -1;
+	}
+	
+	// the workspace of the calling thread
+	public static SolverWorkspace forCurrentThread ( )
+	{
+		return threadWorkspaces.get();
+	}
+	
+	// makes room for the vectors of n parameters
+	public void ensureVectors ( int n)
+	{
+		if ( n <= parameterCapacity)
+			return;
+		
+		gradient = new double[n];
+		newGradient = new double[n];
+		direction = new double[n];
+		previous = new double[n];
+		step = new double[n];
+		gradientChange = new double[n];
+		
+		diagonal = new double[n];
+		residual = new double[n];
+		preconditioned = new double[n];
+		conjugate = new double[n];
+		product = new double[n];
+		row = new double[n];
+		
+		parameterCapacity = n;
+	}
+	
+	// makes room for the n x n matrices of dense BFGS
+	public void ensureMatrices ( int n)
+	{
+		if ( n <= matrixCapacity)
+			return;
+		
+		hessian = new double[n][n];
+		gradientChangeDotHessian = new double[1][n];
+		firstSecond = new double[n][n];
+		stepDotGradientChangeDotHessian = new double[n][n];
+		gradientChangeDotStep = new double[n][n];
+		hessianDotGradientChangeDotStep = new double[n][n];
+		
+		matrixCapacity = n;
+	}
+	
+	// makes room for m correction pairs of n parameters
+	public void ensureHistory ( int m, int n)
+	{
+		if ( m <= historyCapacity && n <= historyLengthCapacity)
+			return;
+		
+		m = Math.max( m, historyCapacity);
+		n = Math.max( n, historyLengthCapacity);
+		
+		stepHistory = new double[m][n];
+		gradientHistory = new double[m][n];
+		rho = new double[m];
+		alpha = new double[m];
+		
+		historyCapacity = m;
+		historyLengthCapacity = n;
+	}
+	
+	// makes room for the values of count constraints
+	public void ensureConstraints ( int count)
+	{
+		if ( count <= constraintCapacity)
+			return;
+		
+		rowProducts = new double[ count];
+		
+		constraintCapacity = count;
+	}
+}
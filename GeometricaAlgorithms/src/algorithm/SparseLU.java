@@ -0,0 +1,451 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+import java.util.Arrays;
+
+// LU factorization of a square sparse matrix, P A Q = L U, for solving A x = b
+//
+// the elimination works on the remaining submatrix row by row; each pivot is
+// chosen by the Markowitz criterion, the entry whose row and column have the
+// fewest other entries among the columns of lowest count, so that eliminating
+// it creates little fill; the ordering reducing the fill is found on the way,
+// and only entries at least pivotThreshold times the largest one of their column
+// are accepted, which keeps the factorization stable
+//
+// the factors are kept for any number of solve() calls, until factor() is called again
+public class SparseLU {
+	// a pivot must be at least this fraction of the largest entry of its column
+	static final double pivotThreshold = 0.1;
+	// the number of columns searched for a pivot, in the order of their counts
+	static final int searchColumns = 4;
+	// columns whose largest entry is below this times the largest of the matrix
+	// are considered zero, which makes the matrix singular
+	static final double singularTolerance = 1e-12;
+
+	private int n;
+
+	// the remaining submatrix: the columns and values of each row, and the rows
+	// with an entry in each column
+	private int[][] rowColumns;
+	private double[][] rowValues;
+	private int[] rowLength;
+	private int[][] columnRows;
+	private int[] columnLength;
+
+	// the remaining columns in lists by their count, linked both ways
+	private int[] countHead;
+	private int[] nextColumn;
+	private int[] previousColumn;
+
+	// the pivot of each step; the rows of U are the pivot rows as they were
+	// when they were chosen, the columns of L are kept one step after the other
+	private int[] pivotRows;
+	private int[] pivotColumns;
+	private double[] pivotValues;
+	private int[] lowerStart;
+	private int[] lowerRows;
+	private double[] lowerValues;
+
+	// scratch memory: the position of each column in the row being updated, and
+	// the right hand side while solving
+	private int[] positions;
+	private double[] scratch;
+
+	public SparseLU ( )
+	{
+		n = 0;
+		lowerRows = new int[ 16];
+		lowerValues = new double[ 16];
+	}
+
+	public int getSize ( )
+	{
+		return n;
+	}
+
+	// the number of entries of L and U together
+	public int getFactorSize ( )
+	{
+		int size = lowerStart[n];
+
+		for ( int k = 0; k < n; k++)
+		{
+			size += rowLength[ pivotRows[k]];
+		}
+
+		return size;
+	}
+
+	// factors a square matrix, returns false if it is singular
+	public boolean factor ( SparseMatrix a)
+	{
+		double tolerance;
+		int lowerCount;
+
+		if ( !a.isSquare())
+			throw new IllegalArgumentException( "Only square matrices can be factored.");
+
+		load( a);
+		tolerance = singularTolerance * Math.max( a.maxAbs(), Double.MIN_NORMAL);
+		lowerCount = 0;
+
+		for ( int k = 0; k < n; k++)
+		{
+			if ( !choosePivot( k, tolerance))
+				return false;
+
+			lowerStart[k] = lowerCount;
+			lowerCount = eliminate( k, lowerCount);
+		}
+		lowerStart[n] = lowerCount;
+
+		return true;
+	}
+
+	// solves A x = b with the last factorization, b is not changed
+	public void solve ( double[] b, double[] x)
+	{
+		double[] y = scratch;
+
+		for ( int i = 0; i < n; i++)
+		{
+			y[i] = b[i];
+		}
+
+		// L y = P b
+		for ( int k = 0; k < n; k++)
+		{
+			double pivot = y[ pivotRows[k]];
+
+			for ( int e = lowerStart[k]; e < lowerStart[k + 1]; e++)
+			{
+				y[ lowerRows[e]] -= lowerValues[e] * pivot;
+			}
+		}
+
+		// U x = y, the rows of U only reach the columns eliminated after them
+		for ( int k = n - 1; k >= 0; k--)
+		{
+			int row = pivotRows[k];
+			int column = pivotColumns[k];
+			double sum = y[ row];
+
+			for ( int e = 0; e < rowLength[ row]; e++)
+			{
+				if ( rowColumns[ row][e] != column)
+					sum -= rowValues[ row][e] * x[ rowColumns[ row][e]];
+			}
+
+			x[ column] = sum / pivotValues[k];
+		}
+	}
+
+	// copies the matrix into the row and column lists
+	private void load ( SparseMatrix a)
+	{
+		int[] start = a.getRowStart();
+		int[] columns = a.getColumnIndices();
+		double[] values = a.getValues();
+
+		if ( n != a.getRows() || rowColumns == null)
+		{
+			n = a.getRows();
+
+			rowColumns = new int[n][];
+			rowValues = new double[n][];
+			rowLength = new int[n];
+			columnRows = new int[n][];
+			columnLength = new int[n];
+			countHead = new int[ n + 1];
+			nextColumn = new int[n];
+			previousColumn = new int[n];
+			pivotRows = new int[n];
+			pivotColumns = new int[n];
+			pivotValues = new double[n];
+			lowerStart = new int[ n + 1];
+			positions = new int[n];
+			scratch = new double[n];
+		}
+
+		for ( int j = 0; j < n; j++)
+		{
+			columnLength[j] = 0;
+			positions[j] = -1;
+		}
+
+		for ( int i = 0; i < n; i++)
+		{
+			int length = start[i + 1] - start[i];
+
+			rowLength[i] = length;
+			if ( rowColumns[i] == null || rowColumns[i].length < length)
+			{
+				rowColumns[i] = new int[ length + 4];
+				rowValues[i] = new double[ length + 4];
+			}
+
+			for ( int e = 0; e < length; e++)
+			{
+				rowColumns[i][e] = columns[ start[i] + e];
+				rowValues[i][e] = values[ start[i] + e];
+				columnLength[ columns[ start[i] + e]]++;
+			}
+		}
+
+		for ( int j = 0; j < n; j++)
+		{
+			if ( columnRows[j] == null || columnRows[j].length < columnLength[j])
+				columnRows[j] = new int[ columnLength[j] + 4];
+			columnLength[j] = 0;
+		}
+
+		for ( int i = 0; i < n; i++)
+		{
+			for ( int e = 0; e < rowLength[i]; e++)
+			{
+				int j = rowColumns[i][e];
+
+				columnRows[j][ columnLength[j]++] = i;
+			}
+		}
+
+		for ( int c = 0; c <= n; c++)
+		{
+			countHead[c] = -1;
+		}
+
+		for ( int j = 0; j < n; j++)
+		{
+			link( j);
+		}
+	}
+
+	// finds the pivot of step k by the Markowitz criterion
+	// returns false if the remaining matrix is singular
+	private boolean choosePivot ( int k, double tolerance)
+	{
+		long bestCost = Long.MAX_VALUE;
+		int bestRow = -1;
+		int bestColumn = -1;
+		double bestValue = 0;
+		int searched = 0;
+
+		// an empty column cannot be eliminated
+		if ( countHead[0] >= 0)
+			return false;
+
+		for ( int count = 1; count <= n && searched < searchColumns && bestCost > 0; count++)
+		{
+			for ( int j = countHead[ count]; j >= 0 && searched < searchColumns && bestCost > 0; j = nextColumn[j])
+			{
+				double max = 0;
+
+				for ( int e = 0; e < columnLength[j]; e++)
+				{
+					max = Math.max( max, Math.abs( valueAt( columnRows[j][e], j)));
+				}
+
+				// numerically zero, try the others
+				if ( max <= tolerance)
+					continue;
+
+				searched++;
+				for ( int e = 0; e < columnLength[j]; e++)
+				{
+					int i = columnRows[j][e];
+					double value = valueAt( i, j);
+					long cost = ( long) ( rowLength[i] - 1) * ( count - 1);
+
+					if ( Math.abs( value) >= pivotThreshold * max &&
+						 ( cost < bestCost || ( cost == bestCost && Math.abs( value) > Math.abs( bestValue))))
+					{
+						bestCost = cost;
+						bestRow = i;
+						bestColumn = j;
+						bestValue = value;
+					}
+				}
+			}
+		}
+
+		if ( bestRow < 0)
+			return false;
+
+		pivotRows[k] = bestRow;
+		pivotColumns[k] = bestColumn;
+		pivotValues[k] = bestValue;
+		return true;
+	}
+
+	// eliminates the pivot column of step k from the other rows, recording the
+	// multipliers from lowerCount on; returns the new count of multipliers
+	private int eliminate ( int k, int lowerCount)
+	{
+		int pivotRow = pivotRows[k];
+		int pivotColumn = pivotColumns[k];
+		int[] pivotEntries = rowColumns[ pivotRow];
+		double[] pivotEntryValues = rowValues[ pivotRow];
+		int pivotLength = rowLength[ pivotRow];
+
+		// the pivot row leaves the remaining matrix, as the kth row of U
+		for ( int e = 0; e < pivotLength; e++)
+		{
+			int j = pivotEntries[e];
+
+			if ( j != pivotColumn)
+				removeRow( j, pivotRow);
+		}
+
+		unlink( pivotColumn);
+
+		for ( int r = 0; r < columnLength[ pivotColumn]; r++)
+		{
+			int i = columnRows[ pivotColumn][r];
+			double multiplier;
+
+			if ( i == pivotRow)
+				continue;
+
+			multiplier = removeEntry( i, pivotColumn) / pivotValues[k];
+
+			if ( lowerCount == lowerRows.length)
+			{
+				lowerRows = Arrays.copyOf( lowerRows, 2 * lowerCount);
+				lowerValues = Arrays.copyOf( lowerValues, 2 * lowerCount);
+			}
+			lowerRows[ lowerCount] = i;
+			lowerValues[ lowerCount] = multiplier;
+			lowerCount++;
+
+			if ( multiplier == 0)
+				continue;
+
+			// row i -= multiplier * pivot row
+			for ( int e = 0; e < rowLength[i]; e++)
+			{
+				positions[ rowColumns[i][e]] = e;
+			}
+
+			for ( int e = 0; e < pivotLength; e++)
+			{
+				int j = pivotEntries[e];
+
+				if ( j == pivotColumn)
+					continue;
+
+				if ( positions[j] >= 0)
+					rowValues[i][ positions[j]] -= multiplier * pivotEntryValues[e];
+				else
+				{
+					// fill
+					appendEntry( i, j, -multiplier * pivotEntryValues[e]);
+					positions[j] = rowLength[i] - 1;
+					addRow( j, i);
+				}
+			}
+
+			for ( int e = 0; e < rowLength[i]; e++)
+			{
+				positions[ rowColumns[i][e]] = -1;
+			}
+		}
+
+		columnLength[ pivotColumn] = 0;
+		return lowerCount;
+	}
+
+	// the value of row i in column j of the remaining matrix
+	private double valueAt ( int i, int j)
+	{
+		for ( int e = 0; e < rowLength[i]; e++)
+		{
+			if ( rowColumns[i][e] == j)
+				return rowValues[i][e];
+		}
+
+		return 0;
+	}
+
+	// removes the entry of row i in column j, returns its value
+	private double removeEntry ( int i, int j)
+	{
+		for ( int e = 0; e < rowLength[i]; e++)
+		{
+			if ( rowColumns[i][e] == j)
+			{
+				double value = rowValues[i][e];
+
+				rowLength[i]--;
+				rowColumns[i][e] = rowColumns[i][ rowLength[i]];
+				rowValues[i][e] = rowValues[i][ rowLength[i]];
+				return value;
+			}
+		}
+
+		return 0;
+	}
+
+	private void appendEntry ( int i, int j, double value)
+	{
+		if ( rowLength[i] == rowColumns[i].length)
+		{
+			rowColumns[i] = Arrays.copyOf( rowColumns[i], 2 * rowLength[i] + 4);
+			rowValues[i] = Arrays.copyOf( rowValues[i], 2 * rowLength[i] + 4);
+		}
+
+		rowColumns[i][ rowLength[i]] = j;
+		rowValues[i][ rowLength[i]] = value;
+		rowLength[i]++;
+	}
+
+	// the column lists, keeping the count lists up to date
+	private void addRow ( int j, int i)
+	{
+		unlink( j);
+
+		if ( columnLength[j] == columnRows[j].length)
+			columnRows[j] = Arrays.copyOf( columnRows[j], 2 * columnLength[j] + 4);
+		columnRows[j][ columnLength[j]++] = i;
+
+		link( j);
+	}
+
+	private void removeRow ( int j, int i)
+	{
+		unlink( j);
+
+		for ( int e = 0; e < columnLength[j]; e++)
+		{
+			if ( columnRows[j][e] == i)
+			{
+				columnLength[j]--;
+				columnRows[j][e] = columnRows[j][ columnLength[j]];
+				break;
+			}
+		}
+
+		link( j);
+	}
+
+	private void link ( int j)
+	{
+		int count = columnLength[j];
+
+		previousColumn[j] = -1;
+		nextColumn[j] = countHead[ count];
+		if ( countHead[ count] >= 0)
+			previousColumn[ countHead[ count]] = j;
+		countHead[ count] = j;
+	}
+
+	private void unlink ( int j)
+	{
+		if ( previousColumn[j] >= 0)
+			nextColumn[ previousColumn[j]] = nextColumn[j];
+		else
+			countHead[ columnLength[j]] = nextColumn[j];
+
+		if ( nextColumn[j] >= 0)
+			previousColumn[ nextColumn[j]] = previousColumn[j];
+	}
+}
@@ -0,0 +1,89 @@
+package algorithm;
+// Created: 17.10.2026, Ali Batuhan Yardm
+
+// a sparse matrix in compressed row form: the entries of row i are at
+// rowStart[i] ... rowStart[i + 1] - 1 of columns and values
+//
+// the arrays are shared, not copied, so a matrix can be laid over arrays that
+// are refilled in place, such as the Jacobian of GeoLeastSquaresSolver
+public class SparseMatrix {
+	private int rows;
+	private int columnCount;
+
+	private int[] rowStart;
+	private int[] columns;
+	private double[] values;
+
+	public SparseMatrix ( int rows, int columnCount, int[] rowStart, int[] columns, double[] values)
+	{
+		this.rows = rows;
+		this.columnCount = columnCount;
+		this.rowStart = rowStart;
+		this.columns = columns;
+		this.values = values;
+	}
+
+	// getters
+	public int getRows ( )
+	{
+		return rows;
+	}
+
+	public int getColumns ( )
+	{
+		return columnCount;
+	}
+
+	public boolean isSquare ( )
+	{
+		return rows == columnCount;
+	}
+
+	public int getNonZeros ( )
+	{
+		return rowStart[ rows];
+	}
+
+	int[] getRowStart ( )
+	{
+		return rowStart;
+	}
+
+	int[] getColumnIndices ( )
+	{
+		return columns;
+	}
+
+	double[] getValues ( )
+	{
+		return values;
+	}
+
+	// result = A v
+	public void multiply ( double[] v, double[] result)
+	{
+		for ( int i = 0; i < rows; i++)
+		{
+			double sum = 0;
+
+			for ( int k = rowStart[i]; k < rowStart[i + 1]; k++)
+			{
+				sum += values[k] * v[ columns[k]];
+			}
+			result[i] = sum;
+		}
+	}
+
+	// the largest absolute value of an entry
+	public double maxAbs ( )
+	{
+		double max = 0;
+
+		for ( int k = 0; k < rowStart[ rows]; k++)
+		{
+			max = Math.max( max, Math.abs( values[k]));
+		}
+
+		return max;
+	}
+}
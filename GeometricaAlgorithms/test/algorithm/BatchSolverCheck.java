@@ -0,0 +1,111 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+
+// a batch of scripts and one of constructs, each with items that cannot be
+// drawn among solvable ones, on a pool of several threads
+public class BatchSolverCheck {
+	static final int threads = 4;
+	// bounds the restarts of the contradiction
+	static final long timeBudget = 2000;
+
+	public static void run ( )
+	{
+		try {
+			checkScripts();
+			checkConstructs();
+		} catch ( InterruptedException e) {
+			Checks.check( false, "batch interrupted");
+		}
+	}
+
+	static void checkScripts ( ) throws InterruptedException
+	{
+		GeoBatchSolver solver = new GeoBatchSolver( threads);
+		ArrayList<String> scripts = new ArrayList<String>();
+		ArrayList<GeoBatchSolver.Result> results;
+
+		for ( String script : DemoScripts.scripts)
+		{
+			scripts.add( script);
+		}
+		// a command that does not parse, and sides that form no triangle
+		scripts.add( 2, "point A B\nbogus A B\n");
+		scripts.add( 5, "point A B C\nset-dist A B 10\nset-dist B C 10\nset-dist A C 50\n");
+
+		solver.setTimeBudget( timeBudget);
+		results = solver.solveScripts( scripts).all();
+		solver.shutdown();
+
+		Checks.check( results.size() == scripts.size(), "batch of scripts: a result for every script");
+
+		for ( int i = 0; i < results.size(); i++)
+		{
+			GeoBatchSolver.Result result = results.get( i);
+			String description = "batch of scripts: item " + i;
+
+			Checks.check( result.getIndex() == i && result.getScript() == scripts.get( i), description + " in input order");
+
+			if ( i == 2)
+			{
+				Checks.check( result.getStatus() == GeoBatchSolver.RESULT_SCRIPT_ERRORS, description + " has script errors");
+				Checks.check( result.getErrors().getErrors().size() == 1 && result.getStats() == null, description + " was not drawn");
+			}
+			else if ( i == 5)
+				Checks.check( result.getStatus() == GeoBatchSolver.RESULT_NOT_DRAWN && !result.getStats().isSolved(), description + " not drawn");
+			else
+			{
+				Checks.check( result.isSolved(), description + " solved");
+				Checks.check( DemoScripts.calculateError( result.getConstruct()) < 1e-6, description + " meets its constraints");
+			}
+		}
+	}
+
+	static void checkConstructs ( ) throws InterruptedException
+	{
+		GeoBatchSolver solver = new GeoBatchSolver( threads);
+		ArrayList<GeoConstruct> constructs = new ArrayList<GeoConstruct>();
+		ArrayList<GeoBatchSolver.Result> results;
+
+		for ( String script : DemoScripts.scripts)
+		{
+			constructs.add( Checks.interpret( script));
+		}
+		// an item throwing while it is drawn
+		constructs.add( 3, new GeoConstruct() {
+			@Override
+			public ArrayList<GeoConstraint> getConstraints ( )
+			{
+				throw new IllegalStateException( "broken construct");
+			}
+		});
+
+		results = solver.solveConstructs( constructs).all();
+		solver.shutdown();
+
+		Checks.check( results.size() == constructs.size(), "batch of constructs: a result for every construct");
+
+		for ( int i = 0; i < results.size(); i++)
+		{
+			GeoBatchSolver.Result result = results.get( i);
+			String description = "batch of constructs: item " + i;
+
+			Checks.check( result.getIndex() == i && result.getConstruct() == constructs.get( i), description + " in input order");
+
+			if ( i == 3)
+			{
+				Checks.check( result.getStatus() == GeoBatchSolver.RESULT_FAILED, description + " failed");
+				Checks.check( result.getFailure() instanceof IllegalStateException, description + " keeps its exception");
+			}
+			else
+				Checks.check( result.isSolved() && DemoScripts.calculateError( result.getConstruct()) < 1e-6, description + " solved");
+		}
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,66 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// optimizations stopped by a cancelled token and by a time budget, which
+// must report why they stopped and leave the points at finite positions
+public class CancellationCheck {
+	// too short to draw a grid of this size
+	static final long timeBudget = 20;
+	static final int gridSize = 12;
+	// the most an optimization may run past its budget
+	static final long maxOverrun = 1000;
+
+	public static void run ( )
+	{
+		CancellationToken token = new CancellationToken();
+
+		token.cancel();
+
+		for ( int i = 0; i < DemoScripts.scripts.length; i++)
+		{
+			GeoConstruct construct = Checks.interpret( DemoScripts.scripts[i]);
+			GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+			SolverStats stats;
+
+			optimizer.setRandomSeed( i);
+			optimizer.setCancellationToken( token);
+			stats = optimizer.optimize( true);
+
+			Checks.check( stats.getStatus() == SolverStats.STATUS_CANCELLED, "cancelled token: demo script " + ( i + 1) + " cancelled");
+			Checks.check( isFinite( construct), "cancelled token: demo script " + ( i + 1) + " left finite");
+		}
+
+		GeoConstruct construct = Checks.interpret( SolverCheck.grid( gridSize));
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		SolverStats stats;
+		long start;
+
+		optimizer.setRandomSeed( 1);
+		optimizer.setTimeBudget( timeBudget);
+		start = System.nanoTime();
+		stats = optimizer.optimize( true);
+
+		Checks.check( stats.getStatus() == SolverStats.STATUS_TIMED_OUT, "time budget: grid timed out");
+		Checks.check( ( System.nanoTime() - start) / 1000000L < timeBudget + maxOverrun, "time budget: grid stopped soon after the budget");
+		Checks.check( isFinite( construct), "time budget: grid left finite");
+	}
+
+	// whether every point of a construct has finite coordinates
+	static boolean isFinite ( GeoConstruct construct)
+	{
+		for ( GeoPoint p : construct.getPoints())
+		{
+			if ( Double.isNaN( p.getX()) || Double.isInfinite( p.getX()) ||
+				 Double.isNaN( p.getY()) || Double.isInfinite( p.getY()))
+				return false;
+		}
+
+		return true;
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,67 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// the checks of the solvers, run as plain programs like the MainTest drivers:
+// each check class has a run() method, and a main() running it alone
+//
+// a failed check is printed and counted, finish() ends the program with an
+// error code if any failed
+public class Checks {
+	private static int checks;
+	private static int failures;
+
+	public static void check ( boolean condition, String description)
+	{
+		checks++;
+
+		if ( !condition)
+		{
+			failures++;
+			System.out.println( "FAILED: " + description);
+		}
+	}
+
+	// whether two values agree to the given tolerance, relative to the larger of them if it is above one
+	public static boolean close ( double a, double b, double tolerance)
+	{
+		return Math.abs( a - b) <= tolerance * Math.max( 1, Math.max( Math.abs( a), Math.abs( b)));
+	}
+
+	public static GeoConstruct interpret ( String script)
+	{
+		GeoInterpreter interpreter = new GeoInterpreter( script);
+
+		interpreter.interpretString();
+		return interpreter.getConstruct();
+	}
+
+	public static void finish ( )
+	{
+		System.out.println( checks + " checks, " + failures + " failed");
+
+		if ( failures > 0)
+			System.exit( 1);
+	}
+
+	// runs all checks
+	public static void main ( String[] args)
+	{
+		GradientCheck.run();
+		CompiledSystemCheck.run();
+		InitializerCheck.run();
+		OptimizerCheck.run();
+		SolverCheck.run();
+		SolutionCacheCheck.run();
+		PresolverCheck.run();
+		SparseLUCheck.run();
+		RigidObjectCheck.run();
+		GaugeFixerCheck.run();
+		DiagnosisCheck.run();
+		DragSessionCheck.run();
+		BatchSolverCheck.run();
+		CancellationCheck.run();
+		StatsListenerCheck.run();
+
+		finish();
+	}
+}
@@ -0,0 +1,117 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// the residuals and the fused gradient of compiled systems against the
+// constraints evaluated one by one, with every kind of constraint and
+// points held constant
+public class CompiledSystemCheck {
+	static final int trials = 100;
+	static final double tolerance = 1e-9;
+
+	public static void run ( )
+	{
+		Random random = new Random( 1);
+
+		for ( int trial = 0; trial < trials; trial++)
+		{
+			GeoPoint[] points = new GeoPoint[6];
+			ArrayList<GeoObject> objects = new ArrayList<GeoObject>();
+			ArrayList<GeoConstraint> constraints = new ArrayList<GeoConstraint>();
+
+			for ( int i = 0; i < points.length; i++)
+			{
+				points[i] = GradientCheck.point( "P" + i, random);
+			}
+
+			// the last point is not among the objects, so it is kept constant
+			for ( int i = 0; i < points.length - 1; i++)
+			{
+				objects.add( points[i]);
+			}
+
+			GeoPoint a = points[0], b = points[1], c = points[2], d = points[3], e = points[4], f = points[5];
+
+			constraints.add( new GeoConstraint.CPointToPointDistance( a, b, 100));
+			constraints.add( new GeoConstraint.CPointToPointDistance( c, f, 50));
+			constraints.add( new GeoConstraint.CInteriorAngle( a, b, c, 1.1));
+			constraints.add( new GeoConstraint.CEqualLength( a, b, c, d));
+			constraints.add( new GeoConstraint.CPointOnLine( a, b, c));
+			// a line steeper than the diagonal, through another constant point
+			constraints.add( new GeoConstraint.CPointOnLine( d, e, new GeoPoint( "Q", e.getX() + 1, e.getY() + 50)));
+			constraints.add( new GeoConstraint.CPointOnLine( e, f, a));
+			constraints.add( new GeoConstraint.CEqualAngle( a, b, c, d, e, f));
+			constraints.add( new GeoConstraint.CParallelLine( a, b, c, d));
+			constraints.add( new GeoConstraint.CParallelLine( b, e, d, f));
+			constraints.add( new GeoConstraint.CPointToLineDistance( a, b, c, 30));
+			constraints.add( new GeoConstraint.CPointOnLineSegment( a, b, c));
+			constraints.add( new GeoConstraint.CTriangularArea( a, b, c, 3000));
+
+			compare( objects, constraints);
+		}
+	}
+
+	static void compare ( ArrayList<GeoObject> objects, ArrayList<GeoConstraint> constraints)
+	{
+		GeoCompiledSystem compiled = new GeoCompiledSystem( objects, constraints);
+		double[] values = new double[ compiled.getLength()];
+		double[] residuals = new double[ constraints.size()];
+		double[] gradient = new double[ compiled.getParameterCount()];
+		double[] expected = new double[ compiled.getParameterCount()];
+		double largest = 1e-12;
+		double deviation = 0;
+		double error = 0;
+
+		for ( int i = 0; i < objects.size(); i++)
+		{
+			values[2 * i] = ( ( GeoPoint) objects.get( i)).getX();
+			values[2 * i + 1] = ( ( GeoPoint) objects.get( i)).getY();
+		}
+		compiled.initialize( values);
+		compiled.calculateResiduals( values, residuals);
+
+		for ( int i = 0; i < constraints.size(); i++)
+		{
+			GeoConstraint constraint = constraints.get( i);
+			GeoPoint[] points = constraint.getPoints();
+			double[] pointGradient = new double[ 2 * points.length];
+			double residual = constraint.calculateResidual();
+			String name = constraint.getClass().getSimpleName();
+
+			Checks.check( Checks.close( residuals[i], residual, tolerance), name + ": compiled residual matches");
+			Checks.check( Checks.close( compiled.calculateResidual( i, values), residual, tolerance), name + ": single compiled residual matches");
+
+			error += residual * residual;
+			constraint.calculateGradient( pointGradient);
+
+			for ( int j = 0; j < points.length; j++)
+			{
+				int index = objects.indexOf( points[j]);
+
+				if ( index >= 0)
+				{
+					expected[2 * index] += pointGradient[2 * j];
+					expected[2 * index + 1] += pointGradient[2 * j + 1];
+				}
+			}
+		}
+
+		Checks.check( Checks.close( compiled.calculateGradient( values, gradient), error, tolerance), "compiled error matches");
+
+		for ( int i = 0; i < expected.length; i++)
+		{
+			deviation = Math.max( deviation, Math.abs( gradient[i] - expected[i]));
+			largest = Math.max( largest, Math.abs( expected[i]));
+		}
+
+		Checks.check( deviation / largest < tolerance, "compiled gradient matches");
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
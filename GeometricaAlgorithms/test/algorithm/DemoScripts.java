@@ -0,0 +1,35 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// small constructs covering every kind of constraint, each of them solvable
+public class DemoScripts {
+	public static final String[] scripts = {
+		// a triangle by its sides
+		"point A B C\nset-dist A B 100\nset-dist B C 120\nset-dist A C 150\n",
+		// a right angle and a point on a segment
+		"point A B C D\nset-dist A B 100\nset-angle A B C 90\nset-dist B C 80\npoint-on-line-segment D A C\nset-angle A B D 30\n",
+		// a regular polygon and a free point
+		"point A B C D E\nreg-polygon A B C D E\nset-dist A B 80\npoint X\n",
+		// a rhombus hanging from a fixed point
+		"point A B C D\nfix-point A 100 100\nset-dist A B 100\nset-dist B C 100\nparallel A B C D\nequal-length A B C D\nset-angle A B C 60\n",
+		// an area, a distance to a line and a point on a line
+		"point A B C H\nset-dist A B 200\narea A B C 8000\nset-dist A C 150\ndist2line C A B 80\npoint-on-line H A B\nset-angle C H A 90\n",
+		// equal angles
+		"point A B C D E F\nset-dist A B 100\nset-dist B C 100\nset-angle A B C 70\nequal-angle D E F A B C\nset-dist D E 50\nset-dist E F 60\n",
+		// two triangles held by a fixed point
+		"point A B C D E F O\nfix-point O 250 250\nset-dist A B 100\nset-dist B C 100\nset-dist A C 100\nset-dist D E 50\nset-dist E F 60\nset-dist D F 70\nset-dist O A 50\nset-dist O D 80\nset-angle A O D 120\n",
+	};
+
+	// the total error of the constraints of a construct
+	public static double calculateError ( GeoConstruct construct)
+	{
+		double error = 0;
+
+		for ( GeoConstraint c : construct.getConstraints())
+		{
+			error += c.calculateError();
+		}
+
+		return error;
+	}
+}
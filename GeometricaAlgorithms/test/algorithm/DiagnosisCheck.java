@@ -0,0 +1,36 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// constraints that can never be met are reported, rather than restarted on
+public class DiagnosisCheck {
+
+	public static void run ( )
+	{
+		// a metric contradiction, independent equations without a common solution
+		checkInconsistent( "triangle 10/10/50", "point A B C\nset-dist A B 10\nset-dist B C 10\nset-dist A C 50\n", 3);
+		// a structural one, a fourth distance between three points
+		checkInconsistent( "over-constrained triangle",
+						   "point A B C D\nset-dist A B 100\nset-dist B C 100\nset-dist A C 100\nset-dist A D 50\nset-dist B D 50\nset-dist C D 50\n", 1);
+	}
+
+	static void checkInconsistent ( String name, String script, int minReported)
+	{
+		GeoConstruct construct = Checks.interpret( script);
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		SolverStats stats;
+
+		optimizer.setRandomSeed( 1);
+		optimizer.setDiagnosis( true);
+		stats = optimizer.optimize( true);
+
+		Checks.check( stats.getStatus() == SolverStats.STATUS_INCONSISTENT, name + ": reported inconsistent");
+		Checks.check( optimizer.getAnalyzer().getInconsistentConstraints().size() >= minReported, name + ": constraints named");
+		Checks.check( stats.getRestarts() < 20, name + ": stopped before the restarts ran out");
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
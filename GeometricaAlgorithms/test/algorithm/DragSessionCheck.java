@@ -0,0 +1,89 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// dragging a point of the demo scripts in small moves, each given time enough
+// to converge, and the state of the point once the session is finished
+public class DragSessionCheck {
+	static final int moves = 10;
+	// long enough for the small systems on any machine
+	static final long frameBudget = 1000;
+
+	public static void run ( )
+	{
+		// the rhombus of demo script 4 can only turn around its fixed point
+		for ( int i = 0; i < DemoScripts.scripts.length; i++)
+		{
+			if ( i != 3)
+				checkDrag( i, "B");
+		}
+
+		// a fixed point is held while dragged and stays fixed after the session
+		checkDrag( 3, "A");
+
+		checkInconsistent();
+	}
+
+	static void checkDrag ( int script, String name)
+	{
+		GeoConstruct construct = Checks.interpret( DemoScripts.scripts[ script]);
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		GeoPoint dragged = construct.findPoint( name);
+		String description = "drag " + name + " of demo script " + ( script + 1);
+		GeoDragSession session;
+		boolean wasFixed;
+		double x, y;
+
+		optimizer.setRandomSeed( script);
+		Checks.check( optimizer.optimize( true).isSolved(), description + ": drawn");
+
+		wasFixed = dragged.isFixed();
+		x = dragged.getX();
+		y = dragged.getY();
+		session = new GeoDragSession( construct, dragged);
+		session.setFrameBudget( frameBudget);
+
+		for ( int k = 1; k <= moves; k++)
+		{
+			boolean moved = session.moveTo( x + 2 * k, y + k);
+
+			Checks.check( moved && session.isConverged(), description + ": move " + k + " converged");
+			Checks.check( session.getFrameStats().getStatus() == SolverStats.STATUS_SOLVED, description + ": move " + k + " solved");
+			Checks.check( dragged.getX() == x + 2 * k && dragged.getY() == y + k, description + ": move " + k + " held the point");
+			Checks.check( DemoScripts.calculateError( construct) < 1e-6, description + ": move " + k + " met the constraints");
+		}
+
+		Checks.check( session.finish(), description + ": finished converged");
+		Checks.check( !session.isActive(), description + ": inactive after finish");
+		Checks.check( dragged.isFixed() == wasFixed, description + ": fixed flag restored");
+
+		try {
+			session.moveTo( x, y);
+			Checks.check( false, description + ": move after finish rejected");
+		} catch ( IllegalStateException e) {
+			Checks.check( true, description + ": move after finish rejected");
+		}
+	}
+
+	// a distance between the dragged point and a fixed one cannot follow a move
+	static void checkInconsistent ( )
+	{
+		GeoConstruct construct = Checks.interpret( "point A B C\nfix-point A 0 0\nset-dist A B 100\nset-dist B C 50\n");
+		GeoPoint b = construct.findPoint( "B");
+		GeoDragSession session;
+
+		b.setX( 100);
+		b.setY( 0);
+		session = new GeoDragSession( construct, b);
+		session.setFrameBudget( frameBudget);
+
+		Checks.check( !session.moveTo( 150, 0) && !session.isConverged(), "drag away from a fixed point not converged");
+		Checks.check( session.getFrameStats().getStatus() == SolverStats.STATUS_INCONSISTENT, "drag away from a fixed point inconsistent");
+		Checks.check( !session.finish() && !b.isFixed(), "drag away from a fixed point finished");
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
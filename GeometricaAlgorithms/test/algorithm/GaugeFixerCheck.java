@@ -0,0 +1,66 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// holding a floating part in place several times, as its trials do
+public class GaugeFixerCheck {
+
+	public static void run ( )
+	{
+		GeoConstruct construct = Checks.interpret( DemoScripts.scripts[0]);
+		GeoSubsystem component = new GeoSubsystem();
+		GeoGaugeFixer gauge;
+		GeoSubsystem first = null;
+
+		GeoDrawingOptimizer.collectSystem( construct, component.getObjects(), component.getConstraints());
+		gauge = new GeoGaugeFixer( component);
+		Checks.check( gauge.isApplicable(), "gauge: a floating triangle is held");
+
+		for ( int trial = 0; trial < 3; trial++)
+		{
+			GeoPoint reference = gauge.getReferencePoint();
+			GeoPoint direction = gauge.getDirectionPoint();
+			GeoSubsystem held;
+			GeoLocusPoint locus = null;
+			double[] parameters;
+			double[] target = new double[2];
+
+			// the part moves between the trials
+			for ( GeoPoint p : component.getPoints())
+			{
+				p.setX( p.getX() + 40 * trial);
+				p.setY( p.getY() - 25 * trial);
+			}
+
+			held = gauge.fix();
+			if ( first == null)
+				first = held;
+
+			for ( GeoObject o : held.getObjects())
+			{
+				if ( o instanceof GeoLocusPoint)
+					locus = ( GeoLocusPoint) o;
+			}
+
+			Checks.check( held == first, "gauge: trial " + trial + " holds the same part");
+			Checks.check( reference.isFixed(), "gauge: trial " + trial + " fixes the reference point");
+			Checks.check( locus != null && locus.getPoint() == direction, "gauge: trial " + trial + " binds the direction point");
+
+			// the line goes through the reference and the direction point where they are now
+			parameters = locus.getParameters();
+			locus.placePoints( parameters, 0, target, 0);
+			Checks.check( Checks.close( target[0], direction.getX(), 1e-9) && Checks.close( target[1], direction.getY(), 1e-9),
+						  "gauge: trial " + trial + " line through the direction point");
+			Checks.check( Checks.close( locus.getOriginX(), reference.getX(), 1e-9) && Checks.close( locus.getOriginY(), reference.getY(), 1e-9),
+						  "gauge: trial " + trial + " line through the reference point");
+
+			gauge.release();
+			Checks.check( !reference.isFixed(), "gauge: trial " + trial + " frees the reference point");
+		}
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,134 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.Random;
+
+// the closed form gradients of every kind of constraint against central
+// differences of its error, at random positions
+public class GradientCheck {
+	static final int trials = 200;
+	// the step of the differences, and the deviation allowed relative to the largest derivative
+	static final double step = 1e-5;
+	static final double tolerance = 1e-4;
+
+	public static void run ( )
+	{
+		Random random = new Random( 1);
+
+		for ( int trial = 0; trial < trials; trial++)
+		{
+			GeoPoint a = point( "A", random);
+			GeoPoint b = point( "B", random);
+			GeoPoint c = point( "C", random);
+			GeoPoint d = point( "D", random);
+			GeoPoint e = point( "E", random);
+			GeoPoint f = point( "F", random);
+			GeoConstraint[] constraints = {
+				new GeoConstraint.CPointToPointDistance( a, b, 100),
+				new GeoConstraint.CInteriorAngle( a, b, c, 1.1),
+				new GeoConstraint.CEqualLength( a, b, c, d),
+				// a point appearing twice
+				new GeoConstraint.CEqualLength( a, b, a, c),
+				new GeoConstraint.CPointOnLine( a, b, c),
+				new GeoConstraint.CEqualAngle( a, b, c, d, e, f),
+				new GeoConstraint.CParallelLine( a, b, c, d),
+				new GeoConstraint.CPointToLineDistance( a, b, c, 30),
+				new GeoConstraint.CPointOnLineSegment( a, b, c),
+				new GeoConstraint.CTriangularArea( a, b, c, 3000),
+			};
+
+			for ( GeoConstraint constraint : constraints)
+			{
+				String name = constraint.getClass().getSimpleName();
+				double residual = constraint.calculateResidual();
+				double error = constraint.calculateError();
+
+				Checks.check( Checks.close( residual * residual, error, 1e-9), name + ": residual squared is the error");
+				Checks.check( deviation( constraint) < tolerance, name + ": gradient agrees with differences");
+			}
+		}
+
+		checkDual();
+	}
+
+	// values alone, past the numbers the workspace starts with, then a gradient in
+	// the same workspace
+	static void checkDual ( )
+	{
+		GeoDual dual = new GeoDual();
+		double[] gradient = new double[ 2];
+		int sum;
+
+		dual.reset( 0);
+		sum = dual.constant( 0);
+		for ( int i = 1; i <= 100; i++)
+		{
+			sum = dual.add( sum, dual.variable( i, i));
+		}
+		Checks.check( dual.value( sum) == 5050, "dual values without variables");
+
+		dual.reset( 2);
+		dual.gradient( dual.multiply( dual.variable( 3, 0), dual.variable( 4, 1)), gradient);
+		Checks.check( gradient[0] == 4 && gradient[1] == 3, "dual gradient after values alone");
+	}
+
+	static GeoPoint point ( String name, Random random)
+	{
+		return new GeoPoint( name, random.nextDouble() * 400, random.nextDouble() * 400);
+	}
+
+	// the largest deviation of the gradient from central differences of the
+	// error, relative to the largest derivative
+	static double deviation ( GeoConstraint constraint)
+	{
+		GeoPoint[] points = constraint.getPoints();
+		double[] gradient = new double[ 2 * points.length];
+		double largest = 1e-12;
+		double deviation = 0;
+
+		constraint.calculateGradient( gradient);
+
+		for ( int k = 0; k < points.length; k++)
+		{
+			GeoPoint p = points[k];
+			double gx = 0;
+			double gy = 0;
+			double x = p.getX();
+			double y = p.getY();
+			double dx, dy;
+
+			// a point given more than once gets the derivatives of each of its places
+			for ( int j = 0; j < points.length; j++)
+			{
+				if ( points[j] == p)
+				{
+					gx += gradient[2 * j];
+					gy += gradient[2 * j + 1];
+				}
+			}
+
+			p.setX( x + step);
+			dx = constraint.calculateError();
+			p.setX( x - step);
+			dx = ( dx - constraint.calculateError()) / ( 2 * step);
+			p.setX( x);
+
+			p.setY( y + step);
+			dy = constraint.calculateError();
+			p.setY( y - step);
+			dy = ( dy - constraint.calculateError()) / ( 2 * step);
+			p.setY( y);
+
+			deviation = Math.max( deviation, Math.max( Math.abs( dx - gx), Math.abs( dy - gy)));
+			largest = Math.max( largest, Math.max( Math.abs( dx), Math.abs( dy)));
+		}
+
+		return deviation / largest;
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
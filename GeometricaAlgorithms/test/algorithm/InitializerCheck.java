@@ -0,0 +1,42 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// random starts of systems with fixed points among their objects
+public class InitializerCheck {
+
+	public static void run ( )
+	{
+		GeoConstruct construct = Checks.interpret( "point A B\nfix-point B 0 0\nset-dist A B 50\n");
+		GeoNumericSolver solver = new GeoNumericSolver();
+		GeoPoint b = construct.findPoint( "B");
+		GeoInitializer initializer = new GeoInitializer( new Random( 1));
+		ArrayList<GeoObject> objects = new ArrayList<GeoObject>();
+		double[] parameters = new double[ 2];
+		SolverStats stats;
+
+		// the fixed point is passed to the solver with the others
+		solver.addObjects( construct.getRawObjects());
+		solver.addConstraints( construct.getConstraints());
+		stats = solver.findSolution( true, true);
+
+		Checks.check( stats.isSolved(), "solution with a fixed point among the objects");
+		Checks.check( b.getX() == 0 && b.getY() == 0, "fixed point left in place by the random start");
+
+		// the parameters of the next object follow the fixed point directly
+		objects.add( new GeoPoint( "F", 1, 2, true));
+		objects.add( new GeoPoint( "P", 3, 4));
+		initializer.measure( objects, new ArrayList<GeoConstraint>());
+		initializer.initialize( objects, parameters);
+
+		Checks.check( parameters[0] != 0 || parameters[1] != 0, "parameters of the point after the fixed one filled");
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,111 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// the default optimizer solves as it always did, the stages added to it only
+// run when switched on; each stage must still solve the demo scripts
+public class OptimizerCheck {
+
+	public static void run ( )
+	{
+		GeoDrawingOptimizer defaults = new GeoDrawingOptimizer( new GeoConstruct());
+
+		Checks.check( defaults.getSolverMode() == GeoNumericSolver.SOLVER_BFGS, "dense BFGS by default");
+		Checks.check( new GeoNumericSolver().getSolverMode() == GeoNumericSolver.SOLVER_BFGS, "dense BFGS by default in the numeric solver");
+		Checks.check( !defaults.isParallel(), "parallel solution of the parts off by default");
+		Checks.check( defaults.getMultiStart() == 1, "a single start at a time by default");
+		Checks.check( !defaults.isConstructivePlacement(), "placement by ruler and compass off by default");
+		Checks.check( !defaults.isPresolve(), "presolving off by default");
+		Checks.check( !defaults.isDiagnosis(), "diagnosis off by default");
+		Checks.check( !defaults.isClustering(), "rigid clustering off by default");
+		Checks.check( !defaults.isGaugeFixing(), "gauge fixing off by default");
+		Checks.check( !defaults.isMultilevelPlacement(), "multilevel placement off by default");
+
+		checkScripts( "default", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { }
+		});
+		checkScripts( "automatic solver", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setSolverMode( GeoNumericSolver.SOLVER_AUTOMATIC); }
+		});
+		checkScripts( "parallel parts", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setParallel( true); }
+		});
+		// random starts go to the concurrent starts right away, solved on copies of the parts
+		checkScripts( "multiple starts", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setMultiStart( 4); }
+		});
+		checkScripts( "multiple starts of parallel parts", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setMultiStart( 4); optimizer.setParallel( true); }
+		});
+		checkScripts( "ruler and compass", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setConstructivePlacement( true); }
+		});
+		checkScripts( "presolve", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setPresolve( true); }
+		});
+		checkScripts( "diagnosis", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setDiagnosis( true); }
+		});
+		checkScripts( "clustering", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setClustering( true); }
+		});
+		checkScripts( "gauge fixing", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setGaugeFixing( true); }
+		});
+		checkScripts( "multilevel placement", new Stage() {
+			public void enable ( GeoDrawingOptimizer optimizer) { optimizer.setMultilevelPlacement( true); }
+		});
+		checkMultilevel();
+	}
+
+	// the demo scripts are too small to be placed level by level, a grid is not;
+	// solved with the default solver otherwise
+	static void checkMultilevel ( )
+	{
+		GeoConstruct construct = Checks.interpret( SolverCheck.grid( 12));
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		GeoMultilevelPlacer placer = new GeoMultilevelPlacer( 1);
+		GeoSubsystem component = new GeoSubsystem();
+		SolverStats stats;
+
+		GeoDrawingOptimizer.collectSystem( construct, component.getObjects(), component.getConstraints());
+		Checks.check( GeoMultilevelPlacer.isApplicable( component), "multilevel placement: grid is large enough");
+		placer.place( component);
+		Checks.check( placer.getLevelCount() > 1, "multilevel placement: grid is grouped into levels");
+
+		optimizer.setRandomSeed( 1);
+		optimizer.setTimeBudget( 10000);
+		optimizer.setMultilevelPlacement( true);
+		stats = optimizer.optimize( true);
+
+		Checks.check( stats.isSolved() && DemoScripts.calculateError( construct) < 1e-6, "multilevel placement: grid solved");
+	}
+
+	// switches a stage on
+	interface Stage {
+		void enable ( GeoDrawingOptimizer optimizer);
+	}
+
+	// solves every demo script with the stage switched on
+	static void checkScripts ( String name, Stage stage)
+	{
+		for ( int i = 0; i < DemoScripts.scripts.length; i++)
+		{
+			GeoConstruct construct = Checks.interpret( DemoScripts.scripts[i]);
+			GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+			SolverStats stats;
+
+			optimizer.setRandomSeed( i);
+			stage.enable( optimizer);
+			stats = optimizer.optimize( true);
+
+			Checks.check( stats.isSolved() && DemoScripts.calculateError( construct) < 1e-6,
+						  name + ": demo script " + ( i + 1) + " solved");
+		}
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
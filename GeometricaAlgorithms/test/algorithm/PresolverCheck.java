@@ -0,0 +1,42 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// the simplification of a system before solving: constant constraints are
+// folded, points bound to circles around fixed points, duplicates dropped
+public class PresolverCheck {
+
+	public static void run ( )
+	{
+		GeoConstruct construct = Checks.interpret( "point A B C\nfix-point A 0 0\nfix-point B 10 0\nset-dist A B 10\n" +
+												   "set-dist A C 5\nset-dist C A 5\nset-angle B A C 60\n");
+		GeoConstruct contradicted = Checks.interpret( "point A B C\nfix-point A 0 0\nfix-point B 10 0\nset-dist A B 20\nset-dist A C 5\n");
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		GeoPresolver presolver;
+		GeoPoint c = construct.findPoint( "C");
+
+		optimizer.setPresolve( true);
+		optimizer.setRandomSeed( 1);
+		Checks.check( optimizer.optimize( true).isSolved(), "solution of the presolved system");
+
+		presolver = optimizer.getPresolver();
+		Checks.check( presolver.getConstants().size() == 1, "distance between fixed points folded");
+		Checks.check( presolver.getDuplicates().size() == 1, "duplicate distance dropped");
+		Checks.check( presolver.getLoci().size() == 1, "point bound to the circle around the fixed one");
+		Checks.check( presolver.isConsistent(), "consistent constants");
+		Checks.check( Checks.close( Math.hypot( c.getX(), c.getY()), 5, 1e-6), "bound point on its circle");
+		Checks.check( Checks.close( Math.abs( Math.atan2( c.getY(), c.getX())), Math.PI / 3, 1e-6), "bound point at its angle");
+
+		optimizer = new GeoDrawingOptimizer( contradicted);
+		optimizer.setPresolve( true);
+		optimizer.setRandomSeed( 1);
+		Checks.check( !optimizer.optimize( true).isSolved(), "no solution with a constant constraint missed");
+		Checks.check( !optimizer.getPresolver().isConsistent() && optimizer.getPresolver().getInconsistentConstraints().size() == 1,
+					  "missed constant constraint named");
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,83 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+// the placement of rigid objects, with the rotation kept between placements,
+// against the placement computed directly
+public class RigidObjectCheck {
+	static final double[] shape = { 0, 0, 40, 0, 50, 30, 10, 25};
+
+	public static void run ( )
+	{
+		GeoPoint[] points = new GeoPoint[ shape.length / 2];
+		GeoRigidObject rigid;
+		double[] first = { 100, 50, 0.7, 150};
+		double[] second = { -20, 80, 2.9, 80};
+
+		for ( int i = 0; i < points.length; i++)
+		{
+			points[i] = new GeoPoint( "P" + i);
+		}
+		rigid = GeoRigidObject.createFromPointData( true, shape, points);
+
+		rigid.updateParameters( first, 0);
+		Checks.check( isPlaced( points, first), "placement at the first parameters");
+
+		rigid.updateParameters( second, 0);
+		Checks.check( isPlaced( points, second), "placement at other parameters");
+
+		// the same parameters again, after the points were moved by something else
+		points[0].setX( 0);
+		points[2].setY( 0);
+		rigid.updateParameters( second, 0);
+		Checks.check( isPlaced( points, second), "placement after the points were moved");
+
+		// the same, with the first point left where it was
+		points[1].setX( 0);
+		points[3].setY( 0);
+		rigid.updateParameters( second, 0);
+		Checks.check( isPlaced( points, second), "placement after points other than the first were moved");
+
+		rigid.updateParameters( first, 0);
+		rigid.updateParameters( first, 0);
+		Checks.check( isPlaced( points, first), "placement at unchanged parameters");
+
+		for ( GeoPoint p : points)
+		{
+			p.setParametrized( false);
+		}
+	}
+
+	// whether the points are the shape, centered at its average, rotated and
+	// scaled by the parameters and moved to their position
+	static boolean isPlaced ( GeoPoint[] points, double[] parameters)
+	{
+		double averageX = 0;
+		double averageY = 0;
+		double cos = Math.cos( parameters[2]) * parameters[3] / 100;
+		double sin = Math.sin( parameters[2]) * parameters[3] / 100;
+
+		for ( int i = 0; i < points.length; i++)
+		{
+			averageX += shape[2 * i] / points.length;
+			averageY += shape[2 * i + 1] / points.length;
+		}
+
+		for ( int i = 0; i < points.length; i++)
+		{
+			double x = shape[2 * i] - averageX;
+			double y = shape[2 * i + 1] - averageY;
+
+			if ( !Checks.close( points[i].getX(), parameters[0] + x * cos - y * sin, 1e-12) ||
+				 !Checks.close( points[i].getY(), parameters[1] + x * sin + y * cos, 1e-12))
+				return false;
+		}
+
+		return true;
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
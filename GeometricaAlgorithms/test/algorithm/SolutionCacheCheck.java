@@ -0,0 +1,68 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.Arrays;
+
+// a construct solved from the cache gets the same coordinates as when it was
+// solved, and a similar one still solves
+public class SolutionCacheCheck {
+	static final String script = "point A B C D\nset-dist A B 100\nset-angle A B C 90\nset-dist B C 80\npoint-on-line-segment D A C\nset-angle A B D 30\n";
+	// the same construct with one distance changed
+	static final String similar = "point A B C D\nset-dist A B 100\nset-angle A B C 90\nset-dist B C 85\npoint-on-line-segment D A C\nset-angle A B D 30\n";
+
+	public static void run ( )
+	{
+		GeoSolutionCache cache = new GeoSolutionCache( 4);
+		GeoConstruct missed = Checks.interpret( script);
+		GeoConstruct hit = Checks.interpret( script);
+		GeoConstruct near = Checks.interpret( similar);
+		GeoConstruct unknown = Checks.interpret( "point X Y\nset-dist X Y 10\n");
+		double[] solved;
+		double[] before;
+
+		Checks.check( solve( missed, cache).isSolved(), "solution on a miss");
+		Checks.check( cache.getMisses() == 1 && cache.size() == 1, "miss counted and solution stored");
+		solved = coordinates( missed);
+
+		Checks.check( solve( hit, cache).isSolved(), "solution on a hit");
+		Checks.check( cache.getHits() == 1, "hit counted");
+		Checks.check( Arrays.equals( coordinates( hit), solved), "same coordinates on a hit as on the miss");
+
+		Checks.check( solve( near, cache).isSolved(), "solution of a similar construct");
+		Checks.check( cache.getNearHits() == 1, "near hit counted");
+
+		// nothing to restore, the points stay where they are
+		before = coordinates( unknown);
+		Checks.check( cache.restore( unknown) == GeoSolutionCache.MISS, "miss on an unknown construct");
+		Checks.check( Arrays.equals( coordinates( unknown), before), "points left alone on a miss");
+	}
+
+	static SolverStats solve ( GeoConstruct construct, GeoSolutionCache cache)
+	{
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+
+		optimizer.setRandomSeed( 1);
+		optimizer.setSolutionCache( cache);
+		return optimizer.optimize( true);
+	}
+
+	// the coordinates of the points of a construct, x and y in turn
+	static double[] coordinates ( GeoConstruct construct)
+	{
+		double[] values = new double[ 2 * construct.getPoints().size()];
+
+		for ( int i = 0; i < construct.getPoints().size(); i++)
+		{
+			values[2 * i] = construct.getPoints().get( i).getX();
+			values[2 * i + 1] = construct.getPoints().get( i).getY();
+		}
+
+		return values;
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,96 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+
+// each numeric solver on its own, without the stages of the optimizer, on the
+// demo scripts and on a grid of squares
+public class SolverCheck {
+	// the random starts a system may take
+	static final int maxStarts = 20;
+
+	public static void run ( )
+	{
+		checkMode( "limited memory BFGS", GeoNumericSolver.SOLVER_LBFGS);
+		checkMode( "Levenberg-Marquardt", GeoNumericSolver.SOLVER_LEVENBERG_MARQUARDT);
+		checkMode( "Newton", GeoNumericSolver.SOLVER_NEWTON);
+	}
+
+	// the points of an n x n grid of squares, held by distances and right angles
+	static String grid ( int n)
+	{
+		StringBuilder script = new StringBuilder( "point");
+
+		for ( int i = 0; i < n; i++)
+		{
+			for ( int j = 0; j < n; j++)
+			{
+				script.append( " P" + i + "_" + j);
+			}
+		}
+		script.append( "\n");
+
+		for ( int i = 0; i < n; i++)
+		{
+			for ( int j = 0; j < n; j++)
+			{
+				if ( i + 1 < n)
+					script.append( "set-dist P" + i + "_" + j + " P" + ( i + 1) + "_" + j + " 30\n");
+				if ( j + 1 < n)
+					script.append( "set-dist P" + i + "_" + j + " P" + i + "_" + ( j + 1) + " 30\n");
+				if ( i + 1 < n && j + 1 < n)
+					script.append( "set-angle P" + ( i + 1) + "_" + j + " P" + i + "_" + j + " P" + i + "_" + ( j + 1) + " 90\n");
+			}
+		}
+
+		return script.toString();
+	}
+
+	static void checkMode ( String name, int mode)
+	{
+		for ( int i = 0; i < DemoScripts.scripts.length; i++)
+		{
+			Checks.check( solve( DemoScripts.scripts[i], mode) != null, name + ": demo script " + ( i + 1) + " solved");
+		}
+
+		Checks.check( solve( grid( 4), mode) != null, name + ": grid solved");
+	}
+
+	// solves a script with a solver of the given mode, from random starts
+	// returns the solver which solved it, null if none did
+	static GeoNumericSolver solve ( String script, int mode)
+	{
+		GeoConstruct construct = Checks.interpret( script);
+		ArrayList<GeoObject> objects = new ArrayList<GeoObject>();
+		ArrayList<GeoConstraint> constraints = new ArrayList<GeoConstraint>();
+		GeoNumericSolver solver;
+
+		GeoDrawingOptimizer.collectSystem( construct, objects, constraints);
+
+		if ( mode == GeoNumericSolver.SOLVER_LEVENBERG_MARQUARDT)
+			solver = new GeoLeastSquaresSolver();
+		else if ( mode == GeoNumericSolver.SOLVER_NEWTON)
+			solver = new GeoNewtonSolver();
+		else
+			solver = new GeoNumericSolver();
+
+		solver.setSolverMode( mode);
+		solver.setRandomSeed( 1);
+		solver.addObjects( objects);
+		solver.addConstraints( constraints);
+
+		for ( int start = 0; start < maxStarts; start++)
+		{
+			if ( solver.findSolution( true, true).isSolved() && DemoScripts.calculateError( construct) < 1e-6)
+				return solver;
+		}
+
+		return null;
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,132 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+// the sparse LU factorization on random sparse systems, and the Newton solver
+// built on it
+public class SparseLUCheck {
+	static final int trials = 200;
+	static final int maxSize = 400;
+
+	public static void run ( )
+	{
+		Random random = new Random( 7);
+		SparseLU lu = new SparseLU();
+		GeoNewtonSolver newton;
+
+		for ( int trial = 0; trial < trials; trial++)
+		{
+			int n = 1 + random.nextInt( maxSize);
+			SparseMatrix a = randomMatrix( n, random);
+			double[] expected = new double[ n];
+			double[] b = new double[ n];
+			double[] x = new double[ n];
+			double[] product = new double[ n];
+			double residual = 0;
+			double norm = 1e-300;
+
+			Checks.check( lu.factor( a), "factorization of a regular matrix of size " + n);
+
+			for ( int i = 0; i < n; i++)
+			{
+				expected[i] = random.nextDouble();
+			}
+			a.multiply( expected, b);
+			lu.solve( b, x);
+			a.multiply( x, product);
+
+			for ( int i = 0; i < n; i++)
+			{
+				residual = Math.max( residual, Math.abs( product[i] - b[i]));
+				norm = Math.max( norm, Math.abs( b[i]));
+			}
+			Checks.check( residual / norm < 1e-10, "backward residual of a solution of size " + n);
+
+			// a column of zeros
+			if ( n > 1)
+			{
+				for ( int k = 0; k < a.getNonZeros(); k++)
+				{
+					if ( a.getColumnIndices()[k] == 0)
+						a.getValues()[k] = 0;
+				}
+				Checks.check( !lu.factor( a), "singular matrix of size " + n + " detected");
+			}
+		}
+
+		// a point held by its distances to two fixed points is square, a triangle of free points is not
+		newton = ( GeoNewtonSolver) SolverCheck.solve( "point A B C\nfix-point A 0 0\nfix-point B 100 0\nset-dist A C 80\nset-dist B C 60\n",
+												   GeoNumericSolver.SOLVER_NEWTON);
+		Checks.check( newton != null, "square system solved by Newton's method");
+		Checks.check( newton != null && newton.isSquare() && newton.isNewtonConverged(),
+					  "square system converged without falling back");
+
+		newton = ( GeoNewtonSolver) SolverCheck.solve( DemoScripts.scripts[0], GeoNumericSolver.SOLVER_NEWTON);
+		Checks.check( newton != null && !newton.isSquare(), "system which is not square solved by BFGS");
+	}
+
+	// a random sparse matrix with a permuted diagonal of entries away from zero
+	static SparseMatrix randomMatrix ( int n, Random random)
+	{
+		int[] permutation = new int[ n];
+		int[] rowStart = new int[ n + 1];
+		ArrayList<Integer> columns = new ArrayList<Integer>();
+		ArrayList<Double> values = new ArrayList<Double>();
+		int[] columnArray;
+		double[] valueArray;
+
+		for ( int i = 0; i < n; i++)
+		{
+			permutation[i] = i;
+		}
+		for ( int i = n - 1; i > 0; i--)
+		{
+			int j = random.nextInt( i + 1);
+			int swap = permutation[i];
+
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+
+		for ( int i = 0; i < n; i++)
+		{
+			TreeSet<Integer> row = new TreeSet<Integer>();
+
+			row.add( permutation[i]);
+			for ( int k = random.nextInt( 4); k > 0; k--)
+			{
+				row.add( random.nextInt( n));
+			}
+
+			rowStart[i] = columns.size();
+			for ( int column : row)
+			{
+				columns.add( column);
+				if ( column == permutation[i])
+					values.add( ( random.nextBoolean() ? 1 : -1) * ( 0.5 + random.nextDouble()));
+				else
+					values.add( random.nextDouble() - 0.5);
+			}
+		}
+		rowStart[n] = columns.size();
+
+		columnArray = new int[ columns.size()];
+		valueArray = new double[ columns.size()];
+		for ( int k = 0; k < columnArray.length; k++)
+		{
+			columnArray[k] = columns.get( k);
+			valueArray[k] = values.get( k);
+		}
+
+		return new SparseMatrix( n, n, rowStart, columnArray, valueArray);
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}
@@ -0,0 +1,86 @@
+package algorithm;
+// Created: 18.10.2026, Ali Batuhan Yardm
+
+import java.util.ArrayList;
+
+// the statistics reported to a listener against those returned by the optimizer
+public class StatsListenerCheck {
+	// two triangles apart from each other, each drawn by its first start
+	static final String twoParts = "point A B C D E F\nset-dist A B 100\nset-dist B C 120\nset-dist A C 150\n" +
+								   "set-dist D E 50\nset-dist E F 60\nset-dist D F 70\n";
+
+	// counts and sums what it receives, possibly from the threads of the pool
+	static class Counter implements SolverStats.Listener {
+		int solves;
+		int optimizations;
+		long iterations;
+		long evaluations;
+
+		@Override
+		public synchronized void solveFinished ( SolverStats stats)
+		{
+			solves++;
+			iterations += stats.getIterations();
+			evaluations += stats.getEvaluations();
+		}
+
+		@Override
+		public synchronized void optimizationFinished ( SolverStats stats)
+		{
+			optimizations++;
+		}
+	}
+
+	public static void run ( )
+	{
+		Counter counter = optimize( twoParts, 1, false);
+
+		Checks.check( counter.solves == 2, "listener: a solution for each part");
+
+		for ( int i = 0; i < DemoScripts.scripts.length; i++)
+		{
+			optimize( DemoScripts.scripts[i], i, false);
+			optimize( DemoScripts.scripts[i], i, true);
+		}
+	}
+
+	// optimizes a script with a listener, checks the totals and returns the listener
+	static Counter optimize ( String script, long seed, boolean parallel)
+	{
+		GeoConstruct construct = Checks.interpret( script);
+		GeoDrawingOptimizer optimizer = new GeoDrawingOptimizer( construct);
+		Counter counter = new Counter();
+		String description = "listener, seed " + seed + ( parallel ? ", parallel" : "");
+		SolverStats stats;
+
+		optimizer.setRandomSeed( seed);
+		optimizer.setParallel( parallel);
+		optimizer.setStatsListener( counter);
+		stats = optimizer.optimize( true);
+
+		Checks.check( stats.isSolved(), description + ": solved");
+		Checks.check( counter.optimizations == 1, description + ": one optimization reported");
+		// every part is solved once, and once more for each restart
+		Checks.check( counter.solves == countParts( construct) + stats.getRestarts(), description + ": a solution reported for each start");
+		Checks.check( counter.iterations == stats.getIterations(), description + ": iterations add up");
+		Checks.check( counter.evaluations == stats.getEvaluations(), description + ": evaluations add up");
+
+		return counter;
+	}
+
+	static int countParts ( GeoConstruct construct)
+	{
+		ArrayList<GeoObject> objects = new ArrayList<GeoObject>();
+		ArrayList<GeoConstraint> constraints = new ArrayList<GeoConstraint>();
+
+		GeoDrawingOptimizer.collectSystem( construct, objects, constraints);
+
+		return GeoSubsystem.partition( objects, constraints, new ArrayList<GeoConstraint>()).size();
+	}
+
+	public static void main ( String[] args)
+	{
+		run();
+		Checks.finish();
+	}
+}